@@ -0,0 +1,136 @@
+/*
+ * Overload test for the AdmissionFilter: closed-loop clients hammering a mixed workload.
+ *
+ * Start the app twice and compare:
+ *   ./mvnw -q spring-boot:run -Dspring-boot.run.arguments="--server.port=18080"
+ *   ./mvnw -q spring-boot:run -Dspring-boot.run.arguments="--server.port=18080 --rivals.admission.enabled=false"
+ * then:
+ *   java bench/AdmissionLoadTest.java [baseUrl] [clients] [seconds]   (default http://localhost:18080 400 20)
+ *
+ * Mix: 40% GET /rankings, 30% GET /threads, 10% GET /threads/{id}/comments,
+ *      10% POST /threads/{id}/comments, 10% POST /comments/{id}/like.
+ * Prints, per class, requests, successes, 503s and the p50 / p99 / max of successful requests
+ * (measured after a 3s warm-up). With admission on, successful p99 should stay flat while the
+ * surplus turns into fast 503s, likes first.
+ */
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class AdmissionLoadTest {
+
+    enum Kind { RANKINGS, THREADS, COMMENTS, POST_COMMENT, LIKE }
+
+    static final class Result {
+        final LongAdder total = new LongAdder();
+        final LongAdder ok = new LongAdder();
+        final LongAdder shed = new LongAdder();
+        final LongAdder other = new LongAdder();
+        final ConcurrentLinkedQueue<Long> okLatencies = new ConcurrentLinkedQueue<>();
+    }
+
+    private static final Pattern ID = Pattern.compile("\"id\":\"([^\"]+)\"");
+
+    public static void main(String[] args) throws Exception {
+        final String base = args.length > 0 ? args[0] : "http://localhost:18080";
+        final int clients = args.length > 1 ? Integer.parseInt(args[1]) : 400;
+        final int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+        final String threadId = id(http.send(post(base + "/threads", "{\"title\":\"load test\",\"authorId\":\"bench\"}", "bench-0"),
+                HttpResponse.BodyHandlers.ofString()).body());
+        final String commentId = id(http.send(post(base + "/threads/" + threadId + "/comments", "{\"body\":\"first\"}", "bench-1"),
+                HttpResponse.BodyHandlers.ofString()).body());
+
+        final Result[] results = new Result[Kind.values().length];
+        for (int i = 0; i < results.length; i++) results[i] = new Result();
+        final long warmupEnd = System.nanoTime() + 3_000_000_000L;
+        final long end = warmupEnd + seconds * 1_000_000_000L;
+        final AtomicLong userSeq = new AtomicLong();
+        final CountDownLatch done = new CountDownLatch(clients);
+
+        for (int c = 0; c < clients; c++) {
+            Thread t = new Thread(() -> {
+                final ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                while (System.nanoTime() < end) {
+                    final int roll = rnd.nextInt(100);
+                    final Kind kind = roll < 40 ? Kind.RANKINGS : roll < 70 ? Kind.THREADS : roll < 80 ? Kind.COMMENTS
+                            : roll < 90 ? Kind.POST_COMMENT : Kind.LIKE;
+                    final HttpRequest req = switch (kind) {
+                        case RANKINGS -> get(base + "/rankings");
+                        case THREADS -> get(base + "/threads");
+                        case COMMENTS -> get(base + "/threads/" + threadId + "/comments");
+                        case POST_COMMENT -> post(base + "/threads/" + threadId + "/comments",
+                                "{\"body\":\"gg " + rnd.nextLong() + "\"}", "bench-u" + userSeq.incrementAndGet());
+                        case LIKE -> post(base + "/comments/" + commentId + "/like", "", null);
+                    };
+                    final long t0 = System.nanoTime();
+                    int status;
+                    try {
+                        status = http.send(req, HttpResponse.BodyHandlers.discarding()).statusCode();
+                    } catch (Exception e) {
+                        status = -1;
+                    }
+                    final long took = System.nanoTime() - t0;
+                    if (t0 < warmupEnd) continue;
+                    final Result r = results[kind.ordinal()];
+                    r.total.increment();
+                    if (status / 100 == 2) {
+                        r.ok.increment();
+                        r.okLatencies.add(took);
+                    } else if (status == 503) {
+                        r.shed.increment();
+                    } else {
+                        r.other.increment();
+                    }
+                }
+                done.countDown();
+            }, "client-" + c);
+            t.setDaemon(true);
+            t.start();
+        }
+        done.await();
+
+        System.out.printf("%d clients, %ds measured%n", clients, seconds);
+        System.out.printf("%-13s %9s %9s %9s %7s %9s %9s %9s%n", "class", "requests", "ok", "503", "other", "p50 ms", "p99 ms", "max ms");
+        for (Kind k : Kind.values()) {
+            final Result r = results[k.ordinal()];
+            final long[] lat = r.okLatencies.stream().mapToLong(Long::longValue).sorted().toArray();
+            System.out.printf("%-13s %9d %9d %9d %7d %9.1f %9.1f %9.1f%n", k, r.total.sum(), r.ok.sum(), r.shed.sum(),
+                    r.other.sum(), pct(lat, 0.50), pct(lat, 0.99), lat.length == 0 ? 0 : lat[lat.length - 1] / 1e6);
+        }
+    }
+
+    private static double pct(long[] sorted, double q) {
+        if (sorted.length == 0) return 0;
+        return sorted[Math.min(sorted.length - 1, (int) (q * sorted.length))] / 1e6;
+    }
+
+    private static HttpRequest get(String url) {
+        return HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(30)).GET().build();
+    }
+
+    private static HttpRequest post(String url, String json, String user) {
+        HttpRequest.Builder b = HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json));
+        if (user != null) b.header("X-User-Id", user);
+        return b.build();
+    }
+
+    private static String id(String json) {
+        Matcher m = ID.matcher(json);
+        if (!m.find()) throw new IllegalStateException("No id in " + json);
+        return m.group(1);
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Write overhead of the author activity index on ThreadRepo.addComment, plus its heap cost and
+ * the latency of one activity page.
+ *
+ *   ./mvnw -q compile
+ *   java -Xmx4g -cp target/classes bench/AuthorActivityBench.java [comments] [authors]   (default 1000000 10000)
+ *
+ * "indexed" posts every comment under one of `authors` ids; "anonymous" posts the same comments
+ * with a null author, which skips the index, so the difference is the index's cost. Rounds
+ * alternate between the two on fresh repos and the best round of each is reported.
+ */
+
+import com.rivals.model.ThreadDto;
+import com.rivals.repo.ThreadRepo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+public class AuthorActivityBench {
+
+    private static final int THREADS = 1_000;
+    private static final int ROUNDS = 6;
+
+    public static void main(String[] args) throws Exception {
+        final int comments = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        final int authors = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        final String[] authorIds = new String[authors];
+        for (int i = 0; i < authors; i++) authorIds[i] = "user-" + i;
+
+        double indexedNs = Double.MAX_VALUE, anonymousNs = Double.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            anonymousNs = Math.min(anonymousNs, fill(new ThreadRepo(), comments, null));
+            indexedNs = Math.min(indexedNs, fill(new ThreadRepo(), comments, authorIds));
+        }
+
+        // same repo contents either way; only the index differs
+        final long m0 = usedHeap();
+        ThreadRepo anonymous = new ThreadRepo();
+        fill(anonymous, comments, null);
+        final long mAnonymous = usedHeap() - m0;
+        anonymous = null;
+        final long m1 = usedHeap();
+        final ThreadRepo indexed = new ThreadRepo();
+        fill(indexed, comments, authorIds);
+        final long mIndexed = usedHeap() - m1;
+        final ThreadRepo.StorageStats s = indexed.storageStats();
+
+        long sink = 0;
+        for (int i = 0; i < 200_000; i++) sink += indexed.listActivity(authorIds[i % authors], null, 25).items().size();
+        final int lookups = 500_000;
+        final long t0 = System.nanoTime();
+        for (int i = 0; i < lookups; i++) sink += indexed.listActivity(authorIds[i % authors], null, 25).items().size();
+        final double pageUs = (System.nanoTime() - t0) / 1e3 / lookups;
+
+        System.out.printf("comments=%d threads=%d authors=%d%n", comments, THREADS, authors);
+        System.out.printf("addComment anonymous  %8.0f ns/op%n", anonymousNs);
+        System.out.printf("addComment indexed    %8.0f ns/op  (+%.0f ns, +%.1f%%)%n", indexedNs,
+                indexedNs - anonymousNs, 100 * (indexedNs - anonymousNs) / anonymousNs);
+        System.out.printf("index heap            %8.1f MB  = %.1f B/ref over %d refs, %d authors%n",
+                (mIndexed - mAnonymous) / 1e6, (mIndexed - mAnonymous) / (double) s.activityReferences(),
+                s.activityReferences(), s.activityAuthors());
+        System.out.printf("listActivity(25)      %8.2f us/page%s%n", pageUs, sink == 42 ? " " : "");
+    }
+
+    /** @return ns per addComment */
+    private static double fill(ThreadRepo repo, int comments, String[] authorIds) {
+        final List<ThreadDto> threads = new ArrayList<>(THREADS);
+        for (int i = 0; i < THREADS; i++) threads.add(repo.createThread("t" + i, null, null));
+        final SplittableRandom rnd = new SplittableRandom(7);
+        final long t0 = System.nanoTime();
+        for (int i = 0; i < comments; i++) {
+            final String author = authorIds == null ? null : authorIds[rnd.nextInt(authorIds.length)];
+            repo.addComment(threads.get(rnd.nextInt(THREADS)).id(), author, "comment body");
+        }
+        return (System.nanoTime() - t0) / (double) comments;
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        final Runtime rt = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(100);
+            used = Math.min(used, rt.totalMemory() - rt.freeMemory());
+        }
+        return used;
+    }
+}
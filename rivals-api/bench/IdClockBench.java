@@ -0,0 +1,83 @@
+/*
+ * Id + timestamp generation throughput under many threads.
+ *
+ *   ./mvnw -q compile
+ *   java -cp target/classes bench/IdClockBench.java [threads] [seconds]   (default 16 5)
+ *
+ * Each operation is what a comment insert does: one id, one timestamp, one ISO rendering.
+ *   current   Ids.ulid() + Time.now() + Time.isoNow()
+ *   baseline  random UUID string + Instant.now() + ISO_INSTANT formatting every call
+ * Reports ops/s for 1 thread and for N threads, plus allocated bytes per op (HotSpot only).
+ */
+
+import com.rivals.util.Ids;
+import com.rivals.util.Time;
+
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+public class IdClockBench {
+
+    interface Op {
+        int run();
+    }
+
+    private static final DateTimeFormatter ISO = DateTimeFormatter.ISO_INSTANT;
+
+    public static void main(String[] args) throws Exception {
+        final int threads = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        final int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        final Op current = () -> Ids.ulid().length() + (int) Time.now() + Time.isoNow().length();
+        final Op baseline = () -> UUID.randomUUID().toString().length() + (int) Instant.now().toEpochMilli()
+                + ISO.format(Instant.now()).length();
+
+        System.out.printf("%-9s %8s %14s %12s%n", "variant", "threads", "ops/s", "bytes/op");
+        for (int t : new int[]{1, threads}) {
+            run("baseline", baseline, t, 1); // warm-up
+            run("current", current, t, 1);
+            report("baseline", baseline, t, seconds);
+            report("current", current, t, seconds);
+        }
+    }
+
+    private static void report(String name, Op op, int threads, int seconds) throws Exception {
+        final long[] r = run(name, op, threads, seconds);
+        System.out.printf("%-9s %8d %14.0f %12.1f%n", name, threads, r[0] / (double) seconds, r[1] / (double) Math.max(1, r[0]));
+    }
+
+    /** @return {ops, allocated bytes} */
+    private static long[] run(String name, Op op, int threads, int seconds) throws Exception {
+        final com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final LongAdder ops = new LongAdder();
+        final LongAdder bytes = new LongAdder();
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threads);
+        final long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        for (int i = 0; i < threads; i++) {
+            new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                final long a0 = mx.getCurrentThreadAllocatedBytes();
+                long n = 0, sink = 0;
+                while ((n & 1023) != 0 || System.nanoTime() < deadline) {
+                    sink += op.run();
+                    n++;
+                }
+                bytes.add(mx.getCurrentThreadAllocatedBytes() - a0);
+                ops.add(n + (sink == 42 ? 1 : 0));
+                done.countDown();
+            }, name + "-" + i).start();
+        }
+        start.countDown();
+        done.await();
+        return new long[]{ops.sum(), bytes.sum()};
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * Connection-scale test for the /live WebSocket hub: many local clients, one writer.
+ *
+ *   ./mvnw -q spring-boot:run -Dspring-boot.run.arguments="--server.port=18080"
+ * then (needs ~2 file descriptors per client across both processes; check ulimit -n):
+ *   java bench/LiveScaleTest.java [baseUrl] [clients] [seconds] [commentsPerSec]
+ *   (default http://localhost:18080 10000 20 50)
+ *
+ * Every client subscribes to "threads" and to one shared "thread:{id}"; every tenth also to
+ * "rankings:GLOBAL". After all snapshots arrive, a writer posts comments to that thread at a
+ * fixed rate. Prints connect / subscribe times, frames received versus comments posted (the
+ * coalescing: at most one frame per topic per flush interval), delivery latency from commit to
+ * client (the frame's "at"; same host clock) and the server's /stats/live.
+ */
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.WebSocket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class LiveScaleTest {
+
+    private static final Pattern ID = Pattern.compile("\"id\":\"([^\"]+)\"");
+    private static final Pattern TYPE = Pattern.compile("\"type\":\"(\\w+)\"");
+    private static final Pattern AT = Pattern.compile("\"at\":(\\d+)");
+    private static final int MAX_HANDSHAKES = 256;
+
+    /** delivery latency histogram, 1 ms buckets; the last bucket collects everything slower */
+    private static final AtomicLongArray LATENCY_MS = new AtomicLongArray(10_001);
+    private static final LongAdder snapshots = new LongAdder();
+    private static final LongAdder diffs = new LongAdder();
+    private static final LongAdder errors = new LongAdder();
+    private static final LongAdder closed = new LongAdder();
+
+    public static void main(String[] args) throws Exception {
+        final String base = args.length > 0 ? args[0] : "http://localhost:18080";
+        final int clients = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        final int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        final int rate = args.length > 3 ? Integer.parseInt(args[3]) : 50;
+        final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+        final URI live = URI.create(base.replaceFirst("^http", "ws") + "/live");
+
+        final String threadId = id(http.send(post(base + "/threads", "{\"title\":\"live scale\",\"authorId\":\"bench\"}",
+                "bench-0"), HttpResponse.BodyHandlers.ofString()).body());
+
+        // connect everyone (bounded handshake concurrency, a few retries for shed handshakes)
+        final int topicsPerClient = 2;
+        final CountDownLatch subscribed = new CountDownLatch(clients * topicsPerClient + (clients + 9) / 10);
+        final Semaphore handshakes = new Semaphore(MAX_HANDSHAKES);
+        final List<WebSocket> sockets = new ArrayList<>(clients);
+        final LongAdder failedConnects = new LongAdder();
+        final long c0 = System.nanoTime();
+        final List<CompletableFuture<WebSocket>> pending = new ArrayList<>(clients);
+        for (int i = 0; i < clients; i++) {
+            final boolean rankings = i % 10 == 0;
+            handshakes.acquire();
+            final CompletableFuture<WebSocket> f = connect(http, live, new Client(subscribed), 3).whenComplete((ws, e) -> {
+                handshakes.release();
+                if (e != null) {
+                    failedConnects.increment();
+                    return;
+                }
+                // one outstanding send per socket: chain the subscribes
+                CompletableFuture<WebSocket> sends = ws.sendText("{\"op\":\"subscribe\",\"topic\":\"threads\"}", true)
+                        .thenCompose(w -> w.sendText("{\"op\":\"subscribe\",\"topic\":\"thread:" + threadId + "\"}", true));
+                if (rankings) sends.thenCompose(w -> w.sendText("{\"op\":\"subscribe\",\"topic\":\"rankings:GLOBAL\"}", true));
+            });
+            pending.add(f);
+        }
+        for (CompletableFuture<WebSocket> f : pending) {
+            try {
+                sockets.add(f.join());
+            } catch (RuntimeException e) {
+                // counted above
+            }
+        }
+        final double connectS = (System.nanoTime() - c0) / 1e9;
+        final boolean allSnapshots = subscribed.await(60, TimeUnit.SECONDS);
+        final double subscribeS = (System.nanoTime() - c0) / 1e9;
+        System.out.printf("%d clients connected in %.1f s (%d failed); snapshots %s after %.1f s%n", sockets.size(),
+                connectS, failedConnects.sum(), allSnapshots ? "all in" : "MISSING " + subscribed.getCount(), subscribeS);
+
+        // writer
+        final long diffsBefore = diffs.sum();
+        final long periodNs = 1_000_000_000L / rate;
+        final long end = System.nanoTime() + seconds * 1_000_000_000L;
+        long next = System.nanoTime();
+        int posted = 0, rejected = 0;
+        while (System.nanoTime() < end) {
+            final int status = http.send(post(base + "/threads/" + threadId + "/comments",
+                    "{\"body\":\"live " + posted + " " + System.nanoTime() + "\"}", "bench-u" + posted),
+                    HttpResponse.BodyHandlers.discarding()).statusCode();
+            if (status / 100 == 2) posted++;
+            else rejected++;
+            next += periodNs;
+            final long sleep = next - System.nanoTime();
+            if (sleep > 0) TimeUnit.NANOSECONDS.sleep(sleep);
+        }
+        Thread.sleep(2_000); // let the last flushes land
+
+        final long received = diffs.sum() - diffsBefore;
+        System.out.printf("%d comments posted (%d rejected) over %d s; %d diff frames received = %.1f per client%n",
+                posted, rejected, seconds, received, received / (double) Math.max(1, sockets.size()));
+        System.out.printf("delivery latency  p50 %d ms  p99 %d ms  p99.9 %d ms  max %d ms%n",
+                pct(0.50), pct(0.99), pct(0.999), pct(1.0));
+        System.out.printf("client errors %d, closed by server %d%n", errors.sum(), closed.sum());
+        System.out.println("server /stats/live: " + http.send(HttpRequest.newBuilder(URI.create(base + "/stats/live")).GET().build(),
+                HttpResponse.BodyHandlers.ofString()).body());
+
+        for (WebSocket ws : sockets) ws.sendClose(WebSocket.NORMAL_CLOSURE, "done");
+        Thread.sleep(1_000);
+    }
+
+    private static CompletableFuture<WebSocket> connect(HttpClient http, URI uri, Client client, int attempts) {
+        return http.newWebSocketBuilder().connectTimeout(Duration.ofSeconds(30)).buildAsync(uri, client)
+                .exceptionallyCompose(e -> {
+                    if (attempts <= 1) return CompletableFuture.failedFuture(e);
+                    return CompletableFuture.supplyAsync(() -> null, CompletableFuture.delayedExecutor(200, TimeUnit.MILLISECONDS))
+                            .thenCompose(x -> connect(http, uri, client, attempts - 1));
+                });
+    }
+
+    /** Counts frames; records commit-to-receive latency of diffs. */
+    static final class Client implements WebSocket.Listener {
+        private final CountDownLatch subscribed;
+        private final StringBuilder partial = new StringBuilder();
+
+        Client(CountDownLatch subscribed) {
+            this.subscribed = subscribed;
+        }
+
+        @Override
+        public CompletionStage<?> onText(WebSocket ws, CharSequence data, boolean last) {
+            if (!last) {
+                partial.append(data);
+            } else {
+                final String frame;
+                if (partial.length() > 0) {
+                    frame = partial.append(data).toString();
+                    partial.setLength(0);
+                } else {
+                    frame = data.toString();
+                }
+                onFrame(frame, System.currentTimeMillis());
+            }
+            ws.request(1);
+            return null;
+        }
+
+        private void onFrame(String frame, long now) {
+            final Matcher type = TYPE.matcher(frame);
+            if (!type.find()) return;
+            switch (type.group(1)) {
+                case "snapshot" -> {
+                    snapshots.increment();
+                    subscribed.countDown();
+                }
+                case "diff" -> {
+                    diffs.increment();
+                    final Matcher at = AT.matcher(frame);
+                    if (at.find()) {
+                        final long ms = Math.max(0, now - Long.parseLong(at.group(1)));
+                        LATENCY_MS.incrementAndGet((int) Math.min(ms, LATENCY_MS.length() - 1));
+                    }
+                }
+                default -> errors.increment();
+            }
+        }
+
+        @Override
+        public CompletionStage<?> onClose(WebSocket ws, int statusCode, String reason) {
+            if (statusCode != WebSocket.NORMAL_CLOSURE) closed.increment();
+            return null;
+        }
+
+        @Override
+        public void onError(WebSocket ws, Throwable error) {
+            errors.increment();
+        }
+    }
+
+    private static long pct(double q) {
+        long total = 0;
+        for (int i = 0; i < LATENCY_MS.length(); i++) total += LATENCY_MS.get(i);
+        if (total == 0) return 0;
+        final long rank = Math.max(1, (long) Math.ceil(q * total));
+        long seen = 0;
+        for (int i = 0; i < LATENCY_MS.length(); i++) {
+            seen += LATENCY_MS.get(i);
+            if (seen >= rank) return i;
+        }
+        return LATENCY_MS.length() - 1;
+    }
+
+    private static HttpRequest post(String url, String json, String user) {
+        HttpRequest.Builder b = HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json));
+        if (user != null) b.header("X-User-Id", user);
+        return b.build();
+    }
+
+    private static String id(String json) {
+        Matcher m = ID.matcher(json);
+        if (!m.find()) throw new IllegalStateException("No id in " + json);
+        return m.group(1);
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * RankingsIndex build cost and query latency versus a full scan of the ladder.
+ *
+ *   ./mvnw -q compile
+ *   java -cp target/classes bench/RankingsIndexBench.java [rows]   (default 500000)
+ *
+ * Query: one country, sorted by winRate, page of 50 at offset 100; plus the per-country ADR
+ * aggregates. "scan" filters, sorts and aggregates the row list on every call, as a
+ * request-time implementation would.
+ */
+
+import com.rivals.model.CountryStats;
+import com.rivals.model.RankingRow;
+import com.rivals.repo.RankingsIndex;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+
+public class RankingsIndexBench {
+
+    private static final String[] COUNTRIES = {"US", "BR", "KR", "JP", "DE", "SE", "FR", "GB", "CA", "CN", "PL", "TR"};
+
+    public static void main(String[] args) {
+        final int n = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+        final SplittableRandom rnd = new SplittableRandom(1);
+        final List<RankingRow> rows = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            rows.add(new RankingRow("p" + i, "P" + i, i + 1, 4000 - i / 200, COUNTRIES[rnd.nextInt(COUNTRIES.length)], "",
+                    rnd.nextDouble(), rnd.nextDouble() * 5, 80 + rnd.nextInt(120), "2025-01-01T00:00:00Z"));
+        }
+
+        RankingsIndex index = null;
+        long buildNs = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            final long t0 = System.nanoTime();
+            index = RankingsIndex.of(rows);
+            buildNs = Math.min(buildNs, System.nanoTime() - t0);
+        }
+        final RankingsIndex idx = index;
+        System.out.printf("rows=%d  build %.1f ms%n", n, buildNs / 1e6);
+
+        report("index page  (KR, winRate)", 20_000, () -> idx.page("KR", RankingsIndex.Stat.WIN_RATE, false, 100, 50).players().size());
+        report("scan  page  (KR, winRate)", 20, () -> rows.stream().filter(r -> "KR".equals(r.countryCode()))
+                .sorted(Comparator.comparingDouble(RankingRow::winRate).reversed()).skip(100).limit(50).toList().size());
+        report("index country aggregates", 20_000, () -> idx.byCountry(RankingsIndex.Stat.ADR).size());
+        report("scan  country aggregates", 20, () -> {
+            Map<String, List<Integer>> by = rows.stream().collect(Collectors.groupingBy(RankingRow::countryCode,
+                    Collectors.mapping(RankingRow::adr, Collectors.toList())));
+            int s = 0;
+            for (List<Integer> v : by.values()) {
+                List<Integer> sorted = v.stream().sorted().toList();
+                s += sorted.get(sorted.size() / 2) + sorted.get((int) (sorted.size() * 0.99));
+            }
+            return s;
+        });
+        for (CountryStats c : idx.byCountry(RankingsIndex.Stat.ADR).subList(0, 3)) System.out.println("  " + c);
+    }
+
+    interface Query {
+        int run();
+    }
+
+    private static void report(String name, int iterations, Query q) {
+        long sink = 0;
+        for (int i = 0; i < iterations; i++) sink += q.run(); // warm-up
+        final long t0 = System.nanoTime();
+        for (int i = 0; i < iterations; i++) sink += q.run();
+        final double us = (System.nanoTime() - t0) / 1e3 / iterations;
+        System.out.printf("%-28s %12.2f us/query%s%n", name, us, sink == 42 ? " " : "");
+    }
+}
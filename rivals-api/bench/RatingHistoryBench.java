@@ -0,0 +1,88 @@
+/*
+ * RatingHistory ingest / memory / query benchmark: N players x D daily samples.
+ *
+ * Build first, then run straight from source (Java 17 single-file launch):
+ *   ./mvnw -q compile
+ *   java -Xmx4g -cp target/classes bench/RatingHistoryBench.java [players] [days]   (default 1000000 90)
+ *
+ * Samples arrive day by day for every player, as repeated putRegion scrapes would, with
+ * +-30s scrape jitter and rating moves of +-40. Reports ingest rate, retained heap (after GC)
+ * vs the store's own estimate, and latency of full-range raw and 30-point reads.
+ */
+
+import com.rivals.model.RatingPoint;
+import com.rivals.repo.RatingHistory;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+public class RatingHistoryBench {
+
+    private static final long DAY = 86_400_000L;
+
+    public static void main(String[] args) {
+        final int players = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        final int days = args.length > 1 ? Integer.parseInt(args[1]) : 90;
+        final String[] ids = new String[players];
+        for (int p = 0; p < players; p++) ids[p] = "p" + p;
+        final int[] rating = new int[players];
+        final long t0 = 1_700_000_000_000L;
+
+        final long heapBefore = usedHeap();
+        final RatingHistory h = new RatingHistory();
+        final SplittableRandom rnd = new SplittableRandom(7);
+
+        long ingestNs = 0;
+        for (int d = 0; d < days; d++) {
+            final long start = System.nanoTime();
+            for (int p = 0; p < players; p++) {
+                rating[p] = d == 0 ? 1500 + rnd.nextInt(1500) : rating[p] + rnd.nextInt(81) - 40;
+                h.record(ids[p], t0 + d * DAY + rnd.nextInt(60_000) - 30_000, rating[p]);
+            }
+            ingestNs += System.nanoTime() - start;
+        }
+        final long samples = (long) players * days;
+        final long heapAfter = usedHeap();
+        final RatingHistory.Stats stats = h.stats();
+
+        System.out.printf("players=%d days=%d samples=%d%n", players, days, samples);
+        System.out.printf("ingest      %8.1f M samples/s (%.0f ns/sample)%n",
+                samples / (ingestNs / 1e9) / 1e6, (double) ingestNs / samples);
+        System.out.printf("heap        %8.1f MB retained (%.1f B/sample, incl. map entries)%n",
+                (heapAfter - heapBefore) / 1e6, (double) (heapAfter - heapBefore) / samples);
+        System.out.printf("store est.  %8.1f MB (%.1f B/sample, chunks=%d)%n",
+                stats.bytes() / 1e6, (double) stats.bytes() / samples, stats.chunks());
+
+        query("raw range  ", h, ids, t0, days, Integer.MAX_VALUE);
+        query("30 points  ", h, ids, t0, days, 30);
+    }
+
+    private static void query(String label, RatingHistory h, String[] ids, long t0, int days, int points) {
+        final SplittableRandom rnd = new SplittableRandom(11);
+        final int n = 200_000;
+        long sink = 0;
+        for (int i = 0; i < n / 10; i++) { // warm-up
+            sink += h.range(ids[rnd.nextInt(ids.length)], t0, t0 + days * DAY, points).points().size();
+        }
+        final long start = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            List<RatingPoint> pts = h.range(ids[rnd.nextInt(ids.length)], t0, t0 + days * DAY, points).points();
+            sink += pts.size();
+        }
+        final long ns = System.nanoTime() - start;
+        System.out.printf("%s %8.2f us/query (%d points avg)%n", label, ns / 1e3 / n, sink / (n + n / 10));
+    }
+
+    private static long usedHeap() {
+        final Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Memory and lookup cost of ReadMarkers at forum scale.
+ *
+ *   ./mvnw -q compile
+ *   java -Xmx4g -cp target/classes bench/UnreadMemoryBench.java [users] [threads] [marksPerUser] [commentsPerThread]
+ *   (default 1000000 100000 20 10)
+ *
+ * Builds `threads` threads with `commentsPerThread` comments, then gives every user
+ * `marksPerUser` per-thread marks on random threads (and a mark-all for every tenth user).
+ * Reports retained heap for the thread side and the user side (used heap after GC, so run it
+ * alone), and the time to answer unread counts for a 25-thread page.
+ */
+
+import com.rivals.model.ThreadDto;
+import com.rivals.repo.ReadMarkers;
+import com.rivals.repo.ThreadRepo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+public class UnreadMemoryBench {
+
+    public static void main(String[] args) throws Exception {
+        final int users = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        final int threadCount = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        final int marksPerUser = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        final int commentsPerThread = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+
+        final ThreadRepo repo = new ThreadRepo();
+        final long m0 = usedHeap();
+        final ReadMarkers markers = new ReadMarkers(repo, 4096);
+        final List<ThreadDto> threads = new ArrayList<>(threadCount);
+        for (int i = 0; i < threadCount; i++) threads.add(repo.createThread("t" + i, null, null));
+        for (int c = 0; c < commentsPerThread; c++) {
+            for (ThreadDto t : threads) repo.addComment(t.id(), null, "c");
+        }
+        final long mRepo = usedHeap();
+
+        final long t0 = System.nanoTime();
+        final SplittableRandom rnd = new SplittableRandom(42);
+        for (int u = 0; u < users; u++) {
+            final String user = "user-" + u;
+            if (u % 10 == 0) markers.markAllRead(user);
+            for (int k = 0; k < marksPerUser; k++) markers.markRead(user, threads.get(rnd.nextInt(threadCount)).id());
+        }
+        final long buildMs = (System.nanoTime() - t0) / 1_000_000;
+        final long mUsers = usedHeap();
+
+        final List<ThreadDto> page = threads.subList(threadCount - 25, threadCount);
+        long sink = 0;
+        for (int i = 0; i < 200_000; i++) sink += markers.unread("user-" + (i % users), page).size();
+        final int lookups = 1_000_000;
+        final long t1 = System.nanoTime();
+        for (int i = 0; i < lookups; i++) sink += markers.unread("user-" + (i % users), page).size();
+        final double pageUs = (System.nanoTime() - t1) / 1e3 / lookups;
+
+        final ReadMarkers.UnreadStats s = markers.stats();
+        System.out.printf("users=%d threads=%d marks/user=%d comments/thread=%d%n", users, threadCount, marksPerUser,
+                commentsPerThread);
+        System.out.printf("repo + thread index  %8.1f MB  (includes ThreadRepo itself)%n", (mRepo - m0) / 1e6);
+        System.out.printf("user markers         %8.1f MB  = %.0f B/user, %.1f B/mark  (built in %d ms)%n",
+                (mUsers - mRepo) / 1e6, (mUsers - mRepo) / (double) users, (mUsers - mRepo) / (double) Math.max(1, s.marks()),
+                buildMs);
+        System.out.printf("unread(page of 25)   %8.2f us/call%n", pageUs);
+        System.out.println(s + (sink == 42 ? "" : ""));
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        final Runtime rt = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(100);
+            used = Math.min(used, rt.totalMemory() - rt.freeMemory());
+        }
+        return used;
+    }
+}
@@ -0,0 +1,65 @@
+#!/usr/bin/env bash
+#
+# Startup-time and time-to-first-request benchmark across launch modes.
+#
+# Build first (any subset; missing artifacts are skipped):
+#   ./mvnw -Paot,cds -Dcds.aot=true -DskipTests package   # jar, extracted, cds, cds+aot
+#   ./mvnw -Pnative -DskipTests native:compile             # native (GraalVM JDK required)
+#
+# Usage: bench/startup-bench.sh [runs]   (default 5; prints medians in ms)
+#   started  = "Started RivalsApiApplication in X seconds" reported by Spring
+#   first    = wall clock from process launch to the first 200 from GET /rankings
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+RUNS="${1:-5}"
+PORT="${PORT:-18080}"
+JAR="$(ls target/rivals-api-*.jar 2>/dev/null | grep -v original | head -1 || true)"
+CDS_DIR="target/cds"
+CDS_JAR="$(ls "$CDS_DIR"/rivals-api-*.jar 2>/dev/null | head -1 || true)"
+NATIVE="target/rivals-api"
+
+now_ms() { date +%s%3N; }
+
+median() { sort -n | awk '{a[NR]=$1} END {print (NR % 2) ? a[(NR+1)/2] : int((a[NR/2] + a[NR/2+1]) / 2)}'; }
+
+run_once() {
+  local log t0 t1 started
+  log="$(mktemp)"
+  t0="$(now_ms)"
+  "$@" --server.port="$PORT" >"$log" 2>&1 &
+  local pid=$!
+  until curl -sf -o /dev/null "http://localhost:$PORT/rankings"; do
+    if ! kill -0 "$pid" 2>/dev/null; then echo "process exited; log: $log" >&2; return 1; fi
+    sleep 0.01
+  done
+  t1="$(now_ms)"
+  kill "$pid"; wait "$pid" 2>/dev/null || true
+  started="$(grep -oE 'Started RivalsApiApplication in [0-9.]+' "$log" | awk '{printf "%d", $4 * 1000}')"
+  rm -f "$log"
+  echo "$started $((t1 - t0))"
+}
+
+bench() {
+  local name="$1"; shift
+  local s=() f=()
+  for _ in $(seq "$RUNS"); do
+    read -r a b < <(run_once "$@")
+    s+=("$a"); f+=("$b")
+  done
+  printf '%-10s %10s %10s\n' "$name" \
+    "$(printf '%s\n' "${s[@]}" | median)" "$(printf '%s\n' "${f[@]}" | median)"
+}
+
+printf '%-10s %10s %10s\n' mode started first
+[[ -n "$JAR" ]] && bench jar java -jar "$JAR"
+[[ -n "$CDS_JAR" ]] && bench extracted java -jar "$CDS_JAR"
+if [[ -f "$CDS_DIR/application.jsa" ]]; then
+  bench cds java -XX:SharedArchiveFile="$CDS_DIR/application.jsa" -Xlog:cds=off -jar "$CDS_JAR"
+  if unzip -l "$CDS_JAR" | grep -q '__ApplicationContextInitializer'; then
+    bench cds+aot java -XX:SharedArchiveFile="$CDS_DIR/application.jsa" -Xlog:cds=off \
+      -Dspring.aot.enabled=true -jar "$CDS_JAR"
+  fi
+fi
+[[ -x "$NATIVE" ]] && bench native "$NATIVE"
+exit 0
@@ -0,0 +1,153 @@
+package com.rivals.admission;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Latency-driven concurrency limit with priority shares.
+ *
+ * Limit (gradient style):
+ * - Every window the mean latency of completed requests (short RTT) is compared with a slow
+ *   moving average of it (long RTT).
+ * - gradient = clamp(tolerance * long / short, 0.5, 1). Latency rising above the long-run norm
+ *   shrinks the limit multiplicatively (at most halving it per window).
+ * - The limit also grows additively by sqrt(limit) each window, but only while the window
+ *   actually used more than half of it. An idle server doesn't inflate its limit.
+ * - The result is smoothed and clamped to [minLimit, maxLimit].
+ *
+ * Admission: a request of priority p is admitted while in-flight < limit * p.share, so as load
+ * rises the sheddable class is refused first and preferred reads last. Nothing queues here.
+ */
+public class AdaptiveLimiter {
+
+    /** Request classes, highest priority first; share = fraction of the limit the class may fill. */
+    public enum Priority {
+        PREFERRED_READ(1.0),
+        READ(0.9),
+        WRITE(0.75),
+        SHEDDABLE(0.5);
+
+        final double share;
+
+        Priority(double share) {
+            this.share = share;
+        }
+    }
+
+    private static final long WINDOW_NANOS = 100_000_000L; // 100ms
+    private static final int MIN_WINDOW_SAMPLES = 10;
+    private static final double LONG_WINDOWS = 60;          // long RTT ~ last 6s
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final LongSupplier nanoClock;
+
+    private volatile double limit;
+    private final AtomicInteger inflight = new AtomicInteger();
+    private final AtomicInteger windowMaxInflight = new AtomicInteger();
+
+    private final LongAdder windowRttNanos = new LongAdder();
+    private final LongAdder windowSamples = new LongAdder();
+    private final AtomicLong windowStart;
+    private volatile double shortRttNanos;
+    private volatile double longRttNanos;
+
+    private final LongAdder[] admitted = new LongAdder[Priority.values().length];
+    private final LongAdder[] rejected = new LongAdder[Priority.values().length];
+
+    public AdaptiveLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance, double smoothing) {
+        this(initialLimit, minLimit, maxLimit, tolerance, smoothing, System::nanoTime);
+    }
+
+    AdaptiveLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance, double smoothing, LongSupplier nanoClock) {
+        if (minLimit < 1 || minLimit > maxLimit) throw new IllegalArgumentException("need 1 <= minLimit <= maxLimit");
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.nanoClock = nanoClock;
+        this.windowStart = new AtomicLong(nanoClock.getAsLong());
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        for (int i = 0; i < admitted.length; i++) {
+            admitted[i] = new LongAdder();
+            rejected[i] = new LongAdder();
+        }
+    }
+
+    /** @return true if admitted; the caller must then call {@link #release} exactly once */
+    public boolean tryAcquire(Priority p) {
+        final int cap = Math.max(1, (int) (limit * p.share));
+        while (true) {
+            final int cur = inflight.get();
+            if (cur >= cap) {
+                rejected[p.ordinal()].increment();
+                return false;
+            }
+            if (inflight.compareAndSet(cur, cur + 1)) {
+                admitted[p.ordinal()].increment();
+                if (cur + 1 > windowMaxInflight.get()) windowMaxInflight.accumulateAndGet(cur + 1, Math::max);
+                return true;
+            }
+        }
+    }
+
+    /** Finish an admitted request that took rttNanos. */
+    public void release(long rttNanos) {
+        inflight.decrementAndGet();
+        windowRttNanos.add(rttNanos);
+        windowSamples.increment();
+        final long now = nanoClock.getAsLong();
+        final long start = windowStart.get();
+        if (now - start >= WINDOW_NANOS && windowSamples.sum() >= MIN_WINDOW_SAMPLES
+                && windowStart.compareAndSet(start, now)) {
+            update(windowRttNanos.sumThenReset(), windowSamples.sumThenReset(), windowMaxInflight.getAndSet(inflight.get()));
+        }
+    }
+
+    public int limit() {
+        return (int) limit;
+    }
+
+    public int inflight() {
+        return inflight.get();
+    }
+
+    public LimiterStats stats() {
+        final Map<Priority, Long> a = new EnumMap<>(Priority.class);
+        final Map<Priority, Long> r = new EnumMap<>(Priority.class);
+        for (Priority p : Priority.values()) {
+            a.put(p, admitted[p.ordinal()].sum());
+            r.put(p, rejected[p.ordinal()].sum());
+        }
+        return new LimiterStats((int) limit, inflight.get(), shortRttNanos / 1e6, longRttNanos / 1e6, a, r);
+    }
+
+    public record LimiterStats(int limit, int inflight, double shortRttMs, double longRttMs,
+                               Map<Priority, Long> admitted, Map<Priority, Long> rejected) {}
+
+    /* --------------------------- Internals --------------------------- */
+
+    /** One window; runs on the single thread that won the windowStart CAS. */
+    private void update(long rttSum, long samples, int maxInflight) {
+        if (samples == 0) return;
+        final double shortRtt = (double) rttSum / samples;
+        double longRtt = longRttNanos;
+        longRtt = longRtt == 0 ? shortRtt : longRtt + (shortRtt - longRtt) / LONG_WINDOWS;
+        if (longRtt > 2 * shortRtt) longRtt *= 0.95; // latency fell well below the norm: let the norm follow faster
+        shortRttNanos = shortRtt;
+        longRttNanos = longRtt;
+
+        final double current = limit;
+        final double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRtt / shortRtt));
+        double next = current * gradient;
+        if (maxInflight >= current / 2) next += Math.sqrt(current);
+        next = current * (1 - smoothing) + next * smoothing;
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+}
@@ -0,0 +1,98 @@
+package com.rivals.admission;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rivals.admission.AdaptiveLimiter.Priority;
+import com.rivals.model.ErrorResponse;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Admission control in front of every controller.
+ * - Classifies the request (see {@link #classify}) and asks the AdaptiveLimiter for a slot.
+ * - Refused requests get an immediate 503 + Retry-After rather than a Tomcat thread parked on
+ *   a repo lock; admitted ones report their latency back to drive the limit.
+ * - CORS preflights and /stats are never shed, so the service stays observable under overload.
+ * Disabled with rivals.admission.enabled=false (read at runtime).
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class AdmissionFilter extends OncePerRequestFilter {
+
+    private final AdaptiveLimiter limiter;
+    private final ObjectMapper mapper;
+    private final boolean enabled;
+
+    public AdmissionFilter(
+            ObjectMapper mapper,
+            @Value("${rivals.admission.enabled:true}") boolean enabled,
+            @Value("${rivals.admission.initial-limit:20}") int initialLimit,
+            @Value("${rivals.admission.min-limit:4}") int minLimit,
+            @Value("${rivals.admission.max-limit:200}") int maxLimit,
+            @Value("${rivals.admission.tolerance:2.0}") double tolerance,
+            @Value("${rivals.admission.smoothing:0.2}") double smoothing
+    ) {
+        this.mapper = mapper;
+        this.enabled = enabled;
+        this.limiter = new AdaptiveLimiter(initialLimit, minLimit, maxLimit, tolerance, smoothing);
+    }
+
+    public AdaptiveLimiter limiter() {
+        return limiter;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled
+                || "OPTIONS".equals(request.getMethod())
+                || request.getRequestURI().startsWith("/stats");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        final Priority priority = classify(request.getMethod(), request.getRequestURI());
+        if (!limiter.tryAcquire(priority)) {
+            reject(response, priority);
+            return;
+        }
+        final long start = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            limiter.release(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * - GET /rankings, GET /threads...: PREFERRED_READ (what the front page needs)
+     * - other GETs:                     READ
+     * - POST /comments/{id}/like:       SHEDDABLE (cheap to retry, nobody waits on it)
+     * - other writes:                   WRITE
+     */
+    static Priority classify(String method, String uri) {
+        if ("GET".equals(method) || "HEAD".equals(method)) {
+            return uri.startsWith("/rankings") || uri.startsWith("/threads") ? Priority.PREFERRED_READ : Priority.READ;
+        }
+        if ("POST".equals(method) && uri.startsWith("/comments/") && uri.endsWith("/like")) return Priority.SHEDDABLE;
+        return Priority.WRITE;
+    }
+
+    private void reject(HttpServletResponse response, Priority priority) throws IOException {
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader(HttpHeaders.RETRY_AFTER, priority == Priority.SHEDDABLE ? "2" : "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        mapper.writeValue(response.getOutputStream(),
+                new ErrorResponse("OVERLOADED", "Server is busy, retry shortly", null));
+    }
+}
@@ -1,10 +1,13 @@
 package com.rivals.api;
 
+import com.rivals.model.CommentDto;
 import com.rivals.service.ThreadService;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-/** Comment mutations that aren’t thread-scoped. */
+/** Comment mutations that aren’t thread-scoped (like, edit, soft-delete). */
 @RestController
 @RequestMapping("/comments")
 public class CommentsController {
@@ -18,6 +21,26 @@ public class CommentsController {
     @PostMapping("/{commentId}/like")
     public ResponseEntity<Void> like(@PathVariable String commentId) {
         threads.likeComment(commentId);
-        return ResponseEntity.noContent().build();
+        return ResponseEntity.noContent()
+                .header(ThreadsController.VERSION_HEADER, Long.toString(threads.currentVersion()))
+                .build();
     }
+
+    @PutMapping("/{commentId}")
+    public ResponseEntity<CommentDto> edit(@PathVariable String commentId, @Valid @RequestBody EditCommentRequest body) {
+        CommentDto edited = threads.editComment(commentId, body.body());
+        return ResponseEntity.ok()
+                .header(ThreadsController.VERSION_HEADER, Long.toString(threads.currentVersion()))
+                .body(edited);
+    }
+
+    @DeleteMapping("/{commentId}")
+    public ResponseEntity<Void> delete(@PathVariable String commentId) {
+        threads.deleteComment(commentId);
+        return ResponseEntity.noContent()
+                .header(ThreadsController.VERSION_HEADER, Long.toString(threads.currentVersion()))
+                .build();
+    }
+
+    public record EditCommentRequest(@NotBlank String body) {}
 }
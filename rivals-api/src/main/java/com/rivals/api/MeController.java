@@ -1,23 +1,41 @@
 package com.rivals.api;
 
+import com.rivals.notify.InMemoryNotificationSink;
+import com.rivals.notify.Notification;
+import com.rivals.notify.NotificationSink;
 import com.rivals.rate.Allowance;
 import com.rivals.rate.RateLimiter;
 import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
-/** Exposes current daily allowance (anon vs user). */
+import java.util.List;
+
+/** Exposes current daily allowance (anon vs user) and, with the in-memory sink, notifications. */
 @RestController
 @RequestMapping("/me")
 public class MeController {
 
     private final RateLimiter limiter;
+    private final InMemoryNotificationSink inbox; // null unless rivals.notify.sink=memory
 
-    public MeController(RateLimiter limiter) {
+    public MeController(RateLimiter limiter, NotificationSink sink) {
         this.limiter = limiter;
+        this.inbox = sink instanceof InMemoryNotificationSink memory ? memory : null;
     }
 
     @GetMapping("/limits")
     public Allowance limits(HttpServletRequest request) {
         return limiter.getAllowance(request);
     }
+
+    /** Newest-first notifications for the caller identified by X-User-Id. */
+    @GetMapping("/notifications")
+    public List<Notification> notifications(@RequestHeader("X-User-Id") String userId) {
+        if (inbox == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Notification inbox not enabled");
+        }
+        return inbox.inbox(userId);
+    }
 }
@@ -1,12 +1,22 @@
 package com.rivals.api;
 
-import com.rivals.model.NewsPayload;
 import com.rivals.service.NewsService;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
-/** Curated news for MVP (static list for now). */
+/**
+ * News feed (NewsPayload shape), paged by cursor.
+ * Bodies are written from pre-serialized bytes; If-None-Match on an unchanged page gets a 304.
+ */
 @RestController
 @RequestMapping("/news")
+@Validated
 public class NewsController {
 
     private final NewsService service;
@@ -16,7 +26,29 @@ public class NewsController {
     }
 
     @GetMapping
-    public NewsPayload list() {
-        return service.listNews();
+    public ResponseEntity<byte[]> list(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) @Min(1) @Max(NewsService.MAX_PAGE_SIZE) Integer limit,
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
+        NewsService.NewsPage page = service.page(cursor, limit);
+        String etag = page.etag();
+        if (ifNoneMatch != null && matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(page.body());
+    }
+
+    /** If-None-Match may be "*" or a list; weak validators compare equal to strong ones here. */
+    private static boolean matches(String ifNoneMatch, String etag) {
+        for (String tag : ifNoneMatch.split(",")) {
+            String t = tag.trim();
+            if (t.startsWith("W/")) t = t.substring(2);
+            if (t.equals("*") || t.equals(etag)) return true;
+        }
+        return false;
     }
 }
@@ -0,0 +1,32 @@
+package com.rivals.api;
+
+import com.rivals.model.RatingHistoryPayload;
+import com.rivals.service.RankingsService;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+/** Per-player views over ranking data (rating history for charts). */
+@RestController
+@RequestMapping("/players")
+@Validated
+public class PlayersController {
+
+    private final RankingsService service;
+
+    public PlayersController(RankingsService service) {
+        this.service = service;
+    }
+
+    /** from/to are epoch millis; points caps the response by merging samples into time buckets. */
+    @GetMapping("/{playerId}/history")
+    public RatingHistoryPayload history(
+            @PathVariable String playerId,
+            @RequestParam(required = false) Long from,
+            @RequestParam(required = false) Long to,
+            @RequestParam(defaultValue = "200") @Min(1) @Max(5000) Integer points
+    ) {
+        return service.getHistory(playerId, from, to, points);
+    }
+}
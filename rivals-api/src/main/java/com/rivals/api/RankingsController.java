@@ -1,12 +1,23 @@
 package com.rivals.api;
 
+import com.rivals.model.CountryStats;
+import com.rivals.model.CountryStatsPayload;
+import com.rivals.model.LeaderboardPayload;
 import com.rivals.model.RankingsPayload;
 import com.rivals.service.RankingsService;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
-/** Rankings endpoint (Global + Regional with fallback flags). */
+/**
+ * Rankings endpoints (Global + Regional with fallback flags).
+ * Leaderboard filters/sorts and country aggregates are served from indexes built when a region
+ * is published, not by scanning the ladder.
+ */
 @RestController
 @RequestMapping("/rankings")
+@Validated
 public class RankingsController {
 
     private final RankingsService service;
@@ -19,4 +30,35 @@ public class RankingsController {
     public RankingsPayload get(@RequestParam(defaultValue = "GLOBAL") String region) {
         return service.getRankings(region);
     }
+
+    /** e.g. /rankings/leaderboard?country=US&sort=winRate&order=desc&offset=0&limit=50 */
+    @GetMapping("/leaderboard")
+    public LeaderboardPayload leaderboard(
+            @RequestParam(defaultValue = "GLOBAL") String region,
+            @RequestParam(required = false) String country,
+            @RequestParam(required = false) String sort,
+            @RequestParam(defaultValue = "desc") String order,
+            @RequestParam(defaultValue = "0") @Min(0) int offset,
+            @RequestParam(defaultValue = "50") @Min(1) @Max(500) int limit
+    ) {
+        return service.getLeaderboard(region, country, sort, order, offset, limit);
+    }
+
+    /** Per-country count / mean / min / p50 / p90 / p99 / max of one stat. */
+    @GetMapping("/countries")
+    public CountryStatsPayload countries(
+            @RequestParam(defaultValue = "GLOBAL") String region,
+            @RequestParam(defaultValue = "rating") String stat
+    ) {
+        return service.getCountryStats(region, stat);
+    }
+
+    @GetMapping("/countries/{countryCode}")
+    public CountryStats country(
+            @PathVariable String countryCode,
+            @RequestParam(defaultValue = "GLOBAL") String region,
+            @RequestParam(defaultValue = "rating") String stat
+    ) {
+        return service.getCountryStats(region, countryCode, stat);
+    }
 }
@@ -0,0 +1,102 @@
+package com.rivals.api;
+
+import com.rivals.admission.AdaptiveLimiter;
+import com.rivals.admission.AdmissionFilter;
+import com.rivals.idempotency.IdempotencyCache;
+import com.rivals.live.LiveHub;
+import com.rivals.news.NewsFeedFetcher;
+import com.rivals.notify.NotificationOutbox;
+import com.rivals.repo.RatingHistory;
+import com.rivals.repo.ReadMarkers;
+import com.rivals.repo.ThreadRepo;
+import com.rivals.repo.ThreadReplica;
+import com.rivals.service.ThreadService;
+import com.rivals.spam.SpamFilter;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Operational stats for in-memory components (replication, storage, spam, notifications, news,
+ * history, idempotency, admission, live updates). Never shed by the AdmissionFilter.
+ */
+@RestController
+@RequestMapping("/stats")
+public class StatsController {
+
+    private final ThreadService threads;
+    private final SpamFilter spamFilter;
+    private final NotificationOutbox outbox;
+    private final NewsFeedFetcher newsFetcher;
+    private final RatingHistory ratingHistory;
+    private final IdempotencyCache idempotency;
+    private final AdmissionFilter admission;
+    private final LiveHub live;
+
+    public StatsController(ThreadService threads, SpamFilter spamFilter, NotificationOutbox outbox,
+                           NewsFeedFetcher newsFetcher, RatingHistory ratingHistory, IdempotencyCache idempotency,
+                           AdmissionFilter admission, LiveHub live) {
+        this.threads = threads;
+        this.spamFilter = spamFilter;
+        this.outbox = outbox;
+        this.newsFetcher = newsFetcher;
+        this.ratingHistory = ratingHistory;
+        this.idempotency = idempotency;
+        this.admission = admission;
+        this.live = live;
+    }
+
+    @GetMapping("/replication")
+    public ThreadReplica.Lag replication() {
+        ThreadReplica.Lag lag = threads.replicationLag();
+        if (lag == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Replication not enabled");
+        }
+        return lag;
+    }
+
+    @GetMapping("/storage")
+    public ThreadRepo.StorageStats storage() {
+        return threads.storageStats();
+    }
+
+    @GetMapping("/unread")
+    public ReadMarkers.UnreadStats unread() {
+        return threads.unreadStats();
+    }
+
+    @GetMapping("/spam")
+    public SpamFilter.SpamStats spam() {
+        return spamFilter.stats();
+    }
+
+    @GetMapping("/notifications")
+    public NotificationOutbox.OutboxStats notifications() {
+        return outbox.stats();
+    }
+
+    @GetMapping("/news")
+    public NewsFeedFetcher.FetchStats news() {
+        return newsFetcher.stats();
+    }
+
+    @GetMapping("/history")
+    public RatingHistory.Stats history() {
+        return ratingHistory.stats();
+    }
+
+    @GetMapping("/idempotency")
+    public IdempotencyCache.IdempotencyStats idempotency() {
+        return idempotency.stats();
+    }
+
+    @GetMapping("/admission")
+    public AdaptiveLimiter.LimiterStats admission() {
+        return admission.limiter().stats();
+    }
+
+    @GetMapping("/live")
+    public LiveHub.LiveStats live() {
+        return live.stats();
+    }
+}
@@ -1,5 +1,6 @@
 package com.rivals.api;
 
+import com.rivals.idempotency.IdempotencyCache;
 import com.rivals.model.CommentDto;
 import com.rivals.model.PageComment;
 import com.rivals.model.PageThread;
@@ -10,21 +11,33 @@ import jakarta.validation.Valid;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
 /**
  * Threads + Comments endpoints.
+ * Writes return an X-Repo-Version token; reads accept it back as X-Min-Version
+ * so a client always sees its own writes even when served by a replica.
+ * POSTs honour an Idempotency-Key header: a retried create replays the first response.
+ * With X-User-Id, thread pages carry unread counts; POST .../read moves the caller's read markers.
+ * Listing cursors are signed; without an explicit limit a follow-up page keeps the first page's size.
  */
 @RestController
 @RequestMapping("/threads")
 @Validated
 public class ThreadsController {
 
+    static final String VERSION_HEADER = "X-Repo-Version";
+    static final String MIN_VERSION_HEADER = "X-Min-Version";
+    static final String USER_HEADER = "X-User-Id";
+
     private final ThreadService service;
+    private final IdempotencyCache idempotency;
 
-    public ThreadsController(ThreadService service) {
+    public ThreadsController(ThreadService service, IdempotencyCache idempotency) {
         this.service = service;
+        this.idempotency = idempotency;
     }
 
     /* ---------- Threads ---------- */
@@ -32,24 +45,48 @@ public class ThreadsController {
     @GetMapping
     public PageThread listThreads(
             @RequestParam(required = false) String cursor,
-            @RequestParam(defaultValue = "25") @Min(1) Integer limit
+            @RequestParam(required = false) @Min(1) Integer limit,
+            @RequestHeader(name = MIN_VERSION_HEADER, required = false) Long minVersion,
+            @RequestHeader(name = USER_HEADER, required = false) String userId
     ) {
-        return service.listThreads(cursor, limit);
+        return service.listThreads(cursor, limit, minVersion, userId);
+    }
+
+    /** Mark every thread read for the caller. */
+    @PostMapping("/read")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void markAllRead(@RequestHeader(USER_HEADER) @NotBlank String userId) {
+        service.markAllRead(userId);
     }
 
     /** Local MVP: accept title (+ optional body as initial post) */
     @PostMapping
-    @ResponseStatus(HttpStatus.CREATED)
-    public ThreadDto createThread(
+    public ResponseEntity<byte[]> createThread(
             HttpServletRequest request,
+            @RequestHeader(name = IdempotencyCache.KEY_HEADER, required = false) String idempotencyKey,
             @Valid @RequestBody CreateThreadRequest body
     ) {
-        return service.createThread(request, body.title(), body.authorId(), body.body());
+        return idempotency.execute(request, idempotencyKey, body, () -> {
+            ThreadDto created = service.createThread(request, body.title(), body.authorId(), body.body());
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .header(VERSION_HEADER, Long.toString(service.currentVersion()))
+                    .body(created);
+        });
+    }
+
+    /** Mark the thread's current comments read for the caller. */
+    @PostMapping("/{threadId}/read")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void markRead(@PathVariable String threadId, @RequestHeader(USER_HEADER) @NotBlank String userId) {
+        service.markRead(userId, threadId);
     }
 
     @GetMapping("/{threadId}")
-    public ThreadDto getThread(@PathVariable String threadId) {
-        return service.getThread(threadId);
+    public ThreadDto getThread(
+            @PathVariable String threadId,
+            @RequestHeader(name = MIN_VERSION_HEADER, required = false) Long minVersion
+    ) {
+        return service.getThread(threadId, minVersion);
     }
 
     /* ---------- Comments ---------- */
@@ -59,19 +96,25 @@ public class ThreadsController {
             @PathVariable String threadId,
             @RequestParam(required = false) Long since,
             @RequestParam(required = false) String cursor,
-            @RequestParam(defaultValue = "50") @Min(1) Integer limit
+            @RequestParam(required = false) @Min(1) Integer limit,
+            @RequestHeader(name = MIN_VERSION_HEADER, required = false) Long minVersion
     ) {
-        return service.listComments(threadId, since, cursor, limit);
+        return service.listComments(threadId, since, cursor, limit, minVersion);
     }
 
     @PostMapping("/{threadId}/comments")
-    @ResponseStatus(HttpStatus.CREATED)
-    public CommentDto addComment(
+    public ResponseEntity<byte[]> addComment(
             HttpServletRequest request,
             @PathVariable String threadId,
+            @RequestHeader(name = IdempotencyCache.KEY_HEADER, required = false) String idempotencyKey,
             @Valid @RequestBody AddCommentRequest body
     ) {
-        return service.addComment(request, threadId, body.authorId(), body.body());
+        return idempotency.execute(request, idempotencyKey, body, () -> {
+            CommentDto created = service.addComment(request, threadId, body.authorId(), body.body());
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .header(VERSION_HEADER, Long.toString(service.currentVersion()))
+                    .body(created);
+        });
     }
 
     /* ---------- Request bodies ---------- */
@@ -0,0 +1,37 @@
+package com.rivals.api;
+
+import com.rivals.model.PageActivity;
+import com.rivals.service.ThreadService;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Per-user views over forum content.
+ * Activity is everything the user posted (threads and comments), newest first, with a signed
+ * cursor scoped to that user; X-Min-Version works as on /threads.
+ */
+@RestController
+@RequestMapping("/users")
+@Validated
+public class UsersController {
+
+    static final int MAX_PAGE_SIZE = 100;
+
+    private final ThreadService threads;
+
+    public UsersController(ThreadService threads) {
+        this.threads = threads;
+    }
+
+    @GetMapping("/{authorId}/activity")
+    public PageActivity activity(
+            @PathVariable String authorId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) @Min(1) @Max(MAX_PAGE_SIZE) Integer limit,
+            @RequestHeader(name = ThreadsController.MIN_VERSION_HEADER, required = false) Long minVersion
+    ) {
+        return threads.listActivity(authorId, cursor, limit, minVersion);
+    }
+}
@@ -0,0 +1,28 @@
+package com.rivals.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rivals.notify.InMemoryNotificationSink;
+import com.rivals.notify.NotificationSink;
+import com.rivals.notify.WebhookNotificationSink;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/** Picks the notification sink from rivals.notify.sink (memory | webhook) at runtime. */
+@Configuration(proxyBeanMethods = false)
+public class NotifyConfig {
+
+    @Bean
+    public NotificationSink notificationSink(
+            ObjectMapper mapper,
+            @Value("${rivals.notify.sink:memory}") String sink,
+            @Value("${rivals.notify.inbox-size:100}") int inboxSize,
+            @Value("${rivals.notify.webhook-url:}") String webhookUrl
+    ) {
+        return switch (sink) {
+            case "memory" -> new InMemoryNotificationSink(inboxSize);
+            case "webhook" -> new WebhookNotificationSink(mapper, webhookUrl);
+            default -> throw new IllegalArgumentException("Unknown rivals.notify.sink: " + sink);
+        };
+    }
+}
@@ -0,0 +1,69 @@
+package com.rivals.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rivals.rate.RateLimiter;
+import com.rivals.repo.NewsRepo;
+import com.rivals.repo.RankingsRepo;
+import com.rivals.repo.RatingHistory;
+import com.rivals.repo.ReadMarkers;
+import com.rivals.repo.ThreadReplica;
+import com.rivals.repo.ThreadRepo;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Explicit registration of the in-memory stores and the rate limiter.
+ *  - Plain @Bean factory methods, no proxies: Spring AOT turns them into direct constructor calls.
+ *  - Feature switches (replica, archive, notify sink) are read at runtime rather than through
+ *    @Conditional, since AOT/native builds freeze conditions at build time.
+ */
+@Configuration(proxyBeanMethods = false)
+public class RepoConfig {
+
+    /** The change log only feeds the replica: without one it keeps a single entry, not 64k DTOs. */
+    @Bean
+    public ThreadRepo threadRepo(
+            @Value("${rivals.replica.enabled:false}") boolean replicaEnabled,
+            @Value("${rivals.replica.change-log-capacity:65536}") int changeLogCapacity
+    ) {
+        return new ThreadRepo(replicaEnabled ? changeLogCapacity : 1);
+    }
+
+    @Bean
+    public ReadMarkers readMarkers(
+            ThreadRepo threadRepo,
+            @Value("${rivals.unread.max-marks-per-user:4096}") int maxMarksPerUser
+    ) {
+        return new ReadMarkers(threadRepo, maxMarksPerUser);
+    }
+
+    @Bean
+    public RatingHistory ratingHistory() {
+        return new RatingHistory();
+    }
+
+    @Bean
+    public RankingsRepo rankingsRepo(RatingHistory ratingHistory) {
+        return new RankingsRepo(ratingHistory);
+    }
+
+    @Bean
+    public NewsRepo newsRepo(ObjectMapper objectMapper) {
+        return new NewsRepo(objectMapper);
+    }
+
+    @Bean
+    public RateLimiter rateLimiter() {
+        return new RateLimiter();
+    }
+
+    @Bean
+    public ThreadReplica threadReplica(
+            ThreadRepo threadRepo,
+            @Value("${rivals.replica.enabled:false}") boolean enabled,
+            @Value("${rivals.replica.read-wait-ms:50}") long readWaitMs
+    ) {
+        return new ThreadReplica(threadRepo, enabled, readWaitMs);
+    }
+}
@@ -0,0 +1,10 @@
+package com.rivals.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/** Enables @Scheduled background jobs (archive sweeps, etc.). */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -7,7 +7,7 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 /**
  * CORS for local frontend dev:
  *  - Origin: http://localhost:5173 (Vite)
- *  - Methods: GET, POST, OPTIONS
+ *  - Methods: GET, POST, PUT, DELETE, OPTIONS
  *  - Headers: *
  *  - Credentials: optional (disabled for now)
  */
@@ -18,7 +18,7 @@ public class WebCorsConfig implements WebMvcConfigurer {
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/**")
                 .allowedOrigins("http://localhost:5173")
-                .allowedMethods("GET", "POST", "OPTIONS")
+                .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
                 .allowedHeaders("*")
                 .allowCredentials(false) // set to true later if you use cookies/session
                 .maxAge(3600);
@@ -0,0 +1,27 @@
+package com.rivals.config;
+
+import com.rivals.live.LiveSocketHandler;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+/**
+ * Live updates at ws://.../live (see LiveHub for topics and frames).
+ * Browser origins as in WebCorsConfig; clients that send no Origin (native apps, tests) are accepted.
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableWebSocket
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    private final LiveSocketHandler liveHandler;
+
+    public WebSocketConfig(LiveSocketHandler liveHandler) {
+        this.liveHandler = liveHandler;
+    }
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(liveHandler, "/live").setAllowedOrigins("http://localhost:5173");
+    }
+}
@@ -0,0 +1,237 @@
+package com.rivals.idempotency;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import com.rivals.util.Time;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency-Key support for non-idempotent POSTs (thread + comment creation).
+ *
+ * - Keys are scoped to caller (X-User-Id, else remote address) + method + path, so two users
+ *   can't collide and one key can't be replayed against a different endpoint.
+ * - The first request with a key runs; its 2xx response is kept as status + headers +
+ *   serialized JSON bytes until the TTL passes or the cache is full (oldest finished entry
+ *   evicted first; a request still running is never evicted).
+ * - Duplicates that arrive while the first is still running wait for it and get the same
+ *   outcome (including its error); they never run the action, so spam checks and the daily
+ *   allowance are charged once.
+ * - Reusing a key with a different request body is a 422; bodies are compared by a 128-bit
+ *   SHA-256 prefix of their JSON. Errors are not cached: a retry after a failure runs again.
+ */
+@Component
+public class IdempotencyCache {
+
+    public static final String KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final int FINGERPRINT_BYTES = 16;
+    /** in-flight entries requeued per eviction pass before giving up until the next request */
+    private static final int MAX_IN_FLIGHT_SKIPS = 64;
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final ObjectMapper mapper;
+    private final long ttlMs;
+    private final int maxEntries;
+    private final long waitMs;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    /** insertion order, for TTL expiry and size eviction */
+    private final ConcurrentLinkedQueue<Entry> order = new ConcurrentLinkedQueue<>();
+
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder replays = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder mismatches = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public IdempotencyCache(
+            ObjectMapper mapper,
+            @Value("${rivals.idempotency.ttl:PT24H}") Duration ttl,
+            @Value("${rivals.idempotency.max-entries:100000}") int maxEntries,
+            @Value("${rivals.idempotency.wait-ms:10000}") long waitMs
+    ) {
+        this.mapper = mapper;
+        this.ttlMs = ttl.toMillis();
+        this.maxEntries = maxEntries;
+        this.waitMs = waitMs;
+    }
+
+    /**
+     * Run action at most once per (caller, endpoint, key) and return its response as JSON bytes.
+     * Without a key the action simply runs.
+     * @param requestBody the parsed request body; a digest of its JSON fingerprints the request
+     */
+    public ResponseEntity<byte[]> execute(HttpServletRequest request, String key, Object requestBody,
+                                          Supplier<ResponseEntity<?>> action) {
+        if (key == null) return serialize(action.get()).toResponse(false);
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid " + KEY_HEADER);
+        }
+        final String scoped = scope(request) + ' ' + request.getMethod() + ' ' + request.getRequestURI() + ' ' + key;
+        final byte[] fingerprint = fingerprint(requestBody);
+
+        while (true) {
+            final long now = Time.now();
+            evict(now);
+            final Entry fresh = new Entry(scoped, fingerprint, now);
+            final Entry existing = entries.putIfAbsent(scoped, fresh);
+            if (existing == null) {
+                order.add(fresh);
+                return runFirst(fresh, action);
+            }
+            if (now - existing.createdAt >= ttlMs && existing.result.isDone()) {
+                entries.remove(scoped, existing);
+                continue;
+            }
+            if (!Arrays.equals(existing.fingerprint, fingerprint)) {
+                mismatches.increment();
+                throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                        KEY_HEADER + " was already used for a different request");
+            }
+            (existing.result.isDone() ? replays : coalesced).increment();
+            return await(existing).toResponse(true);
+        }
+    }
+
+    public IdempotencyStats stats() {
+        return new IdempotencyStats(entries.size(), executions.sum(), replays.sum(), coalesced.sum(),
+                mismatches.sum(), evictions.sum());
+    }
+
+    /**
+     * replays: duplicates answered from a finished response; coalesced: duplicates that
+     * waited on an in-flight first request.
+     */
+    public record IdempotencyStats(
+            int entries,
+            long executions,
+            long replays,
+            long coalesced,
+            long mismatches,
+            long evictions
+    ) {}
+
+    /* --------------------------- Internals --------------------------- */
+
+    private static final class Entry {
+        final String key;
+        final byte[] fingerprint;
+        final long createdAt;
+        final CompletableFuture<Stored> result = new CompletableFuture<>();
+
+        Entry(String key, byte[] fingerprint, long createdAt) {
+            this.key = key;
+            this.fingerprint = fingerprint;
+            this.createdAt = createdAt;
+        }
+    }
+
+    /** A response as it went out: status, headers and the body's JSON bytes. */
+    private record Stored(HttpStatus status, HttpHeaders headers, byte[] body) {
+        ResponseEntity<byte[]> toResponse(boolean replayed) {
+            ResponseEntity.BodyBuilder b = ResponseEntity.status(status).headers(headers);
+            if (replayed) b.header(REPLAYED_HEADER, "true");
+            return b.contentType(MediaType.APPLICATION_JSON).body(body);
+        }
+    }
+
+    private ResponseEntity<byte[]> runFirst(Entry e, Supplier<ResponseEntity<?>> action) {
+        executions.increment();
+        final Stored stored;
+        try {
+            stored = serialize(action.get());
+        } catch (RuntimeException ex) {
+            entries.remove(e.key, e); // let a later retry run again
+            e.result.completeExceptionally(ex);
+            throw ex;
+        }
+        if (!stored.status.is2xxSuccessful()) entries.remove(e.key, e);
+        e.result.complete(stored);
+        return stored.toResponse(false);
+    }
+
+    private Stored await(Entry e) {
+        try {
+            return e.result.get(waitMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException(ex.getCause());
+        } catch (TimeoutException ex) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "A request with this " + KEY_HEADER + " is still in progress");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Interrupted");
+        }
+    }
+
+    private Stored serialize(ResponseEntity<?> r) {
+        try {
+            final byte[] body = r.getBody() == null ? new byte[0] : mapper.writeValueAsBytes(r.getBody());
+            return new Stored(HttpStatus.valueOf(r.getStatusCode().value()), HttpHeaders.readOnlyHttpHeaders(r.getHeaders()), body);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Cannot serialize response", ex);
+        }
+    }
+
+    private byte[] fingerprint(Object requestBody) {
+        try {
+            final MessageDigest sha = SHA256.get();
+            return Arrays.copyOf(sha.digest(mapper.writeValueAsBytes(requestBody)), FINGERPRINT_BYTES);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Cannot serialize request body", ex);
+        }
+    }
+
+    /**
+     * Drop expired entries from the old end, then the oldest beyond maxEntries. A request still
+     * running is moved behind the rest instead: dropping it would let a duplicate run again.
+     */
+    private void evict(long now) {
+        int skipped = 0;
+        Entry head;
+        while ((head = order.peek()) != null) {
+            if (entries.get(head.key) == head) {
+                if (now - head.createdAt < ttlMs && entries.size() <= maxEntries) return;
+                if (!head.result.isDone()) {
+                    if (skipped++ >= MAX_IN_FLIGHT_SKIPS) return;
+                    if (order.remove(head)) order.add(head);
+                    continue;
+                }
+            }
+            if (order.remove(head) && entries.remove(head.key, head)) evictions.increment();
+        }
+    }
+
+    private static String scope(HttpServletRequest request) {
+        final String user = request.getHeader("X-User-Id");
+        return user != null && !user.isBlank() ? "u:" + user : "ip:" + request.getRemoteAddr();
+    }
+}
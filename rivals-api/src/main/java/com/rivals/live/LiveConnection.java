@@ -0,0 +1,119 @@
+package com.rivals.live;
+
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * One client of the live hub.
+ * - Frames go out through an asynchronous {@link Transport}, one in flight at a time; the rest
+ *   wait in a short per-connection queue, so a slow client never blocks the flusher.
+ * - A client whose queue overflows is closed (it can reconnect and take fresh snapshots), as is
+ *   one that sends subscribe / unsubscribe commands faster than the flusher applies them.
+ *   Closing can block (the close frame waits behind the stuck send), so it runs on the hub's
+ *   close executor, never on the caller's thread.
+ * - The topic set is touched only by the hub's flusher thread.
+ */
+public final class LiveConnection {
+
+    /** send must not block (done gets null on success or the failure); close may. */
+    public interface Transport {
+        void send(String frame, Consumer<Throwable> done);
+
+        void close(String reason);
+    }
+
+    private final Transport transport;
+    private final int maxPending;
+    private final Executor closer;
+    private final ArrayDeque<String> pending = new ArrayDeque<>();
+    private boolean sending;
+    private volatile boolean closed;
+    /** subscribe / unsubscribe commands waiting for the flusher */
+    private final AtomicInteger queuedCommands = new AtomicInteger();
+
+    /** flusher thread only */
+    final Set<String> topics = new HashSet<>();
+    private boolean detached;
+
+    LiveConnection(Transport transport, int maxPending, Executor closer) {
+        this.transport = transport;
+        this.maxPending = maxPending;
+        this.closer = closer;
+    }
+
+    /** @return false if the client is closed or too far behind (and has now been closed) */
+    boolean offer(String frame) {
+        final boolean overflow;
+        synchronized (this) {
+            if (closed) return false;
+            if (sending) {
+                if (pending.size() < maxPending) {
+                    pending.add(frame);
+                    return true;
+                }
+                closed = true;
+                overflow = true;
+            } else {
+                sending = true;
+                overflow = false;
+            }
+        }
+        if (overflow) {
+            closer.execute(() -> transport.close("slow consumer"));
+            return false;
+        }
+        transport.send(frame, this::sent);
+        return true;
+    }
+
+    private void sent(Throwable failure) {
+        final String next;
+        synchronized (this) {
+            if (failure != null) closed = true;
+            next = closed ? null : pending.poll();
+            if (next == null) {
+                sending = false;
+                pending.clear();
+                return;
+            }
+        }
+        transport.send(next, this::sent);
+    }
+
+    /** @return false if max commands are already waiting (the command must not be queued) */
+    boolean reserveCommand(int max) {
+        if (queuedCommands.incrementAndGet() <= max) return true;
+        queuedCommands.decrementAndGet();
+        return false;
+    }
+
+    /** Flusher thread only: one reserved command was taken off the queue. */
+    void commandApplied() {
+        queuedCommands.decrementAndGet();
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    /** @return true the first time only; flusher thread only */
+    boolean detach() {
+        if (detached) return false;
+        detached = true;
+        return true;
+    }
+
+    /** @return false if it was already closed */
+    boolean close(String reason) {
+        synchronized (this) {
+            if (closed) return false;
+            closed = true;
+        }
+        closer.execute(() -> transport.close(reason));
+        return true;
+    }
+}
@@ -0,0 +1,535 @@
+package com.rivals.live;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rivals.model.CommentDto;
+import com.rivals.model.LiveFrame;
+import com.rivals.model.PageComment;
+import com.rivals.model.RankingRow;
+import com.rivals.model.ThreadDto;
+import com.rivals.repo.RankingsIndex;
+import com.rivals.repo.RankingsRepo;
+import com.rivals.repo.ThreadChange;
+import com.rivals.repo.ThreadRepo;
+import com.rivals.util.BoundedMpscQueue;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Pattern;
+
+/**
+ * Multiplexed live updates for WebSocket clients (see {@link LiveSocketHandler}).
+ *
+ * Topics: "rankings:{region}", "threads" (the head of the thread list, newest activity first)
+ * and "thread:{id}" (one thread and its comments). A client subscribes to any mix of them over
+ * one connection and gets a snapshot per topic, then diffs.
+ *
+ * Write path: the ThreadRepo listener does one lock-free offer() into a bounded queue and the
+ * RankingsRepo listener marks the region dirty; writers never wait on subscribers. If the queue
+ * is full the change is dropped and counted, and every thread topic is re-snapshotted instead.
+ *
+ * Flusher: one daemon thread wakes every flush interval and
+ *  - applies queued subscribe / unsubscribe / disconnect commands (it owns all topic state),
+ *  - folds the changes queued since the last tick into per-topic diffs, latest state per id
+ *    winning, so a burst of writes becomes at most one frame per topic per interval,
+ *  - serializes each frame once and hands the same String to every subscriber,
+ *  - sends the topic's new subscribers one shared snapshot.
+ * Frames carry a per-topic seq: each diff is the previous seq + 1, a snapshot repeats the seq
+ * of the last diff it already includes, so a client can spot a gap and resubscribe.
+ */
+@Component
+public class LiveHub {
+
+    private static final Logger log = LoggerFactory.getLogger(LiveHub.class);
+
+    public static final String THREADS = "threads";
+    public static final String THREAD_PREFIX = "thread:";
+    public static final String RANKINGS_PREFIX = "rankings:";
+
+    private static final Pattern REGION = Pattern.compile("[A-Za-z0-9_-]{1,32}");
+    private static final Pattern THREAD_ID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+    private static final int SNAPSHOT_COMMENTS = 50;
+    private static final int BLOCKING_THREADS = 4;
+
+    private final ThreadRepo repo;
+    private final RankingsRepo rankings;
+    private final ObjectMapper mapper;
+    private final long flushNanos;
+    private final int headSize;
+    private final int maxTopicsPerConnection;
+    private final int maxPendingFrames;
+    private final int maxPendingCommands;
+
+    private final BoundedMpscQueue<ThreadChange> changes;
+    private final Set<String> dirtyRegions = ConcurrentHashMap.newKeySet();
+    /** bounded by maxPendingCommands per connection, plus one disconnect each */
+    private final ConcurrentLinkedQueue<Command> commands = new ConcurrentLinkedQueue<>();
+    /** closes (and the handler's synchronous fallback sends), which may wait on a stuck socket */
+    private final ThreadPoolExecutor blocking = new ThreadPoolExecutor(BLOCKING_THREADS, BLOCKING_THREADS,
+            30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+                final Thread t = new Thread(r, "live-blocking");
+                t.setDaemon(true);
+                return t;
+            });
+
+    /* flusher thread only */
+    private final Map<String, Topic> topics = new LinkedHashMap<>(); // frames go out in subscription order
+    private final List<ThreadChange> drained = new ArrayList<>();
+    private final Set<LiveConnection> dead = new LinkedHashSet<>();
+    private long droppedSeen;
+
+    private final AtomicInteger connections = new AtomicInteger();
+    private final LongAdder changesQueued = new LongAdder();
+    private final LongAdder changesDropped = new LongAdder();
+    private final LongAdder diffFrames = new LongAdder();
+    private final LongAdder snapshotFrames = new LongAdder();
+    private final LongAdder framesSent = new LongAdder();
+    private final LongAdder connectionsDropped = new LongAdder();
+    private volatile int topicCount;
+    private volatile int subscriptionCount;
+    private volatile long lastFlushMicros;
+
+    private volatile boolean running;
+    private Thread flusher;
+
+    public LiveHub(
+            ThreadRepo repo,
+            RankingsRepo rankings,
+            ObjectMapper mapper,
+            @Value("${rivals.live.flush-ms:100}") long flushMs,
+            @Value("${rivals.live.queue-capacity:65536}") int queueCapacity,
+            @Value("${rivals.live.head-size:25}") int headSize,
+            @Value("${rivals.live.max-topics-per-connection:64}") int maxTopicsPerConnection,
+            @Value("${rivals.live.max-pending-frames:64}") int maxPendingFrames,
+            @Value("${rivals.live.max-pending-commands:256}") int maxPendingCommands
+    ) {
+        this.repo = repo;
+        this.rankings = rankings;
+        this.mapper = mapper;
+        this.flushNanos = flushMs * 1_000_000L;
+        this.changes = new BoundedMpscQueue<>(queueCapacity);
+        this.headSize = headSize;
+        this.maxTopicsPerConnection = maxTopicsPerConnection;
+        this.maxPendingFrames = maxPendingFrames;
+        this.maxPendingCommands = maxPendingCommands;
+        blocking.allowCoreThreadTimeOut(true); // nothing to shut down: idle workers just exit
+    }
+
+    @PostConstruct
+    public void start() {
+        listen();
+        running = true;
+        flusher = new Thread(this::run, "live-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (flusher != null) LockSupport.unpark(flusher);
+    }
+
+    /** Hook into the repos without starting the flusher; tests then drive {@link #tick()}. */
+    void listen() {
+        repo.addListener(this::onThreadChange);
+        rankings.addListener(dirtyRegions::add);
+    }
+
+    /* --------------------------- Connections --------------------------- */
+
+    public LiveConnection connect(LiveConnection.Transport transport) {
+        connections.incrementAndGet();
+        return new LiveConnection(transport, maxPendingFrames, blocking);
+    }
+
+    /** For transport work that can block on a socket; keeps it off the flusher. */
+    Executor blockingExecutor() {
+        return blocking;
+    }
+
+    /**
+     * Takes effect on the next tick; the first frame is a snapshot (or an error for a bad topic).
+     * A client with too many commands still waiting is closed instead.
+     */
+    public void subscribe(LiveConnection connection, String topic) {
+        enqueue(new Command(Op.SUBSCRIBE, connection, topic));
+    }
+
+    public void unsubscribe(LiveConnection connection, String topic) {
+        enqueue(new Command(Op.UNSUBSCRIBE, connection, topic));
+    }
+
+    private void enqueue(Command c) {
+        if (c.connection().reserveCommand(maxPendingCommands)) {
+            commands.add(c);
+        } else if (c.connection().close("too many pending commands")) {
+            connectionsDropped.increment();
+        }
+    }
+
+    public void disconnect(LiveConnection connection) {
+        commands.add(new Command(Op.DISCONNECT, connection, null));
+    }
+
+    /** Send an error frame to one client, e.g. for a message the handler couldn't parse. */
+    public void error(LiveConnection connection, String topic, String message) {
+        connection.offer(write(LiveFrame.error(topic, message)));
+    }
+
+    /**
+     * Canonical topic name, or null if it isn't one: region names are upper-cased, thread ids
+     * taken as given.
+     */
+    public static String canonical(String topic) {
+        if (topic == null) return null;
+        if (topic.equals(THREADS)) return THREADS;
+        if (topic.startsWith(THREAD_PREFIX)) {
+            final String id = topic.substring(THREAD_PREFIX.length());
+            return THREAD_ID.matcher(id).matches() ? topic : null;
+        }
+        if (topic.startsWith(RANKINGS_PREFIX)) {
+            final String region = topic.substring(RANKINGS_PREFIX.length());
+            return REGION.matcher(region).matches() ? RANKINGS_PREFIX + region.toUpperCase(Locale.ROOT) : null;
+        }
+        return null;
+    }
+
+    public LiveStats stats() {
+        return new LiveStats(connections.get(), topicCount, subscriptionCount, changesQueued.sum(),
+                changesDropped.sum(), diffFrames.sum(), snapshotFrames.sum(), framesSent.sum(),
+                connectionsDropped.sum(), lastFlushMicros);
+    }
+
+    /**
+     * Fan-out and backpressure counters; diffFrames vs changesQueued shows the coalescing.
+     * connectionsDropped: clients closed for falling behind, failing a send or flooding commands.
+     */
+    public record LiveStats(
+            int connections,
+            int topics,
+            int subscriptions,
+            long changesQueued,
+            long changesDropped,
+            long diffFrames,
+            long snapshotFrames,
+            long framesSent,
+            long connectionsDropped,
+            long lastFlushMicros
+    ) {}
+
+    /* --------------------------- Write path --------------------------- */
+
+    /** Runs on the writer's thread (under repo locks): O(1), never blocks. */
+    private void onThreadChange(ThreadChange change) {
+        if (changes.offer(change)) {
+            changesQueued.increment();
+        } else {
+            changesDropped.increment();
+        }
+    }
+
+    /* --------------------------- Flusher --------------------------- */
+
+    private enum Op { SUBSCRIBE, UNSUBSCRIBE, DISCONNECT }
+
+    private record Command(Op op, LiveConnection connection, String topic) {}
+
+    private enum Kind { THREADS, THREAD, RANKINGS }
+
+    private static final class Topic {
+        final String name;
+        final Kind kind;
+        final String key; // threadId or region; null for THREADS
+        final Set<LiveConnection> subscribers = new LinkedHashSet<>();
+        final Set<LiveConnection> joining = new LinkedHashSet<>(); // a set: a resync must not snapshot anyone twice
+        long seq;
+
+        /* changes since the last tick */
+        final Map<String, ThreadDto> pendingThreads = new LinkedHashMap<>();
+        final Map<String, CommentDto> pendingComments = new LinkedHashMap<>();
+        long pendingVersion;
+        long pendingAt;
+        boolean dirty;
+
+        /** RANKINGS: the ladder subscribers currently have */
+        RankingsIndex sent;
+
+        Topic(String name) {
+            this.name = name;
+            if (name.equals(THREADS)) {
+                kind = Kind.THREADS;
+                key = null;
+            } else if (name.startsWith(THREAD_PREFIX)) {
+                kind = Kind.THREAD;
+                key = name.substring(THREAD_PREFIX.length());
+            } else {
+                kind = Kind.RANKINGS;
+                key = name.substring(RANKINGS_PREFIX.length());
+            }
+        }
+
+        void clearPending() {
+            pendingThreads.clear();
+            pendingComments.clear();
+            dirty = false;
+        }
+    }
+
+    private void run() {
+        while (running) {
+            final long t0 = System.nanoTime();
+            try {
+                tick();
+            } catch (RuntimeException e) {
+                log.warn("Live flush failed: {}", e.toString());
+            }
+            final long took = System.nanoTime() - t0;
+            lastFlushMicros = took / 1_000;
+            LockSupport.parkNanos(Math.max(1, flushNanos - took));
+        }
+    }
+
+    /** One flush: commands, then diffs to existing subscribers, then snapshots to new ones. */
+    void tick() {
+        Command c;
+        while ((c = commands.poll()) != null) apply(c);
+
+        drainChanges();
+        for (String region : dirtyRegions) {
+            dirtyRegions.remove(region);
+            for (Topic t : topics.values()) {
+                if (t.kind == Kind.RANKINGS && (t.key.equals(region) || region.equals("GLOBAL"))) t.dirty = true;
+            }
+        }
+
+        int subscriptions = 0;
+        for (Iterator<Topic> it = topics.values().iterator(); it.hasNext(); ) {
+            final Topic t = it.next();
+            if (!t.subscribers.isEmpty()) flushDiff(t);
+            t.clearPending();
+            if (!t.joining.isEmpty()) snapshot(t);
+            if (t.subscribers.isEmpty()) it.remove();
+            subscriptions += t.subscribers.size();
+        }
+        for (LiveConnection gone : dead) {
+            connectionsDropped.increment();
+            detach(gone);
+        }
+        dead.clear();
+        topicCount = topics.size();
+        subscriptionCount = subscriptions;
+    }
+
+    private void apply(Command c) {
+        final LiveConnection conn = c.connection();
+        if (c.op() != Op.DISCONNECT) conn.commandApplied();
+        switch (c.op()) {
+            case SUBSCRIBE -> {
+                if (conn.isClosed()) return;
+                final String name = canonical(c.topic());
+                if (name == null) {
+                    error(conn, c.topic(), "unknown topic");
+                } else if (!conn.topics.contains(name) && conn.topics.size() >= maxTopicsPerConnection) {
+                    error(conn, name, "too many topics (max " + maxTopicsPerConnection + ")");
+                } else {
+                    final Topic t = topics.computeIfAbsent(name, Topic::new);
+                    t.subscribers.remove(conn); // a repeated subscribe gets a fresh snapshot
+                    t.joining.add(conn);
+                    conn.topics.add(name);
+                }
+            }
+            case UNSUBSCRIBE -> {
+                final String name = canonical(c.topic());
+                final Topic t = name == null ? null : topics.get(name);
+                if (t != null) {
+                    t.subscribers.remove(conn);
+                    t.joining.remove(conn);
+                }
+                if (name != null) conn.topics.remove(name);
+            }
+            case DISCONNECT -> {
+                conn.close("disconnected");
+                detach(conn);
+            }
+        }
+    }
+
+    /** Drop a connection from every topic; counted once however many times it is called. */
+    private void detach(LiveConnection conn) {
+        for (String name : conn.topics) {
+            final Topic t = topics.get(name);
+            if (t != null) {
+                t.subscribers.remove(conn);
+                t.joining.remove(conn);
+            }
+        }
+        conn.topics.clear();
+        if (conn.detach()) connections.decrementAndGet();
+    }
+
+    private void drainChanges() {
+        final long dropped = changesDropped.sum();
+        if (dropped != droppedSeen) {
+            // some changes never reached us: diffs would be incomplete, so start thread topics over
+            droppedSeen = dropped;
+            drained.clear();
+            while (changes.drainTo(drained, changes.capacity()) > 0) drained.clear();
+            for (Topic t : topics.values()) {
+                if (t.kind == Kind.RANKINGS) continue;
+                t.joining.addAll(t.subscribers);
+                t.subscribers.clear();
+            }
+            return;
+        }
+        drained.clear();
+        changes.drainTo(drained, changes.capacity());
+        final Topic head = topics.get(THREADS);
+        for (ThreadChange change : drained) {
+            final ThreadDto thread = change.thread();
+            final CommentDto comment = change.comment();
+            if (head != null && thread != null) {
+                head.pendingThreads.put(thread.id(), thread);
+                note(head, change);
+            }
+            final Topic one = topics.get(THREAD_PREFIX + (thread != null ? thread.id() : comment.threadId()));
+            if (one != null) {
+                if (thread != null) one.pendingThreads.put(thread.id(), thread);
+                if (comment != null) one.pendingComments.put(comment.id(), comment);
+                note(one, change);
+            }
+        }
+        drained.clear();
+    }
+
+    private static void note(Topic t, ThreadChange change) {
+        t.dirty = true;
+        t.pendingVersion = change.version();
+        t.pendingAt = change.at();
+    }
+
+    private void flushDiff(Topic t) {
+        if (!t.dirty) return;
+        final LiveFrame frame = switch (t.kind) {
+            case THREADS -> {
+                final List<ThreadDto> changed = new ArrayList<>(t.pendingThreads.values());
+                changed.sort(Comparator.comparingLong(ThreadDto::lastActivityAt).reversed());
+                yield LiveFrame.threadsDiff(t.name, t.seq + 1, t.pendingVersion, t.pendingAt, changed);
+            }
+            case THREAD -> {
+                final ThreadDto thread = t.pendingThreads.get(t.key);
+                final List<CommentDto> changed = t.pendingComments.isEmpty()
+                        ? null : new ArrayList<>(t.pendingComments.values());
+                yield LiveFrame.threadDiff(t.name, t.seq + 1, t.pendingVersion, t.pendingAt, thread, changed);
+            }
+            case RANKINGS -> rankingsDiff(t);
+        };
+        if (frame == null) return;
+        t.seq++;
+        diffFrames.increment();
+        send(frame, t.subscribers);
+    }
+
+    /** Rows added or changed and players gone since the ladder subscribers last saw; null if none. */
+    private LiveFrame rankingsDiff(Topic t) {
+        final RankingsRepo.RegionResult res = rankings.getRankings(t.key);
+        final RankingsIndex previous = t.sent;
+        if (res.index() == previous) return null;
+        t.sent = res.index();
+        if (previous == null || previous.size() == 0) {
+            return rankingsFrame(t, "diff", t.seq + 1, res, res.players(), List.of());
+        }
+        final Map<String, RankingRow> before = new HashMap<>(previous.size() * 2);
+        for (RankingRow r : previous.rows()) before.put(r.playerId(), r);
+        final List<RankingRow> changed = new ArrayList<>();
+        for (RankingRow r : res.players()) {
+            if (!r.equals(before.remove(r.playerId()))) changed.add(r);
+        }
+        if (changed.isEmpty() && before.isEmpty()) return null;
+        return rankingsFrame(t, "diff", t.seq + 1, res, changed, new ArrayList<>(before.keySet()));
+    }
+
+    private static LiveFrame rankingsFrame(Topic t, String type, long seq, RankingsRepo.RegionResult res,
+                                           List<RankingRow> players, List<String> removed) {
+        return LiveFrame.rankings(t.name, type, seq, res.effectiveRegion(), res.isGlobalFallback(), players, removed);
+    }
+
+    /** One snapshot for everyone who joined the topic since the last tick. */
+    private void snapshot(Topic t) {
+        final LiveFrame frame = switch (t.kind) {
+            case THREADS -> {
+                final long version = repo.version();
+                yield LiveFrame.threadsSnapshot(t.name, t.seq, version, repo.listThreads(null, headSize).items());
+            }
+            case THREAD -> {
+                final long version = repo.version();
+                final ThreadDto thread = repo.getThread(t.key);
+                if (thread == null) yield null;
+                final PageComment page = repo.listComments(t.key, null, null, SNAPSHOT_COMMENTS);
+                yield LiveFrame.threadSnapshot(t.name, t.seq, version, thread, page.items(), page.cursor());
+            }
+            case RANKINGS -> {
+                final RankingsRepo.RegionResult res = rankings.getRankings(t.key);
+                t.sent = res.index();
+                yield rankingsFrame(t, "snapshot", t.seq, res, res.players(), null);
+            }
+        };
+        if (frame == null) {
+            for (LiveConnection conn : t.joining) {
+                error(conn, t.name, "thread not found");
+                conn.topics.remove(t.name);
+            }
+        } else {
+            snapshotFrames.increment();
+            send(frame, t.joining);
+            t.subscribers.addAll(t.joining);
+        }
+        t.joining.clear();
+    }
+
+    /** Serialize once, offer the same text to every connection. */
+    private void send(LiveFrame frame, Collection<LiveConnection> to) {
+        final String text = write(frame);
+        int sent = 0;
+        for (LiveConnection conn : to) {
+            if (conn.offer(text)) {
+                sent++;
+            } else {
+                dead.add(conn);
+            }
+        }
+        framesSent.add(sent);
+    }
+
+    private String write(LiveFrame frame) {
+        try {
+            return mapper.writeValueAsString(frame);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize live frame for " + frame.topic(), e);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.rivals.live;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.adapter.NativeWebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * The /live WebSocket endpoint (registered in WebSocketConfig).
+ *
+ * Client -> server: {"op":"subscribe","topic":"thread:01J..."} or {"op":"unsubscribe",...};
+ * server -> client: LiveFrame JSON (snapshot / diff / error), see {@link LiveHub}.
+ * Frames are written with the container's asynchronous send, so fan-out never waits on one
+ * client's socket; the synchronous fallback (no native session) and closes run on the hub's
+ * blocking executor instead.
+ */
+@Component
+public class LiveSocketHandler extends TextWebSocketHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(LiveSocketHandler.class);
+    private static final String CONNECTION = "live.connection";
+
+    private final LiveHub hub;
+    private final ObjectMapper mapper;
+    private final long sendTimeoutMs;
+
+    public LiveSocketHandler(
+            LiveHub hub,
+            ObjectMapper mapper,
+            @Value("${rivals.live.send-timeout-ms:10000}") long sendTimeoutMs
+    ) {
+        this.hub = hub;
+        this.mapper = mapper;
+        this.sendTimeoutMs = sendTimeoutMs;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        session.getAttributes().put(CONNECTION, hub.connect(transport(session)));
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+        final LiveConnection conn = (LiveConnection) session.getAttributes().get(CONNECTION);
+        final JsonNode msg;
+        try {
+            msg = mapper.readTree(message.getPayload());
+        } catch (IOException e) {
+            hub.error(conn, null, "malformed message");
+            return;
+        }
+        final String op = msg.path("op").asText("");
+        final String topic = msg.path("topic").asText(null);
+        switch (op) {
+            case "subscribe" -> hub.subscribe(conn, topic);
+            case "unsubscribe" -> hub.unsubscribe(conn, topic);
+            default -> hub.error(conn, topic, "unknown op: " + op);
+        }
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        final LiveConnection conn = (LiveConnection) session.getAttributes().get(CONNECTION);
+        if (conn != null) hub.disconnect(conn);
+    }
+
+    private LiveConnection.Transport transport(WebSocketSession session) {
+        final jakarta.websocket.Session container = session instanceof NativeWebSocketSession n
+                ? n.getNativeSession(jakarta.websocket.Session.class) : null;
+        if (container != null) container.getAsyncRemote().setSendTimeout(sendTimeoutMs);
+        return new LiveConnection.Transport() {
+            @Override
+            public void send(String frame, Consumer<Throwable> done) {
+                if (container == null) {
+                    hub.blockingExecutor().execute(() -> {
+                        try {
+                            session.sendMessage(new TextMessage(frame));
+                            done.accept(null);
+                        } catch (IOException | RuntimeException e) {
+                            done.accept(e);
+                        }
+                    });
+                    return;
+                }
+                try {
+                    container.getAsyncRemote().sendText(frame, r -> done.accept(r.isOK() ? null : r.getException()));
+                } catch (RuntimeException e) {
+                    done.accept(e);
+                }
+            }
+
+            @Override
+            public void close(String reason) {
+                try {
+                    session.close(CloseStatus.POLICY_VIOLATION.withReason(reason));
+                } catch (IOException | RuntimeException e) {
+                    log.debug("Closing live session {} failed: {}", session.getId(), e.toString());
+                }
+            }
+        };
+    }
+}
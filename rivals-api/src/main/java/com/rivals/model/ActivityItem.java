@@ -0,0 +1,8 @@
+package com.rivals.model;
+
+public record ActivityItem(
+    String type,          // "thread" | "comment"
+    long at,              // createdAt of the thread / comment
+    ThreadDto thread,     // set for "thread"
+    CommentDto comment    // set for "comment"
+) {}
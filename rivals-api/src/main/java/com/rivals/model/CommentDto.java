@@ -6,5 +6,7 @@ public record CommentDto(
     String authorId,  // nullable
     String body,
     long createdAt,
-    int likes
+    int likes,
+    Long editedAt,  // nullable
+    boolean deleted  // tombstone; never returned by list endpoints
 ) {}
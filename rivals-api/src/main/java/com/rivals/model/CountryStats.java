@@ -0,0 +1,12 @@
+package com.rivals.model;
+
+public record CountryStats(
+    String countryCode,  // null for the region-wide summary
+    int players,
+    double mean,
+    double min,
+    double p50,
+    double p90,
+    double p99,
+    double max
+) {}
@@ -0,0 +1,13 @@
+package com.rivals.model;
+
+import java.util.List;
+
+public record CountryStatsPayload(
+    String updatedAt,
+    String requestedRegion,
+    String effectiveRegion,
+    Boolean isGlobalFallback,
+    String stat,
+    CountryStats overall,
+    List<CountryStats> countries  // most players first
+) {}
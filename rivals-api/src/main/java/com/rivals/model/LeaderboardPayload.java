@@ -0,0 +1,16 @@
+package com.rivals.model;
+
+import java.util.List;
+
+public record LeaderboardPayload(
+    String updatedAt,
+    String requestedRegion,
+    String effectiveRegion,
+    Boolean isGlobalFallback,
+    String country,  // nullable: whole region
+    String sort,     // nullable: ladder order
+    String order,    // "desc" (best first) | "asc"
+    int total,       // rows matching the filter
+    int offset,
+    List<RankingRow> players
+) {}
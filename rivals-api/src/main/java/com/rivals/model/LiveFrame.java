@@ -0,0 +1,64 @@
+package com.rivals.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * One server -> client message on the /live WebSocket. Null fields are left out of the JSON;
+ * which ones are set depends on the topic and type.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record LiveFrame(
+    String topic,          // "rankings:{region}" | "threads" | "thread:{id}"
+    String type,           // "snapshot" | "diff" | "error"
+    long seq,              // per topic: diffs +1 each, a snapshot repeats the last diff's seq, errors 0
+    Long version,          // thread topics: ThreadRepo version the frame is current to (use as X-Min-Version)
+    Long at,               // diffs: commit time of the newest change in the frame
+    ThreadDto thread,      // thread:{id}
+    List<ThreadDto> threads,    // threads: head snapshot, or threads that changed, newest activity first
+    List<CommentDto> comments,  // thread:{id}: first page, or comments that changed (tombstones included)
+    String cursor,         // thread:{id} snapshot: REST cursor for the next page of comments
+    String effectiveRegion,     // rankings
+    Boolean globalFallback,     // rankings
+    List<RankingRow> players,   // rankings: whole ladder, or rows added or changed
+    List<String> removed,       // rankings diffs: playerIds no longer on the ladder
+    String error           // error
+) {
+
+    public static LiveFrame error(String topic, String message) {
+        return new LiveFrame(topic, "error", 0, null, null, null, null, null, null, null, null, null, null, message);
+    }
+
+    /** "threads": the head of the thread list. */
+    public static LiveFrame threadsSnapshot(String topic, long seq, long version, List<ThreadDto> threads) {
+        return new LiveFrame(topic, "snapshot", seq, version, null, null, threads, null, null,
+                null, null, null, null, null);
+    }
+
+    /** "threads": threads that changed, newest activity first. */
+    public static LiveFrame threadsDiff(String topic, long seq, long version, long at, List<ThreadDto> changed) {
+        return new LiveFrame(topic, "diff", seq, version, at, null, changed, null, null, null, null, null, null, null);
+    }
+
+    /** "thread:{id}": the thread, its first page of comments and the REST cursor for the next. */
+    public static LiveFrame threadSnapshot(String topic, long seq, long version, ThreadDto thread,
+                                           List<CommentDto> comments, String cursor) {
+        return new LiveFrame(topic, "snapshot", seq, version, null, thread, null, comments, cursor,
+                null, null, null, null, null);
+    }
+
+    /** "thread:{id}": the thread's latest state and the comments that changed (null if none). */
+    public static LiveFrame threadDiff(String topic, long seq, long version, long at, ThreadDto thread,
+                                       List<CommentDto> changed) {
+        return new LiveFrame(topic, "diff", seq, version, at, thread, null, changed, null,
+                null, null, null, null, null);
+    }
+
+    /** "rankings:{region}" snapshot or diff; removed is null on snapshots. */
+    public static LiveFrame rankings(String topic, String type, long seq, String effectiveRegion,
+                                     boolean globalFallback, List<RankingRow> players, List<String> removed) {
+        return new LiveFrame(topic, type, seq, null, null, null, null, null, null, effectiveRegion, globalFallback,
+                players, removed, null);
+    }
+}
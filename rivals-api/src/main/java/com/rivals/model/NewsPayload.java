@@ -3,5 +3,6 @@ package com.rivals.model;
 import java.util.List;
 
 public record NewsPayload(
-    List<NewsItem> items
+    List<NewsItem> items,
+    String cursor  // nullable
 ) {}
@@ -0,0 +1,8 @@
+package com.rivals.model;
+
+import java.util.List;
+
+public record PageActivity(
+    List<ActivityItem> items,  // newest first
+    String cursor  // nullable
+) {}
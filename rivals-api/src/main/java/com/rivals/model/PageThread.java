@@ -1,8 +1,14 @@
 package com.rivals.model;
 
 import java.util.List;
+import java.util.Map;
 
 public record PageThread(
     List<ThreadDto> items,
-    String cursor  // nullable
-) {}
+    String cursor,  // nullable
+    Map<String, Integer> unread  // nullable; threadId -> new comments, only for an identified caller
+) {
+    public PageThread(List<ThreadDto> items, String cursor) {
+        this(items, cursor, null);
+    }
+}
@@ -0,0 +1,11 @@
+package com.rivals.model;
+
+import java.util.List;
+
+public record RatingHistoryPayload(
+    String playerId,
+    long from,      // epoch millis, inclusive
+    long to,        // epoch millis, inclusive
+    long bucketMs,  // width each point summarises (1000 = raw samples)
+    List<RatingPoint> points
+) {}
@@ -0,0 +1,8 @@
+package com.rivals.model;
+
+public record RatingPoint(
+    long at,    // epoch millis of the last sample in the bucket
+    int rating, // rating at that sample
+    int min,
+    int max
+) {}
@@ -0,0 +1,236 @@
+package com.rivals.news;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rivals.model.NewsItem;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Streaming parser for RSS 2.0, Atom and JSON Feed documents.
+ * - Format is sniffed from the first non-blank byte ('<' = XML, '{' = JSON).
+ * - Entries are read one at a time (StAX / Jackson streaming), and parsing stops after max
+ *   entries, so a large feed is never held in memory as a tree.
+ * - DTDs and external entities are disabled.
+ */
+final class FeedParser {
+
+    static final String PLACEHOLDER_IMAGE = "/images/placeholder.png";
+    private static final int SUMMARY_MAX = 280;
+    /** Longer ids are junk, and would not fit in a page cursor. */
+    private static final int ID_MAX = 512;
+    private static final DateTimeFormatter DISPLAY = DateTimeFormatter.ofPattern("MMM d", Locale.US).withZone(ZoneOffset.UTC);
+
+    private static final XMLInputFactory XML = XMLInputFactory.newFactory();
+    static {
+        XML.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        XML.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        XML.setProperty(XMLInputFactory.IS_COALESCING, true);
+    }
+
+    /** One parsed entry; publishedAt is epoch millis (0 if the feed gave no usable date). */
+    record Entry(long publishedAt, NewsItem item) {}
+
+    private final ObjectMapper mapper;
+
+    FeedParser(ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    List<Entry> parse(InputStream raw, int max) throws IOException {
+        final BufferedInputStream in = new BufferedInputStream(raw);
+        in.mark(1024);
+        int c;
+        do {
+            c = in.read();
+        } while (c == ' ' || c == '\t' || c == '\r' || c == '\n' || c == 0xEF || c == 0xBB || c == 0xBF);
+        in.reset();
+        if (c == '{') return parseJson(in, max);
+        if (c == '<') return parseXml(in, max);
+        throw new IOException("Unrecognised feed format");
+    }
+
+    /* --------------------------- RSS / Atom --------------------------- */
+
+    private List<Entry> parseXml(InputStream in, int max) throws IOException {
+        final List<Entry> out = new ArrayList<>();
+        XMLStreamReader r = null;
+        try {
+            r = XML.createXMLStreamReader(in);
+            Fields f = null;
+            while (r.hasNext() && out.size() < max) {
+                int ev = r.next();
+                if (ev == XMLStreamConstants.START_ELEMENT) {
+                    String name = r.getLocalName();
+                    if (f == null) {
+                        if (name.equals("item") || name.equals("entry")) f = new Fields();
+                        continue;
+                    }
+                    switch (name) {
+                        case "title" -> {
+                            if (f.title == null) f.title = text(r); // first wins over e.g. Atom <source><title>
+                        }
+                        case "guid", "id" -> {
+                            if (f.id == null) f.id = text(r);
+                        }
+                        case "pubDate", "published", "updated", "date" -> {
+                            String d = text(r);
+                            if (f.date == null || name.equals("published") || name.equals("pubDate")) f.date = d;
+                        }
+                        case "description", "summary" -> {
+                            if (f.summary == null) f.summary = text(r);
+                        }
+                        case "encoded", "content" -> {
+                            String url = r.getAttributeValue(null, "url");
+                            if (url != null) f.image = f.image == null ? url : f.image;
+                            else if (f.summary == null) f.summary = text(r);
+                        }
+                        case "link" -> {
+                            String href = r.getAttributeValue(null, "href");
+                            String rel = r.getAttributeValue(null, "rel");
+                            if (href == null) f.link = text(r);
+                            else if (rel == null || rel.equals("alternate")) f.link = href;
+                        }
+                        case "enclosure", "thumbnail" -> {
+                            String url = r.getAttributeValue(null, "url");
+                            String type = r.getAttributeValue(null, "type");
+                            if (url != null && f.image == null && (type == null || type.startsWith("image/"))) f.image = url;
+                        }
+                        default -> { }
+                    }
+                } else if (ev == XMLStreamConstants.END_ELEMENT && f != null) {
+                    String name = r.getLocalName();
+                    if (name.equals("item") || name.equals("entry")) {
+                        Entry e = f.toEntry();
+                        if (e != null) out.add(e);
+                        f = null;
+                    }
+                }
+            }
+            return out;
+        } catch (XMLStreamException e) {
+            throw new IOException("Malformed XML feed", e);
+        } finally {
+            if (r != null) {
+                try {
+                    r.close();
+                } catch (XMLStreamException ignored) {
+                    // nothing to release beyond the stream the caller closes
+                }
+            }
+        }
+    }
+
+    /** All text under the current element (markup inside, e.g. Atom xhtml, is flattened). */
+    private static String text(XMLStreamReader r) throws XMLStreamException {
+        final StringBuilder sb = new StringBuilder();
+        int depth = 1;
+        while (depth > 0) {
+            int ev = r.next();
+            if (ev == XMLStreamConstants.START_ELEMENT) depth++;
+            else if (ev == XMLStreamConstants.END_ELEMENT) depth--;
+            else if (ev == XMLStreamConstants.CHARACTERS || ev == XMLStreamConstants.CDATA) sb.append(r.getText());
+        }
+        return sb.toString().trim();
+    }
+
+    /* --------------------------- JSON Feed --------------------------- */
+
+    private List<Entry> parseJson(InputStream in, int max) throws IOException {
+        final List<Entry> out = new ArrayList<>();
+        try (JsonParser p = mapper.getFactory().createParser(in)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) throw new IOException("JSON feed must be an object");
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                p.nextToken();
+                if (!field.equals("items") || p.currentToken() != JsonToken.START_ARRAY) {
+                    p.skipChildren();
+                    continue;
+                }
+                while (p.nextToken() == JsonToken.START_OBJECT && out.size() < max) {
+                    JsonNode n = mapper.readTree(p); // one item at a time
+                    Fields f = new Fields();
+                    f.id = str(n, "id");
+                    f.title = str(n, "title");
+                    f.link = str(n, "url");
+                    f.summary = n.hasNonNull("summary") ? str(n, "summary") : str(n, "content_text");
+                    f.image = n.hasNonNull("image") ? str(n, "image") : str(n, "banner_image");
+                    f.date = n.hasNonNull("date_published") ? str(n, "date_published") : str(n, "date_modified");
+                    Entry e = f.toEntry();
+                    if (e != null) out.add(e);
+                }
+                break; // nothing after items matters
+            }
+        }
+        return out;
+    }
+
+    private static String str(JsonNode n, String field) {
+        JsonNode v = n.get(field);
+        return v == null || v.isNull() ? null : v.asText();
+    }
+
+    /* --------------------------- Internals --------------------------- */
+
+    private static final class Fields {
+        String id, title, link, summary, image, date;
+
+        Entry toEntry() {
+            final String key = firstNonBlank(id, link, title);
+            if (key == null || key.length() > ID_MAX || title == null || title.isBlank()) return null;
+            final long at = parseDate(date);
+            return new Entry(at, new NewsItem(
+                    key,
+                    title,
+                    at == 0 ? "" : DISPLAY.format(Instant.ofEpochMilli(at)),
+                    plain(summary),
+                    image == null || image.isBlank() ? PLACEHOLDER_IMAGE : image,
+                    link == null || link.isBlank() ? null : link
+            ));
+        }
+    }
+
+    private static String firstNonBlank(String... values) {
+        for (String v : values) if (v != null && !v.isBlank()) return v.trim();
+        return null;
+    }
+
+    /** Strip markup from HTML summaries and clip to a card-sized blurb. */
+    static String plain(String html) {
+        if (html == null) return "";
+        String s = html.replaceAll("<[^>]*>", " ").replaceAll("\\s+", " ").trim();
+        return s.length() <= SUMMARY_MAX ? s : s.substring(0, SUMMARY_MAX - 1).trim() + "…";
+    }
+
+    /** RFC 1123 (RSS) or ISO-8601 (Atom, JSON Feed); 0 if absent or unparseable. */
+    static long parseDate(String s) {
+        if (s == null || s.isBlank()) return 0;
+        try {
+            return ZonedDateTime.parse(s.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+        } catch (DateTimeParseException ignored) {
+            // not RSS style
+        }
+        try {
+            return OffsetDateTime.parse(s.trim()).toInstant().toEpochMilli();
+        } catch (DateTimeParseException ignored) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.rivals.news;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import com.rivals.model.NewsItem;
+import com.rivals.repo.NewsRepo;
+import com.rivals.util.Time;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Periodically pulls the feeds listed in rivals.news.feeds (http(s): or file: URIs) into NewsRepo.
+ * - Conditional requests: remembers each feed's ETag / Last-Modified (file: mtime + size) and
+ *   keeps the previous entries on 304, so an unchanged feed costs one round trip and no parsing.
+ * - Entries of all feeds are merged newest first and de-duplicated by id (first seen wins).
+ * - The merged list is handed to NewsRepo.replaceAll, which publishes it atomically and only
+ *   if the content changed.
+ * With no feeds configured this does nothing and the seeded stories stay.
+ */
+@Component
+public class NewsFeedFetcher {
+
+    private static final Logger log = LoggerFactory.getLogger(NewsFeedFetcher.class);
+
+    private final NewsRepo repo;
+    private final FeedParser parser;
+    private final List<Feed> feeds = new ArrayList<>();
+    private final int maxItems;
+    private final Duration timeout;
+    private final HttpClient http;
+
+    private final LongAdder fetches = new LongAdder();
+    private final LongAdder notModified = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder publishes = new LongAdder();
+    private volatile long lastRefreshAt;
+
+    public NewsFeedFetcher(
+            NewsRepo repo,
+            ObjectMapper mapper,
+            @Value("${rivals.news.feeds:}") String[] feedUris,
+            @Value("${rivals.news.max-items:100}") int maxItems,
+            @Value("${rivals.news.timeout-ms:5000}") long timeoutMs
+    ) {
+        this.repo = repo;
+        this.parser = new FeedParser(mapper);
+        for (String u : feedUris) {
+            if (!u.isBlank()) feeds.add(new Feed(URI.create(u.trim())));
+        }
+        this.maxItems = maxItems;
+        this.timeout = Duration.ofMillis(timeoutMs);
+        this.http = HttpClient.newBuilder()
+                .connectTimeout(timeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    /** Fetch every feed once and publish the merged result if anything changed. */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${rivals.news.refresh-ms:300000}")
+    public synchronized void refresh() {
+        if (feeds.isEmpty()) return;
+        boolean changed = false;
+        for (Feed f : feeds) {
+            fetches.increment();
+            try {
+                changed |= fetch(f);
+            } catch (IOException | RuntimeException e) {
+                failures.increment();
+                log.warn("News feed {} failed: {}", f.uri, e.toString());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        lastRefreshAt = Time.now();
+        if (changed && repo.replaceAll(merge())) publishes.increment();
+    }
+
+    public FetchStats stats() {
+        return new FetchStats(feeds.size(), fetches.sum(), notModified.sum(), failures.sum(),
+                publishes.sum(), repo.snapshot().version(), repo.list().size(), lastRefreshAt);
+    }
+
+    public record FetchStats(
+            int feeds,
+            long fetches,
+            long notModified,
+            long failures,
+            long publishes,
+            long snapshotVersion,
+            int items,
+            long lastRefreshAt
+    ) {}
+
+    /* --------------------------- Internals --------------------------- */
+
+    private static final class Feed {
+        final URI uri;
+        String etag;
+        String lastModified;
+        List<FeedParser.Entry> entries = List.of();
+
+        Feed(URI uri) {
+            this.uri = uri;
+        }
+    }
+
+    /** @return true if the feed's entries were re-read (false on 304 / unchanged file) */
+    private boolean fetch(Feed f) throws IOException, InterruptedException {
+        if ("file".equals(f.uri.getScheme())) {
+            final Path p = Path.of(f.uri);
+            final String stamp = Files.getLastModifiedTime(p).toMillis() + ":" + Files.size(p);
+            if (stamp.equals(f.lastModified)) {
+                notModified.increment();
+                return false;
+            }
+            try (InputStream in = Files.newInputStream(p)) {
+                f.entries = parser.parse(in, maxItems);
+            }
+            f.lastModified = stamp;
+            return true;
+        }
+
+        final HttpRequest.Builder req = HttpRequest.newBuilder(f.uri)
+                .timeout(timeout)
+                .header("Accept", "application/rss+xml, application/atom+xml, application/feed+json, application/xml;q=0.9, */*;q=0.8");
+        if (f.etag != null) req.header("If-None-Match", f.etag);
+        if (f.lastModified != null) req.header("If-Modified-Since", f.lastModified);
+
+        final HttpResponse<InputStream> res = http.send(req.build(), HttpResponse.BodyHandlers.ofInputStream());
+        try (InputStream in = res.body()) {
+            if (res.statusCode() == 304) {
+                notModified.increment();
+                return false;
+            }
+            if (res.statusCode() / 100 != 2) throw new IOException("HTTP " + res.statusCode());
+            f.entries = parser.parse(in, maxItems); // streamed straight off the socket
+        }
+        f.etag = res.headers().firstValue("ETag").orElse(null);
+        f.lastModified = res.headers().firstValue("Last-Modified").orElse(null);
+        return true;
+    }
+
+    private List<NewsItem> merge() {
+        final List<FeedParser.Entry> all = new ArrayList<>();
+        for (Feed f : feeds) all.addAll(f.entries);
+        all.sort(Comparator.comparingLong(FeedParser.Entry::publishedAt).reversed());
+
+        final Map<String, NewsItem> byId = new LinkedHashMap<>();
+        for (FeedParser.Entry e : all) {
+            if (byId.size() == maxItems) break;
+            byId.putIfAbsent(e.item().id(), e.item());
+        }
+        return new ArrayList<>(byId.values());
+    }
+}
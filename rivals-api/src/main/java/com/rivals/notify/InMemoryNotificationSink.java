@@ -0,0 +1,41 @@
+package com.rivals.notify;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the most recent notifications per recipient in memory (local dev / tests).
+ * Selected with rivals.notify.sink=memory (the default); see NotifyConfig.
+ */
+public class InMemoryNotificationSink implements NotificationSink {
+
+    private final int perRecipient;
+    private final ConcurrentHashMap<String, Deque<Notification>> inboxes = new ConcurrentHashMap<>();
+
+    public InMemoryNotificationSink(int perRecipient) {
+        this.perRecipient = perRecipient;
+    }
+
+    @Override
+    public void deliver(List<Notification> batch) {
+        for (Notification n : batch) {
+            Deque<Notification> inbox = inboxes.computeIfAbsent(n.recipientId(), k -> new ArrayDeque<>());
+            synchronized (inbox) {
+                inbox.addFirst(n);
+                if (inbox.size() > perRecipient) inbox.removeLast();
+            }
+        }
+    }
+
+    /** Newest first. */
+    public List<Notification> inbox(String recipientId) {
+        Deque<Notification> inbox = inboxes.get(recipientId);
+        if (inbox == null) return List.of();
+        synchronized (inbox) {
+            return new ArrayList<>(inbox);
+        }
+    }
+}
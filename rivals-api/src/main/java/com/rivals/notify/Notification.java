@@ -0,0 +1,13 @@
+package com.rivals.notify;
+
+/**
+ * "Someone commented in a thread you're in."
+ * recipientId: participant being notified; actorId: comment author (nullable for anonymous).
+ */
+public record Notification(
+        String recipientId,
+        String threadId,
+        String commentId,
+        String actorId,
+        long createdAt
+) {}
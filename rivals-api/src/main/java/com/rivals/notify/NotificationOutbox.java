@@ -0,0 +1,198 @@
+package com.rivals.notify;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import com.rivals.model.ThreadDto;
+import com.rivals.repo.ThreadChange;
+import com.rivals.repo.ThreadRepo;
+import com.rivals.util.BoundedMpscQueue;
+import com.rivals.util.Time;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous notification fan-out for thread participants.
+ *
+ * Write path: ThreadRepo publishes each change to a listener that does one lock-free offer()
+ * into a bounded queue. If the queue is full the event is dropped and counted; the comment
+ * write never waits on notification work.
+ *
+ * Dispatcher: one daemon thread drains batches, keeps participant sets per thread (thread
+ * author + every named commenter, updated incrementally as events pass by) and hands the
+ * resulting notifications to the configured {@link NotificationSink}. Only the most recently
+ * active threads keep their set; a thread that was evicted has it rebuilt from the repo on its
+ * next comment.
+ */
+@Component
+public class NotificationOutbox {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationOutbox.class);
+
+    private final ThreadRepo repo;
+    private final NotificationSink sink;
+    private final BoundedMpscQueue<ThreadChange> queue;
+    private final int batchSize;
+    private final long idleParkNanos;
+
+    /** threadId -> participant ids, least recently active evicted; touched only by the dispatcher thread */
+    private final Map<String, Set<String>> participants;
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder sinkErrors = new LongAdder();
+    private final LongAdder participantRebuilds = new LongAdder();
+    private volatile int maxDepth;
+    private volatile long lastDispatchLagMs;
+    private volatile int trackedThreads;
+
+    private volatile boolean running;
+    private Thread dispatcher;
+
+    public NotificationOutbox(
+            ThreadRepo repo,
+            NotificationSink sink,
+            @Value("${rivals.notify.queue-capacity:65536}") int capacity,
+            @Value("${rivals.notify.batch-size:512}") int batchSize,
+            @Value("${rivals.notify.idle-park-ms:5}") long idleParkMs,
+            @Value("${rivals.notify.tracked-threads:10000}") int trackedThreads
+    ) {
+        this.repo = repo;
+        this.sink = sink;
+        this.queue = new BoundedMpscQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.idleParkNanos = idleParkMs * 1_000_000L;
+        this.participants = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Set<String>> eldest) {
+                return size() > trackedThreads;
+            }
+        };
+    }
+
+    @PostConstruct
+    public void start() {
+        repo.addListener(this::onChange);
+        running = true;
+        dispatcher = new Thread(this::run, "notify-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (dispatcher != null) LockSupport.unpark(dispatcher);
+    }
+
+    /** Runs on the writer's thread (under repo locks): O(1), never blocks. */
+    private void onChange(ThreadChange change) {
+        if (change.type() != ThreadChange.Type.THREAD_CREATED && change.type() != ThreadChange.Type.COMMENT_ADDED) {
+            return;
+        }
+        if (queue.offer(change)) {
+            enqueued.increment();
+        } else {
+            dropped.increment();
+        }
+    }
+
+    public OutboxStats stats() {
+        return new OutboxStats(enqueued.sum(), dropped.sum(), queue.size(), queue.capacity(), maxDepth,
+                batches.sum(), delivered.sum(), sinkErrors.sum(), lastDispatchLagMs, trackedThreads,
+                participantRebuilds.sum());
+    }
+
+    /** Backpressure and throughput counters. */
+    public record OutboxStats(
+            long enqueued,
+            long dropped,
+            int queueDepth,
+            int queueCapacity,
+            int maxQueueDepth,
+            long batches,
+            long delivered,
+            long sinkErrors,
+            long lastDispatchLagMs,
+            int trackedThreads,
+            long participantRebuilds
+    ) {}
+
+    /* --------------------------- Dispatcher --------------------------- */
+
+    private void run() {
+        final List<ThreadChange> events = new ArrayList<>(batchSize);
+        final List<Notification> out = new ArrayList<>();
+        while (running) {
+            final int depth = queue.size();
+            if (depth > maxDepth) maxDepth = depth;
+
+            events.clear();
+            if (queue.drainTo(events, batchSize) == 0) {
+                LockSupport.parkNanos(idleParkNanos);
+                continue;
+            }
+
+            out.clear();
+            for (ThreadChange c : events) fanOut(c, out);
+            lastDispatchLagMs = Time.now() - events.get(events.size() - 1).at();
+            trackedThreads = participants.size();
+            batches.increment();
+            if (out.isEmpty()) continue;
+            try {
+                sink.deliver(List.copyOf(out));
+                delivered.add(out.size());
+            } catch (RuntimeException e) {
+                sinkErrors.increment();
+                log.warn("Notification sink failed for batch of {}: {}", out.size(), e.toString());
+            }
+        }
+    }
+
+    private void fanOut(ThreadChange c, List<Notification> out) {
+        final String threadId = c.thread().id();
+        if (c.type() == ThreadChange.Type.THREAD_CREATED) {
+            final Set<String> members = participants.computeIfAbsent(threadId, k -> new LinkedHashSet<>());
+            if (c.thread().authorId() != null) members.add(c.thread().authorId());
+            return;
+        }
+        Set<String> members = participants.get(threadId);
+        if (members == null) {
+            members = rebuild(c.thread(), c.comment().id());
+            participants.put(threadId, members);
+        }
+        final String actor = c.comment().authorId();
+        for (String recipient : members) {
+            if (!recipient.equals(actor)) {
+                out.add(new Notification(recipient, threadId, c.comment().id(), actor, c.at()));
+            }
+        }
+        if (actor != null) members.add(actor);
+    }
+
+    /**
+     * Participants of an evicted (or never seen) thread as of just before the given comment:
+     * the thread author plus the named authors of earlier comments still in the repo. Comment
+     * ids sort by creation, so later comments (which will pass by as events) are left out.
+     * Reads without reviving an archived thread or taking the repo monitor.
+     */
+    private Set<String> rebuild(ThreadDto thread, String beforeCommentId) {
+        participantRebuilds.increment();
+        final Set<String> members = new LinkedHashSet<>();
+        if (thread.authorId() != null) members.add(thread.authorId());
+        members.addAll(repo.commentAuthorsBefore(thread.id(), beforeCommentId));
+        return members;
+    }
+}
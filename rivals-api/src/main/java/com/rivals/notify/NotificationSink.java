@@ -0,0 +1,12 @@
+package com.rivals.notify;
+
+import java.util.List;
+
+/**
+ * Delivery target for the notification dispatcher. Called from the single dispatcher thread
+ * with one batch at a time; implementations may block (that only delays later batches).
+ */
+public interface NotificationSink {
+
+    void deliver(List<Notification> batch);
+}
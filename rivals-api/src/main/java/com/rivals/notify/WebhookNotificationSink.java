@@ -0,0 +1,36 @@
+package com.rivals.notify;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * Stand-in for an outbound webhook: serializes each batch as the JSON body a webhook
+ * POST would carry and logs it against the configured URL. Swap the log line for an
+ * HTTP call when a real endpoint exists. Selected with rivals.notify.sink=webhook; see NotifyConfig.
+ */
+public class WebhookNotificationSink implements NotificationSink {
+
+    private static final Logger log = LoggerFactory.getLogger(WebhookNotificationSink.class);
+
+    private final ObjectMapper mapper;
+    private final String url;
+
+    public WebhookNotificationSink(ObjectMapper mapper, String url) {
+        this.mapper = mapper;
+        this.url = url;
+    }
+
+    @Override
+    public void deliver(List<Notification> batch) {
+        try {
+            String body = mapper.writeValueAsString(batch);
+            log.info("POST {} ({} notifications, {} bytes)", url, batch.size(), body.length());
+        } catch (JsonProcessingException e) {
+            log.warn("Dropping notification batch of {}: {}", batch.size(), e.getMessage());
+        }
+    }
+}
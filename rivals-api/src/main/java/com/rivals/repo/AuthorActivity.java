@@ -0,0 +1,117 @@
+package com.rivals.repo;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * author -> time-ordered references to the threads and comments they created.
+ * - A reference is the 128-bit id (two longs) plus one bit for thread vs comment: ~16 bytes,
+ *   no DTOs. ThreadRepo resolves references to current DTOs at read time, so edits show up and
+ *   deleted or compacted comments are skipped.
+ * - Ids are generated in increasing order, so appends keep each author's list sorted and a
+ *   cursor position is one binary search.
+ * - Single writer (ThreadRepo, under its monitor); readers are lock-free: elements are written
+ *   before the volatile size that publishes them.
+ */
+final class AuthorActivity {
+
+    private final ConcurrentHashMap<String, Refs> byAuthor = new ConcurrentHashMap<>();
+
+    void add(String authorId, long hi, long lo, boolean thread) {
+        if (authorId == null || authorId.isBlank()) return;
+        byAuthor.computeIfAbsent(authorId, k -> new Refs()).append(hi, lo, thread);
+    }
+
+    /** @return the author's references, or null if they have none */
+    Refs refs(String authorId) {
+        return authorId == null ? null : byAuthor.get(authorId);
+    }
+
+    /** Restore paths add out of order; re-sort every list afterwards. */
+    void sortAll() {
+        for (Refs r : byAuthor.values()) r.sort();
+    }
+
+    void clear() {
+        byAuthor.clear();
+    }
+
+    int authors() {
+        return byAuthor.size();
+    }
+
+    long references() {
+        long n = 0;
+        for (Refs r : byAuthor.values()) n += r.size;
+        return n;
+    }
+
+    static final class Refs {
+        volatile long[] hi = new long[4];
+        volatile long[] lo = new long[4];
+        volatile long[] threadBits = new long[1];
+        volatile int size;
+
+        private void append(long h, long l, boolean thread) {
+            final int n = size;
+            if (n == hi.length) {
+                hi = Arrays.copyOf(hi, n * 2);
+                lo = Arrays.copyOf(lo, n * 2);
+                threadBits = Arrays.copyOf(threadBits, (n * 2 + 63) >>> 6);
+            }
+            hi[n] = h;
+            lo[n] = l;
+            if (thread) threadBits[n >>> 6] |= 1L << n;
+            size = n + 1;
+        }
+
+        int size() {
+            return size;
+        }
+
+        long hi(int i) {
+            return hi[i];
+        }
+
+        long lo(int i) {
+            return lo[i];
+        }
+
+        boolean isThread(int i) {
+            return (threadBits[i >>> 6] & (1L << i)) != 0;
+        }
+
+        /** Number of references strictly older than (h, l), i.e. where a newest-first page resumes. */
+        int olderThan(long h, long l, int n) {
+            final long[] a = hi, b = lo;
+            int low = 0, high = n;
+            while (low < high) {
+                final int mid = (low + high) >>> 1;
+                final int c = a[mid] != h ? Long.compareUnsigned(a[mid], h) : Long.compareUnsigned(b[mid], l);
+                if (c < 0) low = mid + 1;
+                else high = mid;
+            }
+            return low;
+        }
+
+        private void sort() {
+            final int n = size;
+            final Integer[] order = new Integer[n];
+            for (int i = 0; i < n; i++) order[i] = i;
+            final long[] a = hi, b = lo;
+            Arrays.sort(order, (x, y) -> {
+                final int c = Long.compareUnsigned(a[x], a[y]);
+                return c != 0 ? c : Long.compareUnsigned(b[x], b[y]);
+            });
+            final long[] h = new long[Math.max(4, n)], l = new long[h.length], bits = new long[(h.length + 63) >>> 6];
+            for (int i = 0; i < n; i++) {
+                h[i] = a[order[i]];
+                l[i] = b[order[i]];
+                if (isThread(order[i])) bits[i >>> 6] |= 1L << i;
+            }
+            hi = h;
+            lo = l;
+            threadBits = bits;
+        }
+    }
+}
@@ -1,19 +1,24 @@
 package com.rivals.repo;
-import org.springframework.stereotype.Repository;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.rivals.model.NewsItem;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 /**
- * In-memory curated news for MVP. Replace with a fetcher later.
+ * In-memory news list: curated seed stories until a feed refresh replaces them
+ * (see NewsFeedFetcher). Readers get an immutable {@link NewsSnapshot}; writers swap in a new one.
  */
 public class NewsRepo {
 
-    private final List<NewsItem> items = new ArrayList<>();
+    public static final int DEFAULT_PAGE_SIZE = 20;
 
-    public NewsRepo() {
+    private final ObjectMapper mapper;
+    private volatile NewsSnapshot snapshot;
+
+    public NewsRepo(ObjectMapper mapper) {
+        this.mapper = mapper;
+        final List<NewsItem> items = new ArrayList<>();
         // Seed 4 stories (you can edit these at runtime or expose an admin endpoint later)
         items.add(new NewsItem(
                 "s1",
@@ -47,14 +52,26 @@ public class NewsRepo {
                 "/images/placeholder.png",
                 "#"
         ));
+        snapshot = NewsSnapshot.of(1, items, mapper, DEFAULT_PAGE_SIZE);
     }
 
     public List<NewsItem> list() {
-        return Collections.unmodifiableList(items);
+        return snapshot.items();
+    }
+
+    public NewsSnapshot snapshot() {
+        return snapshot;
     }
 
-    public void replaceAll(List<NewsItem> newItems) {
-        items.clear();
-        items.addAll(newItems);
+    /**
+     * Serialize the new list off to the side, then publish it in one write.
+     * @return true if the content changed (an identical list keeps the current snapshot and ETags)
+     */
+    public synchronized boolean replaceAll(List<NewsItem> newItems) {
+        final NewsSnapshot current = snapshot;
+        final NewsSnapshot next = NewsSnapshot.of(current.version() + 1, newItems, mapper, DEFAULT_PAGE_SIZE);
+        if (next.contentHash().equals(current.contentHash())) return false;
+        snapshot = next;
+        return true;
     }
 }
@@ -0,0 +1,129 @@
+package com.rivals.repo;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rivals.model.NewsItem;
+import com.rivals.util.CursorCodec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, pre-serialized view of the news list. Published by NewsRepo with a single
+ * volatile write, so readers never see a half-replaced list.
+ * - Every item is serialized once at publish time; a page is those bytes spliced together.
+ * - The first page at the default size is built once as well (the hot request).
+ * - The ETag is a content hash, so a refresh that changes nothing keeps clients' caches valid.
+ * - Cursors name the last item seen rather than an offset, so paging survives a refresh.
+ */
+public final class NewsSnapshot {
+
+    private static final byte[] PREFIX = "{\"items\":[".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CURSOR = "],\"cursor\":".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NO_CURSOR = "],\"cursor\":null}".getBytes(StandardCharsets.US_ASCII);
+
+    private final long version;
+    private final List<NewsItem> items;
+    private final byte[][] json;
+    private final Map<String, Integer> positions;
+    private final String contentHash;
+    private final int defaultLimit;
+    private final byte[] firstPage;
+
+    private NewsSnapshot(long version, List<NewsItem> items, byte[][] json, String contentHash, int defaultLimit) {
+        this.version = version;
+        this.items = items;
+        this.json = json;
+        this.contentHash = contentHash;
+        this.positions = new HashMap<>(items.size() * 2);
+        for (int i = 0; i < items.size(); i++) positions.putIfAbsent(items.get(i).id(), i);
+        this.defaultLimit = defaultLimit;
+        this.firstPage = render(0, defaultLimit);
+    }
+
+    static NewsSnapshot of(long version, List<NewsItem> items, ObjectMapper mapper, int defaultLimit) {
+        final List<NewsItem> copy = List.copyOf(items);
+        final byte[][] json = new byte[copy.size()][];
+        long h = 0xcbf29ce484222325L;
+        try {
+            for (int i = 0; i < json.length; i++) {
+                json[i] = mapper.writeValueAsBytes(copy.get(i));
+                for (byte b : json[i]) {
+                    h ^= b & 0xff;
+                    h *= 0x100000001b3L;
+                }
+            }
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize news item", e);
+        }
+        return new NewsSnapshot(version, copy, json, Long.toHexString(h), defaultLimit);
+    }
+
+    /** Publish sequence number; bumps only when content actually changed. */
+    public long version() {
+        return version;
+    }
+
+    public List<NewsItem> items() {
+        return items;
+    }
+
+    public String contentHash() {
+        return contentHash;
+    }
+
+    /**
+     * Index of the first item after the one the cursor names.
+     * @param after a decoded NEWS cursor, or null
+     * @return 0 for no cursor; size() if that item has since aged out of the list
+     */
+    public int start(CursorCodec.Cursor after) {
+        if (after == null) return 0;
+        final Integer at = positions.get(after.keyId());
+        return at == null ? items.size() : at + 1;
+    }
+
+    /** Strong validator for one page of this snapshot. */
+    public String etag(int from, int limit) {
+        return "\"" + contentHash + "-" + from + "-" + limit + "\"";
+    }
+
+    /** {"items":[...],"cursor":...} for items [from, from + limit), as UTF-8 JSON. */
+    public byte[] page(int from, int limit) {
+        if (from == 0 && limit == defaultLimit) return firstPage;
+        return render(from, limit);
+    }
+
+    private byte[] render(int from, int limit) {
+        final int start = Math.min(from, json.length);
+        final int end = (int) Math.min(json.length, (long) start + limit);
+        final byte[] cursor = end < json.length
+                ? ("\"" + CursorCodec.encode(CursorCodec.Mode.NEWS, "", limit, version, 0, items.get(end - 1).id()) + "\"}")
+                        .getBytes(StandardCharsets.US_ASCII)
+                : null;
+
+        int size = PREFIX.length + Math.max(0, end - start - 1)
+                + (cursor == null ? NO_CURSOR.length : CURSOR.length + cursor.length);
+        for (int i = start; i < end; i++) size += json[i].length;
+
+        final byte[] out = new byte[size];
+        int p = copy(PREFIX, out, 0);
+        for (int i = start; i < end; i++) {
+            if (i > start) out[p++] = ',';
+            p = copy(json[i], out, p);
+        }
+        if (cursor == null) {
+            copy(NO_CURSOR, out, p);
+        } else {
+            copy(cursor, out, copy(CURSOR, out, p));
+        }
+        return out;
+    }
+
+    private static int copy(byte[] src, byte[] dst, int at) {
+        System.arraycopy(src, 0, dst, at, src.length);
+        return at + src.length;
+    }
+}
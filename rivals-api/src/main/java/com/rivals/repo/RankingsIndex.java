@@ -0,0 +1,252 @@
+package com.rivals.repo;
+
+import com.rivals.model.CountryStats;
+import com.rivals.model.RankingRow;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable secondary indexes over one region's ladder, built once when the region is published.
+ * - Rows stay in ladder (rank) order; everything else is int row numbers into them.
+ * - Per stat: row numbers sorted by that stat (best first, ties in rank order) and the values
+ *   in that order, both primitive arrays.
+ * - Per country: row numbers in rank order and, per stat, in that stat's order (a stable filter
+ *   of the region-wide order), so a filtered, sorted page is an array slice.
+ * - Per country and stat: count / mean / min / percentiles / max, precomputed from the sorted values.
+ */
+public final class RankingsIndex {
+
+    /** Sortable, aggregatable row stats. */
+    public enum Stat {
+        RATING("rating"),
+        WIN_RATE("winRate"),
+        KDA("kda"),
+        ADR("adr");
+
+        private final String param;
+
+        Stat(String param) {
+            this.param = param;
+        }
+
+        public String param() {
+            return param;
+        }
+
+        double of(RankingRow r) {
+            return switch (this) {
+                case RATING -> r.rating();
+                case WIN_RATE -> r.winRate();
+                case KDA -> r.kda();
+                case ADR -> r.adr();
+            };
+        }
+
+        /** @return null if the name is not a stat (case-insensitive: "winRate", "winrate") */
+        public static Stat parse(String name) {
+            if (name == null) return null;
+            for (Stat s : values()) if (s.param.equalsIgnoreCase(name)) return s;
+            return null;
+        }
+    }
+
+    private static final int STATS = Stat.values().length;
+
+    private final List<RankingRow> rows;
+    /** [stat] row numbers, best first */
+    private final int[][] byStat;
+    /** [stat] values in byStat order */
+    private final double[][] sortedValues;
+    private final Map<String, Country> countries;
+    private final CountryStats[][] overallAndCountries; // [stat] overall first, then by player count
+
+    private RankingsIndex(List<RankingRow> rows) {
+        this.rows = rows;
+        final int n = rows.size();
+        final double[][] values = new double[STATS][n];
+        for (int i = 0; i < n; i++) {
+            final RankingRow r = rows.get(i);
+            for (Stat s : Stat.values()) values[s.ordinal()][i] = s.of(r);
+        }
+
+        byStat = new int[STATS][];
+        sortedValues = new double[STATS][];
+        for (int s = 0; s < STATS; s++) {
+            byStat[s] = sortDescending(values[s]);
+            sortedValues[s] = gather(values[s], byStat[s]);
+        }
+
+        // country -> row numbers: count, allocate exact arrays, fill
+        final Map<String, int[]> counts = new HashMap<>();
+        final String[] codes = new String[n];
+        for (int i = 0; i < n; i++) {
+            codes[i] = normalize(rows.get(i).countryCode());
+            if (codes[i] != null) counts.computeIfAbsent(codes[i], k -> new int[1])[0]++;
+        }
+        final Map<String, Country> byCountry = new HashMap<>(counts.size() * 2);
+        counts.forEach((code, c) -> byCountry.put(code, new Country(code, c[0])));
+        for (int i = 0; i < n; i++) if (codes[i] != null) byCountry.get(codes[i]).add(i);
+        for (int s = 0; s < STATS; s++) {
+            for (int row : byStat[s]) if (codes[row] != null) byCountry.get(codes[row]).addSorted(s, row, values[s][row]);
+        }
+        countries = Collections.unmodifiableMap(byCountry);
+
+        final List<Country> bySize = new ArrayList<>(byCountry.values());
+        bySize.sort((a, b) -> a.size != b.size ? Integer.compare(b.size, a.size) : a.code.compareTo(b.code));
+        overallAndCountries = new CountryStats[STATS][];
+        for (int s = 0; s < STATS; s++) {
+            final CountryStats[] out = new CountryStats[bySize.size() + 1];
+            out[0] = summarize(null, sortedValues[s]);
+            for (int c = 0; c < bySize.size(); c++) {
+                final Country country = bySize.get(c);
+                out[c + 1] = country.stats[s] = summarize(country.code, country.values[s]);
+            }
+            overallAndCountries[s] = out;
+        }
+    }
+
+    /** Build the indexes for a ladder given in rank order. */
+    public static RankingsIndex of(List<RankingRow> rows) {
+        return new RankingsIndex(List.copyOf(rows));
+    }
+
+    /** Rows in ladder order. */
+    public List<RankingRow> rows() {
+        return rows;
+    }
+
+    public int size() {
+        return rows.size();
+    }
+
+    /**
+     * One page of the ladder, optionally filtered to a country and/or sorted by a stat.
+     * @param country ISO code or null for all; an unknown country gives an empty page
+     * @param sort    null keeps ladder order
+     * @param ascending worst first instead of best first
+     */
+    public Page page(String country, Stat sort, boolean ascending, int offset, int limit) {
+        final int[] order;
+        final int total;
+        if (country == null) {
+            order = sort == null ? null : byStat[sort.ordinal()];
+            total = rows.size();
+        } else {
+            final Country c = countries.get(normalize(country));
+            if (c == null) return new Page(0, List.of());
+            order = sort == null ? c.rows : c.byStat[sort.ordinal()];
+            total = c.size;
+        }
+        final int from = Math.min(offset, total);
+        final int to = (int) Math.min(total, (long) from + limit);
+        final List<RankingRow> out = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            final int pos = ascending ? total - 1 - i : i;
+            out.add(rows.get(order == null ? pos : order[pos]));
+        }
+        return new Page(total, out);
+    }
+
+    /** A slice of a (possibly filtered) ladder and the size of the whole filtered ladder. */
+    public record Page(int total, List<RankingRow> players) {}
+
+    /** Region-wide summary of a stat (countryCode null). */
+    public CountryStats overall(Stat stat) {
+        return overallAndCountries[stat.ordinal()][0];
+    }
+
+    /** Per-country summaries of a stat, most players first. */
+    public List<CountryStats> byCountry(Stat stat) {
+        final CountryStats[] all = overallAndCountries[stat.ordinal()];
+        return Collections.unmodifiableList(Arrays.asList(all).subList(1, all.length));
+    }
+
+    /** Summary of a stat for one country, or null if no player has that country. */
+    public CountryStats country(String code, Stat stat) {
+        final Country c = countries.get(normalize(code));
+        return c == null ? null : c.stats[stat.ordinal()];
+    }
+
+    /* --------------------------- Internals --------------------------- */
+
+    private static final class Country {
+        final String code;
+        final int size;
+        final int[] rows;
+        final int[][] byStat;
+        final double[][] values;
+        /** [stat] summary, shared with overallAndCountries */
+        final CountryStats[] stats = new CountryStats[STATS];
+        int filled;
+        final int[] statFilled = new int[STATS];
+
+        Country(String code, int size) {
+            this.code = code;
+            this.size = size;
+            this.rows = new int[size];
+            this.byStat = new int[STATS][size];
+            this.values = new double[STATS][size];
+        }
+
+        void add(int row) {
+            rows[filled++] = row;
+        }
+
+        void addSorted(int stat, int row, double value) {
+            final int at = statFilled[stat]++;
+            byStat[stat][at] = row;
+            values[stat][at] = value;
+        }
+    }
+
+    private static String normalize(String code) {
+        return code == null || code.isBlank() ? null : code.trim().toUpperCase(Locale.ROOT);
+    }
+
+    /** Count, mean, min, nearest-rank p50/p90/p99 and max of values sorted descending. */
+    private static CountryStats summarize(String code, double[] desc) {
+        final int n = desc.length;
+        if (n == 0) return new CountryStats(code, 0, 0, 0, 0, 0, 0, 0);
+        double sum = 0;
+        for (double v : desc) sum += v;
+        return new CountryStats(code, n, sum / n, desc[n - 1],
+                percentile(desc, 0.50), percentile(desc, 0.90), percentile(desc, 0.99), desc[0]);
+    }
+
+    private static double percentile(double[] desc, double q) {
+        final int ascRank = Math.max(1, (int) Math.ceil(q * desc.length)); // 1-based, ascending
+        return desc[desc.length - ascRank];
+    }
+
+    private static double[] gather(double[] values, int[] order) {
+        final double[] out = new double[order.length];
+        for (int i = 0; i < order.length; i++) out[i] = values[order[i]];
+        return out;
+    }
+
+    /** Row numbers sorted by value descending; stable, so ties stay in rank order. Bottom-up merge sort. */
+    private static int[] sortDescending(double[] values) {
+        final int n = values.length;
+        int[] a = new int[n], b = new int[n];
+        for (int i = 0; i < n; i++) a[i] = i;
+        for (int width = 1; width < n; width <<= 1) {
+            for (int lo = 0; lo < n; lo += width << 1) {
+                final int mid = Math.min(lo + width, n), hi = Math.min(lo + (width << 1), n);
+                int i = lo, j = mid, k = lo;
+                while (i < mid && j < hi) b[k++] = values[a[j]] > values[a[i]] ? a[j++] : a[i++];
+                while (i < mid) b[k++] = a[i++];
+                while (j < hi) b[k++] = a[j++];
+            }
+            final int[] t = a;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+}
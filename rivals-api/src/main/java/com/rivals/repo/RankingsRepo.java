@@ -1,26 +1,37 @@
 package com.rivals.repo;
 
-import org.springframework.stereotype.Repository;
 import com.rivals.model.RankingRow;
 import com.rivals.util.Time;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 /**
  * In-memory rankings by region.
  * For MVP we seed GLOBAL only; other regions return GLOBAL with a fallback flag.
+ * Every row written (seed + putRegion) is also appended to the players' RatingHistory.
+ * Each region is published as a {@link RankingsIndex} (rows + secondary indexes) in one map put,
+ * so readers never see rows and indexes from different publishes.
+ * Listeners hear the (upper-cased) region after each putRegion has been published.
  */
 public class RankingsRepo {
 
     private static final String GLOBAL = "GLOBAL";
+    private static final RankingsIndex EMPTY = RankingsIndex.of(List.of());
 
-    private final ConcurrentHashMap<String, List<RankingRow>> byRegion = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, RankingsIndex> byRegion = new ConcurrentHashMap<>();
+    private final RatingHistory history;
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
 
-    public RankingsRepo() {
+    public RankingsRepo(RatingHistory history) {
+        this.history = history;
         seedGlobal();
     }
 
@@ -37,7 +48,8 @@ public class RankingsRepo {
         rows.add(new RankingRow("p8", "Spectre", 8, 2782, "CA", "", 0.57, 2.30, 141, iso));
         rows.add(new RankingRow("p9", "Quasar",  9, 2769, "FR", "", 0.56, 2.20, 139, iso));
         rows.add(new RankingRow("p10","Falcon", 10, 2755, "US", "", 0.55, 2.10, 137, iso));
-        byRegion.put(GLOBAL, rows);
+        byRegion.put(GLOBAL, RankingsIndex.of(rows));
+        history.recordAll(rows);
     }
 
     /** Simple result object for controller to build payload flags easily. */
@@ -45,37 +57,52 @@ public class RankingsRepo {
         private final String requestedRegion;
         private final String effectiveRegion;
         private final boolean globalFallback;
-        private final List<RankingRow> players;
+        private final RankingsIndex index;
 
-        public RegionResult(String requestedRegion, String effectiveRegion, boolean globalFallback, List<RankingRow> players) {
+        public RegionResult(String requestedRegion, String effectiveRegion, boolean globalFallback, RankingsIndex index) {
             this.requestedRegion = requestedRegion;
             this.effectiveRegion = effectiveRegion;
             this.globalFallback = globalFallback;
-            this.players = players;
+            this.index = index;
         }
         public String requestedRegion() { return requestedRegion; }
         public String effectiveRegion() { return effectiveRegion; }
         public boolean isGlobalFallback() { return globalFallback; }
-        public List<RankingRow> players() { return players; }
+        public List<RankingRow> players() { return index.rows(); }
+        public RankingsIndex index() { return index; }
     }
 
     /** Get rankings for region; fall back to GLOBAL if missing. */
     public RegionResult getRankings(String region) {
         String req = (region == null || region.isBlank()) ? GLOBAL : region.toUpperCase();
-        List<RankingRow> list = byRegion.get(req);
-        if (list != null && !list.isEmpty()) {
-            return new RegionResult(req, req, false, Collections.unmodifiableList(list));
+        RankingsIndex index = byRegion.get(req);
+        if (index != null && index.size() > 0) {
+            return new RegionResult(req, req, false, index);
         }
-        List<RankingRow> global = byRegion.getOrDefault(GLOBAL, List.of());
-        return new RegionResult(req, GLOBAL, true, Collections.unmodifiableList(global));
+        RankingsIndex global = byRegion.getOrDefault(GLOBAL, EMPTY);
+        return new RegionResult(req, GLOBAL, true, global);
     }
 
-    /** For future scrapes/updates. */
+    /** For future scrapes/updates. Builds the region's indexes before publishing it. */
     public void putRegion(String region, List<RankingRow> players) {
-        byRegion.put(region.toUpperCase(), new ArrayList<>(players));
+        final String key = region.toUpperCase();
+        byRegion.put(key, RankingsIndex.of(players));
+        history.recordAll(players);
+        for (Consumer<String> l : listeners) l.accept(key);
+    }
+
+    /** Called on the writer's thread after a region is replaced; keep it cheap. */
+    public void addListener(Consumer<String> listener) {
+        listeners.add(Objects.requireNonNull(listener, "listener"));
+    }
+
+    public RatingHistory history() {
+        return history;
     }
 
     public Map<String, List<RankingRow>> snapshot() {
-        return Collections.unmodifiableMap(byRegion);
+        Map<String, List<RankingRow>> out = new HashMap<>();
+        byRegion.forEach((region, index) -> out.put(region, index.rows()));
+        return Collections.unmodifiableMap(out);
     }
 }
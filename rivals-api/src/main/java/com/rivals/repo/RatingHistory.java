@@ -0,0 +1,316 @@
+package com.rivals.repo;
+
+import com.rivals.model.RankingRow;
+import com.rivals.model.RatingPoint;
+import com.rivals.util.Time;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compact in-memory rating time series, one per player, fed by RankingsRepo.putRegion.
+ *
+ * Samples are (second, rating) pairs bit-packed into long[] chunks of up to {@link #CHUNK_SAMPLES}:
+ * - timestamps as delta-of-delta: a regular scrape cadence costs 1 bit per sample
+ * - ratings as zigzag deltas: "unchanged" costs 1 bit, a typical swing ~8 bits
+ * - each sealed chunk keeps its first/last second, so range reads skip whole chunks
+ *
+ * Writes and reads of one player synchronize on that player's series only.
+ * Samples older than the player's newest one are dropped (and counted), as are exact repeats.
+ */
+public class RatingHistory {
+
+    public static final int CHUNK_SAMPLES = 120;
+
+    private final ConcurrentHashMap<String, Series> series = new ConcurrentHashMap<>();
+    private final LongAdder samples = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    /** Record one sample; atMillis is truncated to whole seconds. */
+    public void record(String playerId, long atMillis, int rating) {
+        final Series s = series.computeIfAbsent(playerId, k -> new Series());
+        final boolean added;
+        synchronized (s) {
+            added = s.append(Math.floorDiv(atMillis, 1000L), rating);
+        }
+        (added ? samples : dropped).increment();
+    }
+
+    /** Record every row, stamped with its own updatedAt (or now if that doesn't parse). */
+    public void recordAll(List<RankingRow> rows) {
+        final long now = Time.now();
+        for (RankingRow r : rows) {
+            record(r.playerId(), parseIso(r.updatedAt(), now), r.rating());
+        }
+    }
+
+    public boolean contains(String playerId) {
+        return series.containsKey(playerId);
+    }
+
+    /**
+     * Samples in [fromMillis, toMillis], merged into buckets of equal width so that at most
+     * maxPoints come back. Each point carries the bucket's last rating plus its min/max; when
+     * samples are sparser than buckets this is the raw series.
+     * @return null if the player has no history
+     */
+    public Range range(String playerId, long fromMillis, long toMillis, int maxPoints) {
+        final Series s = series.get(playerId);
+        if (s == null) return null;
+        final long from = Math.floorDiv(fromMillis, 1000L);
+        final long to = Math.floorDiv(toMillis, 1000L);
+        synchronized (s) {
+            if (s.count == 0 && s.sealed.length == 0) return new Range(0, List.of());
+            final long lo = Math.max(from, s.firstSecond());
+            final long hi = Math.min(to, s.lastTs);
+            if (lo > hi) return new Range(0, List.of());
+            final long width = Math.max(1, (hi - lo + maxPoints) / maxPoints); // ceil((hi - lo + 1) / maxPoints)
+            final Downsampler d = new Downsampler(lo, hi, width);
+            for (Chunk c : s.sealed) {
+                if (c.lastTs >= lo && c.firstTs <= hi) decode(c.firstTs, c.firstRating, c.count, c.words, d);
+            }
+            if (s.count > 0 && s.lastTs >= lo && s.headFirstTs <= hi) {
+                decode(s.headFirstTs, s.headFirstRating, s.count, s.words, d);
+            }
+            return new Range(width * 1000L, d.finish());
+        }
+    }
+
+    /** Downsampled points plus the bucket width used, in millis. */
+    public record Range(long bucketMs, List<RatingPoint> points) {}
+
+    public Stats stats() {
+        long chunks = 0, bytes = 0;
+        for (Series s : series.values()) {
+            synchronized (s) {
+                chunks += s.sealed.length + (s.count > 0 ? 1 : 0);
+                bytes += s.footprint();
+            }
+        }
+        return new Stats(series.size(), samples.sum(), dropped.sum(), chunks, bytes);
+    }
+
+    /** bytes = encoded chunk arrays plus per-series/per-chunk object overhead (not the map or keys). */
+    public record Stats(int players, long samples, long dropped, long chunks, long bytes) {}
+
+    /* --------------------------- Encoding --------------------------- */
+
+    private record Chunk(long firstTs, long lastTs, int firstRating, int count, long[] words) {}
+
+    private static final Chunk[] NO_CHUNKS = new Chunk[0];
+
+    /**
+     * A player's series: sealed chunks (oldest first) plus the open head chunk.
+     * Head chunk layout: first sample in plain fields, every later one in words as
+     *   timestamp: '0' dod=0 | '10'+7 bits | '110'+9 bits | '1110'+12 bits | '1111'+32 bits
+     *   rating:    '0' unchanged | '10'+6 bits | '110'+9 bits | '111'+32 bits   (zigzag deltas)
+     */
+    private static final class Series {
+        Chunk[] sealed = NO_CHUNKS;
+        long[] words = new long[1];
+        int bits;
+        int count;
+        long headFirstTs;
+        int headFirstRating;
+        long lastTs = Long.MIN_VALUE;
+        long lastDelta;
+        int lastRating;
+
+        long firstSecond() {
+            return sealed.length > 0 ? sealed[0].firstTs : headFirstTs;
+        }
+
+        boolean append(long ts, int rating) {
+            if (ts < lastTs || (ts == lastTs && rating == lastRating)) return false;
+            if (count == CHUNK_SAMPLES) seal();
+            if (count == 0) {
+                headFirstTs = ts;
+                headFirstRating = rating;
+                lastDelta = 0;
+            } else {
+                final long delta = ts - lastTs;
+                final long dod = delta - lastDelta;
+                if (dod == 0) put(0, 1);
+                else if (dod >= -64 && dod <= 63) put((0b10L << 7) | (dod & 0x7F), 9);
+                else if (dod >= -256 && dod <= 255) put((0b110L << 9) | (dod & 0x1FF), 12);
+                else if (dod >= -2048 && dod <= 2047) put((0b1110L << 12) | (dod & 0xFFF), 16);
+                else {
+                    put(0b1111, 4);
+                    put(dod & 0xFFFFFFFFL, 32);
+                }
+                lastDelta = delta;
+
+                final long z = zigzag(rating - lastRating); // int arithmetic: wraps symmetrically with decode
+                if (z == 0) put(0, 1);
+                else if (z < (1 << 6)) put((0b10L << 6) | z, 8);
+                else if (z < (1 << 9)) put((0b110L << 9) | z, 12);
+                else {
+                    put(0b111, 3);
+                    put(z, 32);
+                }
+            }
+            lastTs = ts;
+            lastRating = rating;
+            count++;
+            return true;
+        }
+
+        private void seal() {
+            final Chunk c = new Chunk(headFirstTs, lastTs, headFirstRating, count, Arrays.copyOf(words, (bits + 63) >>> 6));
+            sealed = Arrays.copyOf(sealed, sealed.length + 1);
+            sealed[sealed.length - 1] = c;
+            words = new long[1];
+            bits = 0;
+            count = 0;
+        }
+
+        /** Append the low n bits of v, most significant first. */
+        private void put(long v, int n) {
+            final int need = (bits + n + 63) >>> 6;
+            if (need > words.length) words = Arrays.copyOf(words, Math.max(need, words.length + (words.length >> 1) + 1));
+            final int word = bits >>> 6;
+            final int used = bits & 63;
+            final int free = 64 - used;
+            if (n <= free) {
+                words[word] |= (v & mask(n)) << (free - n);
+            } else {
+                words[word] |= (v & mask(n)) >>> (n - free);
+                words[word + 1] |= (v & mask(n - free)) << (64 - (n - free));
+            }
+            bits += n;
+        }
+
+        long footprint() {
+            long b = 64 + 16 + 8L * words.length + 16 + 4L * sealed.length;
+            for (Chunk c : sealed) b += 40 + 16 + 8L * c.words.length;
+            return b;
+        }
+    }
+
+    /** Bit reader over one chunk. */
+    private static final class Bits {
+        private final long[] words;
+        private int pos;
+
+        Bits(long[] words) {
+            this.words = words;
+        }
+
+        long take(int n) {
+            final int word = pos >>> 6;
+            final int used = pos & 63;
+            final int avail = 64 - used;
+            long v;
+            if (n <= avail) {
+                v = (words[word] >>> (avail - n)) & mask(n);
+            } else {
+                v = ((words[word] & mask(avail)) << (n - avail)) | (words[word + 1] >>> (64 - (n - avail)));
+            }
+            pos += n;
+            return v;
+        }
+
+        /** Number of leading 1 bits, up to max (consuming them and the terminating 0 if present). */
+        int ones(int max) {
+            int k = 0;
+            while (k < max && take(1) == 1) k++;
+            return k;
+        }
+    }
+
+    private static void decode(long firstTs, int firstRating, int count, long[] words, Downsampler out) {
+        final Bits in = new Bits(words);
+        long ts = firstTs;
+        long delta = 0;
+        int rating = firstRating;
+        out.accept(ts, rating);
+        for (int i = 1; i < count; i++) {
+            final long dod = switch (in.ones(4)) {
+                case 0 -> 0;
+                case 1 -> signExtend(in.take(7), 7);
+                case 2 -> signExtend(in.take(9), 9);
+                case 3 -> signExtend(in.take(12), 12);
+                default -> signExtend(in.take(32), 32);
+            };
+            delta += dod;
+            ts += delta;
+            final long z = switch (in.ones(3)) {
+                case 0 -> 0;
+                case 1 -> in.take(6);
+                case 2 -> in.take(9);
+                default -> in.take(32);
+            };
+            rating += unzigzag((int) z);
+            out.accept(ts, rating);
+        }
+    }
+
+    /** Streams decoded samples into fixed-width buckets aligned at lo. */
+    private static final class Downsampler {
+        private final long lo, hi, width;
+        private final List<RatingPoint> points = new ArrayList<>();
+        private long bucket = Long.MIN_VALUE;
+        private long at;
+        private int last, min, max;
+
+        Downsampler(long lo, long hi, long width) {
+            this.lo = lo;
+            this.hi = hi;
+            this.width = width;
+        }
+
+        void accept(long ts, int rating) {
+            if (ts < lo || ts > hi) return;
+            final long b = (ts - lo) / width;
+            if (b != bucket) {
+                flush();
+                bucket = b;
+                min = max = rating;
+            }
+            at = ts;
+            last = rating;
+            min = Math.min(min, rating);
+            max = Math.max(max, rating);
+        }
+
+        List<RatingPoint> finish() {
+            flush();
+            return points;
+        }
+
+        private void flush() {
+            if (bucket != Long.MIN_VALUE) points.add(new RatingPoint(at * 1000L, last, min, max));
+        }
+    }
+
+    private static long mask(int n) {
+        return n == 64 ? -1L : (1L << n) - 1;
+    }
+
+    private static long signExtend(long v, int n) {
+        return (v << (64 - n)) >> (64 - n);
+    }
+
+    /** Zigzag an int delta into an unsigned 32-bit value. */
+    private static long zigzag(int v) {
+        return Integer.toUnsignedLong((v << 1) ^ (v >> 31));
+    }
+
+    private static int unzigzag(int v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    private static long parseIso(String iso, long fallback) {
+        if (iso == null || iso.isEmpty()) return fallback;
+        try {
+            return Instant.parse(iso).toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return fallback;
+        }
+    }
+}
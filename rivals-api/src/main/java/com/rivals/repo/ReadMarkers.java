@@ -0,0 +1,224 @@
+package com.rivals.repo;
+
+import com.rivals.model.ThreadDto;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-user read markers and unread counts, as watermarks on the ThreadRepo version stream.
+ * - Per thread: the versions of its comments, appended by a repo listener (already ascending),
+ *   so "comments newer than v" is one binary search.
+ * - Per user: a visit watermark (everything up to it is read, set by markAllRead) plus sparse
+ *   per-thread marks above it, kept as sorted parallel int[] ordinal / long[] version arrays.
+ *   Marks at or below the watermark are dropped, so a user costs O(threads read since the last
+ *   mark-all) rather than O(threads).
+ * - Users with no markers have read nothing and cost nothing.
+ * - Deleted comments still count as new: the per-thread list is append-only.
+ * - Past maxMarksPerUser the oldest mark is evicted, so that thread counts from the watermark again.
+ */
+public class ReadMarkers {
+
+    /** Watermark of a user who has read nothing (the bootstrap's version 0 comments count too). */
+    private static final long NEVER = -1;
+    private static final int[] NO_ORDINALS = new int[0];
+    private static final long[] NO_VERSIONS = new long[0];
+
+    private final ThreadRepo repo;
+    private final int maxMarksPerUser;
+    private final ConcurrentHashMap<String, ThreadState> threads = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Marks> users = new ConcurrentHashMap<>();
+    private final AtomicInteger nextOrdinal = new AtomicInteger();
+
+    public ReadMarkers(ThreadRepo repo, int maxMarksPerUser) {
+        if (maxMarksPerUser < 1) throw new IllegalArgumentException("maxMarksPerUser must be >= 1");
+        this.repo = repo;
+        this.maxMarksPerUser = maxMarksPerUser;
+        synchronized (repo) { // writers hold the repo monitor: nothing slips between the two
+            for (ThreadDto t : repo.allThreadsUnsafe()) {
+                ThreadState s = state(t.id());
+                for (int i = 0; i < t.postCount(); i++) s.append(0); // history unknown: older than any watermark
+            }
+            repo.addListener(this::onChange);
+        }
+    }
+
+    /** Runs on the writer's thread (under repo locks): appends only. */
+    private void onChange(ThreadChange change) {
+        switch (change.type()) {
+            case THREAD_CREATED -> state(change.thread().id());
+            case COMMENT_ADDED -> state(change.thread().id()).append(change.version());
+            default -> { }
+        }
+    }
+
+    /* --------------------------- Markers --------------------------- */
+
+    /**
+     * Mark everything currently in the thread as read for this user.
+     * @return false if the thread is unknown
+     */
+    public boolean markRead(String userId, String threadId) {
+        final ThreadState t = threads.get(threadId);
+        if (t == null) return false;
+        final long upTo = t.lastVersion();
+        final Marks m = users.computeIfAbsent(userId, k -> new Marks());
+        synchronized (m) {
+            m.put(t.ordinal, upTo, maxMarksPerUser);
+        }
+        return true;
+    }
+
+    /** Mark every thread as read: moves the user's watermark to the current repo version. */
+    public void markAllRead(String userId) {
+        final long now = repo.version();
+        final Marks m = users.computeIfAbsent(userId, k -> new Marks());
+        synchronized (m) {
+            m.raiseVisit(now);
+        }
+    }
+
+    /** Unread comments per thread, in page order; one user lookup, one binary search per thread. */
+    public Map<String, Integer> unread(String userId, List<ThreadDto> page) {
+        final Map<String, Integer> out = new LinkedHashMap<>(page.size() * 2);
+        final Marks m = users.get(userId);
+        if (m == null) {
+            for (ThreadDto t : page) {
+                final ThreadState s = threads.get(t.id());
+                out.put(t.id(), s == null ? 0 : s.newerThan(NEVER));
+            }
+            return out;
+        }
+        synchronized (m) {
+            for (ThreadDto t : page) {
+                final ThreadState s = threads.get(t.id());
+                out.put(t.id(), s == null ? 0 : s.newerThan(m.readUpTo(s.ordinal)));
+            }
+        }
+        return out;
+    }
+
+    public UnreadStats stats() {
+        long marks = 0, bytes = 0;
+        for (Marks m : users.values()) {
+            synchronized (m) {
+                marks += m.size;
+                bytes += 12L * m.ordinals.length;
+            }
+        }
+        long comments = 0;
+        for (ThreadState s : threads.values()) comments += s.size;
+        return new UnreadStats(users.size(), marks, bytes, threads.size(), comments);
+    }
+
+    /** Sizes; markerArrayBytes is the payload of the per-user arrays (excluding headers). */
+    public record UnreadStats(int users, long marks, long markerArrayBytes, int threads, long comments) {}
+
+    /* --------------------------- Internals --------------------------- */
+
+    private ThreadState state(String threadId) {
+        return threads.computeIfAbsent(threadId, k -> new ThreadState(nextOrdinal.getAndIncrement()));
+    }
+
+    /** Comment versions of one thread. Single writer (repo listener); readers are lock-free. */
+    private static final class ThreadState {
+        final int ordinal;
+        volatile long[] versions = new long[4];
+        volatile int size;
+
+        ThreadState(int ordinal) {
+            this.ordinal = ordinal;
+        }
+
+        void append(long version) {
+            long[] v = versions;
+            if (size == v.length) versions = v = Arrays.copyOf(v, v.length * 2);
+            v[size] = version;
+            size = size + 1; // publishes the element (and a grown array) to readers
+        }
+
+        long lastVersion() {
+            final int n = size;
+            return n == 0 ? 0 : versions[n - 1];
+        }
+
+        /** Number of comments with version > v. */
+        int newerThan(long v) {
+            final int n = size;
+            final long[] a = versions;
+            int lo = 0, hi = n;
+            while (lo < hi) {
+                final int mid = (lo + hi) >>> 1;
+                if (a[mid] <= v) lo = mid + 1;
+                else hi = mid;
+            }
+            return n - lo;
+        }
+    }
+
+    /** One user's watermark and per-thread marks above it. Guarded by its own monitor. */
+    private static final class Marks {
+        long visit = NEVER;
+        int[] ordinals = NO_ORDINALS;
+        long[] versions = NO_VERSIONS;
+        int size;
+
+        long readUpTo(int ordinal) {
+            final int i = Arrays.binarySearch(ordinals, 0, size, ordinal);
+            return i >= 0 ? Math.max(visit, versions[i]) : visit;
+        }
+
+        void put(int ordinal, long version, int max) {
+            if (version <= visit) return;
+            int i = Arrays.binarySearch(ordinals, 0, size, ordinal);
+            if (i >= 0) {
+                versions[i] = Math.max(versions[i], version);
+                return;
+            }
+            if (size == max) {
+                evictOldest();
+                i = Arrays.binarySearch(ordinals, 0, size, ordinal);
+            }
+            i = -i - 1;
+            if (size == ordinals.length) {
+                final int cap = Math.min(max, Math.max(4, size + (size >> 1)));
+                ordinals = Arrays.copyOf(ordinals, cap);
+                versions = Arrays.copyOf(versions, cap);
+            }
+            System.arraycopy(ordinals, i, ordinals, i + 1, size - i);
+            System.arraycopy(versions, i, versions, i + 1, size - i);
+            ordinals[i] = ordinal;
+            versions[i] = version;
+            size++;
+        }
+
+        void raiseVisit(long version) {
+            if (version <= visit) return;
+            visit = version;
+            int w = 0;
+            for (int r = 0; r < size; r++) {
+                if (versions[r] > visit) {
+                    ordinals[w] = ordinals[r];
+                    versions[w++] = versions[r];
+                }
+            }
+            size = w;
+            if (size == 0) {
+                ordinals = NO_ORDINALS;
+                versions = NO_VERSIONS;
+            }
+        }
+
+        private void evictOldest() {
+            int oldest = 0;
+            for (int i = 1; i < size; i++) if (versions[i] < versions[oldest]) oldest = i;
+            System.arraycopy(ordinals, oldest + 1, ordinals, oldest, size - oldest - 1);
+            System.arraycopy(versions, oldest + 1, versions, oldest, size - oldest - 1);
+            size--;
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package com.rivals.repo;
+
+import com.rivals.model.CommentDto;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Cold storage for the comments of inactive threads.
+ *
+ * Each archive sweep produces one segment file holding many threads. Inside a segment every
+ * thread is one block laid out column by column (createdAt deltas, likes, edit offsets, ids,
+ * authors, bodies), so a revive is a single positioned read + sequential decode.
+ *
+ * Heap kept per archived thread: one {@link Loc}. Heap kept per archived comment: one long
+ * (hash + block ordinal, sorted per segment) so likeComment can still find its thread.
+ *
+ * Index mutations and reads happen under the owning ThreadRepo's monitor; only {@link #flush}
+ * and the activity feed's {@link #read} run outside it (a read whose block is released
+ * meanwhile throws, and the caller looks again). The repo itself is in-memory, so segments don't outlive the process: the
+ * directory is wiped on startup.
+ */
+public class ThreadArchive {
+
+    private static final int MAGIC = 0x52565347; // "RVSG"
+    private static final int FORMAT_VERSION = 2;
+    private static final long OWNER_MASK = (1L << 20) - 1;
+
+    private final Path dir;
+    private final AtomicLong segmentSeq = new AtomicLong();
+    private final AtomicLong bytesOnDisk = new AtomicLong();
+
+    /** threadId -> where its newest archived block lives */
+    private final ConcurrentHashMap<String, Loc> index = new ConcurrentHashMap<>();
+    private final CopyOnWriteArrayList<Segment> segments = new CopyOnWriteArrayList<>();
+
+    public ThreadArchive(Path dir) {
+        this.dir = dir;
+        try {
+            Files.createDirectories(dir);
+            try (Stream<Path> old = Files.list(dir)) {
+                for (Path p : (Iterable<Path>) old::iterator) {
+                    if (p.getFileName().toString().startsWith("seg-")) Files.deleteIfExists(p);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot prepare archive dir " + dir, e);
+        }
+    }
+
+    /* --------------------------- Write path --------------------------- */
+
+    /** Accumulates thread blocks in memory; {@link #seal} registers and flushes them. */
+    public final class SegmentBuilder {
+        private final ByteArrayOutputStream buf = new ByteArrayOutputStream(64 * 1024);
+        private final DataOutputStream out = new DataOutputStream(buf);
+        private final List<String> threadIds = new ArrayList<>();
+        private final List<int[]> blocks = new ArrayList<>(); // {offset, length}
+        private final List<long[]> commentHashes = new ArrayList<>();
+
+        private SegmentBuilder() {
+            try {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /** Append one thread's live comments (any order; stored as given; no tombstones). */
+        public void add(String threadId, List<CommentDto> comments) {
+            final int start = buf.size();
+            final int n = comments.size();
+            try {
+                out.writeUTF(threadId);
+                out.writeInt(n);
+                long prev = 0;
+                for (CommentDto c : comments) {
+                    writeVarLong(out, zigzag(c.createdAt() - prev));
+                    prev = c.createdAt();
+                }
+                for (CommentDto c : comments) writeVarLong(out, c.likes());
+                for (CommentDto c : comments) writeVarLong(out, c.editedAt() == null ? 0 : c.editedAt() - c.createdAt() + 1);
+                for (CommentDto c : comments) out.writeUTF(c.id());
+                for (CommentDto c : comments) {
+                    out.writeBoolean(c.authorId() != null);
+                    if (c.authorId() != null) out.writeUTF(c.authorId());
+                }
+                for (CommentDto c : comments) {
+                    byte[] b = c.body().getBytes(StandardCharsets.UTF_8);
+                    writeVarLong(out, b.length);
+                    out.write(b);
+                }
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            long[] hashes = new long[n];
+            for (int i = 0; i < n; i++) hashes[i] = hash(comments.get(i).id());
+            threadIds.add(threadId);
+            blocks.add(new int[]{start, buf.size() - start});
+            commentHashes.add(hashes);
+        }
+
+        public int threadCount() {
+            return threadIds.size();
+        }
+    }
+
+    public SegmentBuilder newSegment() {
+        return new SegmentBuilder();
+    }
+
+    /**
+     * Make the builder's threads readable (served from the in-memory buffer until the
+     * file write completes) and point the index at them. Cheap; call under the repo monitor.
+     */
+    public Segment seal(SegmentBuilder b) {
+        final Path file = dir.resolve(String.format("seg-%06d.dat", segmentSeq.incrementAndGet()));
+        final Segment seg = new Segment(file, b.buf.toByteArray(), b.threadIds.toArray(new String[0]), b.commentHashes);
+        segments.add(seg);
+        for (int i = 0; i < b.threadIds.size(); i++) {
+            int[] blk = b.blocks.get(i);
+            release(index.put(b.threadIds.get(i), new Loc(seg, blk[0], blk[1])));
+        }
+        return seg;
+    }
+
+    /** Write a sealed segment to disk and release its buffer. Call outside the repo monitor. */
+    public void flush(Segment seg) {
+        final byte[] data = seg.pending;
+        if (data == null || seg.live.get() == 0) return;
+        try {
+            Files.write(seg.file, data);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write segment " + seg.file, e);
+        }
+        bytesOnDisk.addAndGet(data.length);
+        seg.pending = null;
+    }
+
+    /* --------------------------- Read path --------------------------- */
+
+    public boolean contains(String threadId) {
+        return index.containsKey(threadId);
+    }
+
+    /** Decode an archived thread's comments, or null if not archived. */
+    public List<CommentDto> read(String threadId) {
+        final Loc loc = index.get(threadId);
+        if (loc == null) return null;
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(loc.segment.bytes(loc.offset, loc.length)))) {
+            final String id = in.readUTF();
+            final int n = in.readInt();
+            final long[] createdAt = new long[n];
+            long prev = 0;
+            for (int i = 0; i < n; i++) {
+                prev += unzigzag(readVarLong(in));
+                createdAt[i] = prev;
+            }
+            final int[] likes = new int[n];
+            for (int i = 0; i < n; i++) likes[i] = (int) readVarLong(in);
+            final long[] editedAfter = new long[n]; // 0 = never edited, else editedAt - createdAt + 1
+            for (int i = 0; i < n; i++) editedAfter[i] = readVarLong(in);
+            final String[] ids = new String[n];
+            for (int i = 0; i < n; i++) ids[i] = in.readUTF();
+            final String[] authors = new String[n];
+            for (int i = 0; i < n; i++) authors[i] = in.readBoolean() ? in.readUTF() : null;
+            final List<CommentDto> out = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                byte[] b = new byte[(int) readVarLong(in)];
+                in.readFully(b);
+                Long editedAt = editedAfter[i] == 0 ? null : createdAt[i] + editedAfter[i] - 1;
+                out.add(new CommentDto(ids[i], id, authors[i], new String(b, StandardCharsets.UTF_8),
+                        createdAt[i], likes[i], editedAt, false));
+            }
+            return out;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Corrupt archive block for " + threadId, e);
+        }
+    }
+
+    /** Thread whose archived block contains this comment id, or null. May be stale; callers re-check. */
+    public String threadOfComment(String commentId) {
+        final long prefix = hash(commentId) & ~OWNER_MASK;
+        for (Segment s : segments) {
+            int i = Arrays.binarySearch(s.keys, prefix);
+            if (i < 0) i = -i - 1;
+            for (; i < s.keys.length && (s.keys[i] & ~OWNER_MASK) == prefix; i++) {
+                String threadId = s.threadIds[(int) (s.keys[i] & OWNER_MASK)];
+                Loc loc = index.get(threadId);
+                if (loc != null && loc.segment == s) return threadId;
+            }
+        }
+        return null;
+    }
+
+    /** Drop a thread's archived copy (it was revived and changed, so the block is stale). */
+    public void forget(String threadId) {
+        release(index.remove(threadId));
+    }
+
+    public void clear() {
+        index.clear();
+        segments.clear();
+    }
+
+    public Stats stats() {
+        return new Stats(index.size(), segments.size(), bytesOnDisk.get());
+    }
+
+    public record Stats(int archivedThreads, int segments, long bytesOnDisk) {}
+
+    /* --------------------------- Internals --------------------------- */
+
+    private record Loc(Segment segment, int offset, int length) {}
+
+    /** A block was superseded; drop its segment (and file) once nothing live points into it. */
+    private void release(Loc old) {
+        if (old == null || old.segment.live.decrementAndGet() > 0) return;
+        segments.remove(old.segment);
+        try {
+            if (old.segment.pending == null) bytesOnDisk.addAndGet(-Files.size(old.segment.file));
+            Files.deleteIfExists(old.segment.file);
+        } catch (IOException ignored) {
+            // a leftover file is harmless; it's wiped on next startup
+        }
+    }
+
+    /**
+     * One segment file plus its in-heap comment lookup column: a sorted long[] whose high 44 bits
+     * are the comment-id hash and low 20 bits the owning block ordinal.
+     */
+    public static final class Segment {
+        private final Path file;
+        private final String[] threadIds;
+        private final long[] keys;
+        private final AtomicInteger live;
+        private volatile byte[] pending;
+
+        private Segment(Path file, byte[] data, String[] threadIds, List<long[]> perThreadHashes) {
+            if (threadIds.length > OWNER_MASK + 1) {
+                throw new IllegalArgumentException("Too many threads in one segment: " + threadIds.length);
+            }
+            this.file = file;
+            this.pending = data;
+            this.threadIds = threadIds;
+            this.live = new AtomicInteger(threadIds.length);
+
+            int total = 0;
+            for (long[] h : perThreadHashes) total += h.length;
+            this.keys = new long[total];
+            int k = 0;
+            for (int t = 0; t < perThreadHashes.size(); t++) {
+                for (long h : perThreadHashes.get(t)) keys[k++] = (h & ~OWNER_MASK) | t;
+            }
+            Arrays.sort(keys);
+        }
+
+        private byte[] bytes(int offset, int length) throws IOException {
+            final byte[] mem = pending;
+            if (mem != null) return Arrays.copyOfRange(mem, offset, offset + length);
+            try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "r")) {
+                byte[] b = new byte[length];
+                raf.seek(offset);
+                raf.readFully(b);
+                return b;
+            }
+        }
+    }
+
+    /** 64-bit FNV-1a over the id's chars. */
+    private static long hash(String s) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    private static long zigzag(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    private static long unzigzag(long v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    private static void writeVarLong(DataOutputStream out, long v) throws IOException {
+        while ((v & ~0x7FL) != 0) {
+            out.writeByte((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.writeByte((int) v);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long v = 0;
+        int shift = 0;
+        while (true) {
+            int b = in.readUnsignedByte();
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+            shift += 7;
+        }
+    }
+}
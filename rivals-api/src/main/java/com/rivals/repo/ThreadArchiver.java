@@ -0,0 +1,60 @@
+package com.rivals.repo;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import com.rivals.util.Time;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Periodically moves threads idle for longer than rivals.archive.idle-after to disk.
+ * Enabled with rivals.archive.enabled=true (checked at runtime, so AOT builds honour it too).
+ */
+@Component
+public class ThreadArchiver {
+
+    private final ThreadRepo repo;
+    private final ThreadArchive archive; // null when disabled
+    private final Duration idleAfter;
+    private final int revivedCacheSize;
+    private final int batchThreads;
+
+    public ThreadArchiver(
+            ThreadRepo repo,
+            @Value("${rivals.archive.enabled:false}") boolean enabled,
+            @Value("${rivals.archive.dir}") Path dir,
+            @Value("${rivals.archive.idle-after:P3D}") Duration idleAfter,
+            @Value("${rivals.archive.revived-cache-size:256}") int revivedCacheSize,
+            @Value("${rivals.archive.batch-threads:1024}") int batchThreads
+    ) {
+        this.repo = repo;
+        this.archive = enabled ? new ThreadArchive(dir) : null;
+        this.idleAfter = idleAfter;
+        this.revivedCacheSize = revivedCacheSize;
+        this.batchThreads = batchThreads;
+    }
+
+    @PostConstruct
+    public void attach() {
+        if (archive != null) repo.attachArchive(archive, revivedCacheSize);
+    }
+
+    /**
+     * One sweep: archive in batches (one segment each) so the repo monitor is held briefly.
+     * Each batch resumes where the last one stopped, so the sweep walks the idle range once.
+     */
+    @Scheduled(fixedDelayString = "${rivals.archive.sweep-interval-ms:60000}")
+    public void sweep() {
+        if (archive == null) return;
+        final long cutoff = Time.now() - idleAfter.toMillis();
+        String after = null;
+        do {
+            final ThreadRepo.ArchiveBatch batch = repo.archiveIdle(cutoff, batchThreads, after);
+            if (batch.segment() != null) archive.flush(batch.segment());
+            after = batch.resumeAfter();
+        } while (after != null);
+    }
+}
@@ -0,0 +1,28 @@
+package com.rivals.repo;
+
+import com.rivals.model.CommentDto;
+import com.rivals.model.ThreadDto;
+
+/**
+ * One entry of the ThreadRepo change stream.
+ * - version: strictly increasing, gap-free sequence number assigned by the leader.
+ * - thread:  post-change thread state (THREAD_CREATED, COMMENT_ADDED, COMMENT_DELETED), else null.
+ * - comment: post-change comment state (all COMMENT_* types; a tombstone for COMMENT_DELETED), else null.
+ * - at:      leader wall-clock millis when the change was committed.
+ */
+public record ThreadChange(
+        long version,
+        Type type,
+        ThreadDto thread,
+        CommentDto comment,
+        long at
+) {
+
+    public enum Type {
+        THREAD_CREATED,
+        COMMENT_ADDED,
+        COMMENT_LIKED,
+        COMMENT_EDITED,
+        COMMENT_DELETED
+    }
+}
@@ -0,0 +1,83 @@
+package com.rivals.repo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Bounded, ordered in-memory change log for ThreadRepo.
+ * - Appended by the leader while it holds its own monitor, so entries arrive in version order.
+ * - Followers poll with the last version they applied; {@link #awaitAfter} blocks until something newer lands.
+ * - Old entries are overwritten once capacity is reached; a follower that falls behind that far
+ *   gets null from {@link #readAfter} and must re-bootstrap from {@link ThreadRepo#snapshot()}.
+ */
+public class ThreadChangeLog {
+
+    private final ThreadChange[] ring;
+
+    /** version of the newest appended entry (0 = empty) */
+    private long head;
+
+    /** entries at or below this version were never retained here (set by resetTo) */
+    private long floor;
+
+    public ThreadChangeLog(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be > 0");
+        this.ring = new ThreadChange[capacity];
+    }
+
+    public synchronized void append(ThreadChange change) {
+        if (change.version() != head + 1) {
+            throw new IllegalStateException("Out-of-order change: expected " + (head + 1) + " got " + change.version());
+        }
+        ring[(int) (change.version() % ring.length)] = change;
+        head = change.version();
+        notifyAll();
+    }
+
+    /** Drop all retained entries and continue numbering after the given version (follower re-bootstrap). */
+    public synchronized void resetTo(long version) {
+        Arrays.fill(ring, null);
+        head = version;
+        floor = version;
+        notifyAll();
+    }
+
+    /** Newest version appended so far. */
+    public synchronized long head() {
+        return head;
+    }
+
+    /** Oldest version still retained (head + 1 when empty). */
+    public synchronized long tail() {
+        return Math.max(floor + 1, head - ring.length + 1);
+    }
+
+    /**
+     * Entries with version > afterVersion, oldest first, at most max of them.
+     * @return empty list if caught up; null if afterVersion has already been evicted
+     */
+    public synchronized List<ThreadChange> readAfter(long afterVersion, int max) {
+        if (afterVersion >= head) return List.of();
+        if (afterVersion + 1 < tail()) return null;
+
+        final long end = Math.min(head, afterVersion + max);
+        final List<ThreadChange> out = new ArrayList<>((int) (end - afterVersion));
+        for (long v = afterVersion + 1; v <= end; v++) {
+            out.add(ring[(int) (v % ring.length)]);
+        }
+        return out;
+    }
+
+    /** Block up to timeoutMs for an entry newer than afterVersion; then behave like readAfter. */
+    public synchronized List<ThreadChange> awaitAfter(long afterVersion, int max, long timeoutMs)
+            throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + timeoutMs;
+        while (head <= afterVersion) {
+            long left = deadline - System.currentTimeMillis();
+            if (left <= 0) return List.of();
+            wait(left);
+        }
+        return readAfter(afterVersion, max);
+    }
+}
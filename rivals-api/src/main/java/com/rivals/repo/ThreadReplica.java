@@ -0,0 +1,150 @@
+package com.rivals.repo;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import com.rivals.util.Time;
+
+import java.util.List;
+
+/**
+ * Read-only follower of a leader ThreadRepo.
+ * - Bootstraps from a leader snapshot, then tails the leader's change log on a daemon thread.
+ * - Re-bootstraps if it falls further behind than the change log retains. A bootstrap fills a
+ *   fresh ThreadRepo and swaps it in when complete, so readers never see a half-restored copy.
+ * - Compacts replicated tombstones itself while idle.
+ * - Exposes replication lag (versions and millis) and a bounded wait for read-your-writes.
+ *
+ * Always registered (see RepoConfig) but idle unless rivals.replica.enabled=true, so the
+ * switch is read at runtime even in AOT builds. The leader and follower share a JVM here,
+ * but the follower only talks to the leader through snapshot() and changeLog().
+ */
+public class ThreadReplica {
+
+    private static final int BATCH = 512;
+    private static final long POLL_MS = 250;
+    private static final int COMPACTION_BATCH = 1024;
+    /** nothing tails the follower's own change log */
+    private static final int FOLLOWER_LOG_CAPACITY = 1;
+
+    private final ThreadRepo leader;
+    /** replaced, never refilled in place, by each bootstrap */
+    private volatile ThreadRepo local = new ThreadRepo(FOLLOWER_LOG_CAPACITY);
+    private final boolean enabled;
+    private final long readWaitMs;
+
+    /** leader commit time of the newest applied change */
+    private volatile long lastAppliedAt;
+    private volatile long resyncs;
+    private volatile boolean running;
+    private Thread worker;
+
+    public ThreadReplica(ThreadRepo leader, boolean enabled, long readWaitMs) {
+        this.leader = leader;
+        this.enabled = enabled;
+        this.readWaitMs = readWaitMs;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) return;
+        bootstrap();
+        running = true;
+        worker = new Thread(this::run, "thread-replica");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (worker != null) worker.interrupt();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** The current follower copy (a resync replaces it). Callers must treat it as read-only. */
+    public ThreadRepo repo() {
+        return local;
+    }
+
+    public long appliedVersion() {
+        return local.version();
+    }
+
+    /**
+     * Wait (up to the configured read wait) until this follower has applied minVersion.
+     * @return true if the follower can serve a read that must observe minVersion
+     */
+    public boolean awaitVersion(long minVersion) {
+        if (local.version() >= minVersion) return true;
+        final long deadline = System.currentTimeMillis() + readWaitMs;
+        synchronized (this) {
+            while (local.version() < minVersion) {
+                long left = deadline - System.currentTimeMillis();
+                if (left <= 0) return false;
+                try {
+                    wait(left);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    public Lag lag() {
+        final long leaderVersion = leader.version();
+        final long applied = local.version();
+        final long behind = Math.max(0, leaderVersion - applied);
+        final long lagMs = behind == 0 ? 0 : Math.max(0, Time.now() - lastAppliedAt);
+        return new Lag(leaderVersion, applied, behind, lagMs, resyncs);
+    }
+
+    /** Replication lag as seen by this follower. */
+    public record Lag(long leaderVersion, long appliedVersion, long behindVersions, long lagMs, long resyncs) {}
+
+    /* --------------------------- Internals --------------------------- */
+
+    private void run() {
+        final ThreadChangeLog log = leader.changeLog();
+        while (running) {
+            try {
+                final ThreadRepo local = this.local;
+                List<ThreadChange> batch = log.awaitAfter(local.version(), BATCH, POLL_MS);
+                if (batch == null) {
+                    resyncs++;
+                    bootstrap();
+                    continue;
+                }
+                for (ThreadChange c : batch) {
+                    local.apply(c);
+                    lastAppliedAt = c.at();
+                }
+                if (!batch.isEmpty()) {
+                    synchronized (this) {
+                        notifyAll();
+                    }
+                } else {
+                    local.compactTombstones(COMPACTION_BATCH); // idle: drop replicated tombstones
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void bootstrap() {
+        ThreadRepo.Snapshot s = leader.snapshot();
+        final ThreadRepo fresh = new ThreadRepo(FOLLOWER_LOG_CAPACITY);
+        fresh.restore(s);
+        local = fresh;
+        lastAppliedAt = Time.now();
+        synchronized (this) {
+            notifyAll();
+        }
+    }
+}
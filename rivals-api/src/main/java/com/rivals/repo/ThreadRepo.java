@@ -0,0 +1,871 @@
+package com.rivals.repo;
+
+import com.rivals.model.ActivityItem;
+import com.rivals.model.CommentDto;
+import com.rivals.model.PageActivity;
+import com.rivals.model.PageComment;
+import com.rivals.model.PageThread;
+import com.rivals.model.ThreadDto;
+import com.rivals.util.CursorCodec;
+import com.rivals.util.Ids;
+import com.rivals.util.Time;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory repository for threads & comments.
+ * - Threads ordered by lastActivityAt (DESC) using a descending view of a time-based key.
+ * - Comments stored per-thread in a NavigableMap keyed by composite "%013d#%s".
+ * - Cursors are signed {@link CursorCodec} cursors naming the last composite key served; comment
+ *   cursors are bound to their thread.
+ * - Every mutation is assigned a version and appended to a {@link ThreadChangeLog};
+ *   followers replay it via {@link #apply(ThreadChange)} to keep a read-only copy.
+ * - With a {@link ThreadArchive} attached, comments of idle threads are moved to disk and
+ *   revived lazily on read; thread headers (threads/threadOrder) stay resident so listing
+ *   never touches disk.
+ * - Each author's threads and comments are indexed as compact id references
+ *   ({@link AuthorActivity}) for the per-user activity feed.
+ * - Edits and deletes take a per-thread stripe lock only; deletes leave tombstones that
+ *   listComments skips and {@link #compactTombstones} removes in small batches.
+ */
+public class ThreadRepo {
+
+    private static final int DEFAULT_CHANGE_LOG_CAPACITY = 65_536;
+    private static final int STRIPES = 64;
+    private static final int COMPACTION_STEP = 256;
+    private static final int ARCHIVE_SCAN_FACTOR = 8; // threadOrder entries visited per evicted thread, at most
+
+    /** id -> thread */
+    private final ConcurrentHashMap<String, ThreadDto> threads = new ConcurrentHashMap<>();
+
+    /** threadId -> ordered comments (by createdAt asc) */
+    private final ConcurrentHashMap<String, NavigableMap<String, CommentDto>> commentsByThread =
+            new ConcurrentHashMap<>();
+
+    /** commentId -> (threadId, compositeKey) for fast locate/like */
+    private final ConcurrentHashMap<String, CommentLocator> commentIndex = new ConcurrentHashMap<>();
+
+    /** composite "%013d#<threadId>" (lastActivityAt) -> threadId (ascending map, read via descending view) */
+    private final ConcurrentSkipListMap<String, String> threadOrder = new ConcurrentSkipListMap<>();
+
+    /** ordered change stream consumed by followers */
+    private final ThreadChangeLog changeLog;
+
+    /** version of the last applied mutation; written under the monitor, read lock-free */
+    private volatile long version;
+
+    /** optional cold storage for idle threads' comments */
+    private volatile ThreadArchive archive;
+
+    /** revived threadId -> last access millis; small LRU bounded by revivedCacheSize */
+    private final ConcurrentHashMap<String, Long> revived = new ConcurrentHashMap<>();
+    private int revivedCacheSize;
+    private long revives;
+
+    /**
+     * Per-thread write locks (striped by threadId). Lock order: repo monitor -> stripe -> changeLog.
+     * Edits/deletes/compaction take only a stripe, so they never queue behind the repo monitor.
+     */
+    private final Object[] stripes = new Object[STRIPES];
+
+    /** change subscribers (notification outbox, ...); invoked under the writer's locks, must not block */
+    private final List<Consumer<ThreadChange>> listeners = new CopyOnWriteArrayList<>();
+
+    /** authorId -> references to the threads and comments they created; written under the monitor */
+    private final AuthorActivity activity = new AuthorActivity();
+
+    /** threads holding at least one tombstone, for the compactor */
+    private final Set<String> tombstoned = ConcurrentHashMap.newKeySet();
+    private final AtomicLong compacted = new AtomicLong();
+
+    public ThreadRepo() {
+        this(DEFAULT_CHANGE_LOG_CAPACITY);
+    }
+
+    public ThreadRepo(int changeLogCapacity) {
+        this.changeLog = new ThreadChangeLog(changeLogCapacity);
+        for (int i = 0; i < STRIPES; i++) stripes[i] = new Object();
+    }
+
+    private static String compositeKey(long epochMs, String ulidOrId) {
+        return String.format("%013d#%s", epochMs, ulidOrId);
+    }
+
+    /** Index a newly created thread / comment under its author; ids are ULIDs from {@link Ids}. */
+    private void indexActivity(String authorId, String id, boolean thread) {
+        if (authorId == null || authorId.isBlank()) return;
+        final Ids.Id ref = Ids.Id.parse(id);
+        activity.add(authorId, ref.hi(), ref.lo(), thread);
+    }
+
+    /** Composite key a decoded cursor points after, or null for the first page. */
+    private static String startKey(CursorCodec.Cursor after, CursorCodec.Mode mode) {
+        if (after == null) return null;
+        checkMode(after, mode);
+        return compositeKey(after.keyTime(), after.keyId());
+    }
+
+    private static void checkMode(CursorCodec.Cursor after, CursorCodec.Mode mode) {
+        if (after.mode() != mode) throw new CursorCodec.InvalidCursorException("Cursor is for another listing");
+    }
+
+    /** Cursor naming a composite key, stamped with the version the page was read at. */
+    private static String cursorAfter(String compositeKey, CursorCodec.Mode mode, String scope, int limit, long readAt) {
+        return CursorCodec.encode(mode, scope, limit, readAt,
+                Long.parseLong(compositeKey, 0, 13, 10), compositeKey.substring(14));
+    }
+
+    /* --------------------------- Threads --------------------------- */
+
+    public synchronized ThreadDto createThread(String title, String authorId, String body) {
+        Objects.requireNonNull(title, "title");
+        final Ids.Id next = Ids.next();
+        final String id = next.toString();
+        final long now = next.timestamp(); // never behind the last id, even if the wall clock steps back
+
+        ThreadDto t = new ThreadDto(id, title, authorId, now, now, 0);
+        putThread(t);
+        indexActivity(authorId, id, true);
+        publish(ThreadChange.Type.THREAD_CREATED, t, null, now);
+
+        // If body is provided, create the first comment (typical forum UX)
+        if (body != null && !body.isBlank()) {
+            addComment(id, authorId, body);
+        }
+        return t;
+    }
+
+    public ThreadDto getThread(String id) {
+        return threads.get(id);
+    }
+
+    /**
+     * List threads ordered by lastActivityAt DESC using cursor pagination.
+     * @throws CursorCodec.InvalidCursorException if the cursor doesn't verify
+     */
+    public PageThread listThreads(String cursor, int limit) {
+        return listThreadsAfter(CursorCodec.decode(cursor, CursorCodec.Mode.THREADS_BY_ACTIVITY, ""), limit);
+    }
+
+    /** As {@link #listThreads(String, int)}, after a cursor the caller has already decoded (or null). */
+    public PageThread listThreadsAfter(CursorCodec.Cursor after, int limit) {
+        if (limit <= 0) limit = 25;
+        final long readAt = version;
+
+        final String startKey = startKey(after, CursorCodec.Mode.THREADS_BY_ACTIVITY); // may be null
+        NavigableMap<String, String> desc = threadOrder.descendingMap();
+
+        if (startKey != null) {
+            // tailMap of the DESC view = entries after 'startKey' in descending order (exclusive)
+            desc = desc.tailMap(startKey, false);
+        }
+
+        final List<ThreadDto> items = new ArrayList<>(Math.min(limit, desc.size()));
+        String lastEmittedKey = null;
+
+        int count = 0;
+        for (Map.Entry<String, String> e : desc.entrySet()) {
+            if (count >= limit) break;
+            ThreadDto t = threads.get(e.getValue());
+            if (t != null) {
+                items.add(t);
+                lastEmittedKey = e.getKey();
+                count++;
+            }
+        }
+
+        // If there are more entries beyond the ones we returned, emit a cursor
+        String nextCursor = null;
+        if (lastEmittedKey != null) {
+            NavigableMap<String, String> remaining = desc.tailMap(lastEmittedKey, false);
+            if (!remaining.isEmpty()) {
+                nextCursor = cursorAfter(lastEmittedKey, CursorCodec.Mode.THREADS_BY_ACTIVITY, "", limit, readAt);
+            }
+        }
+
+        return new PageThread(items, nextCursor);
+    }
+
+    /* --------------------------- Comments --------------------------- */
+
+    public synchronized CommentDto addComment(String threadId, String authorId, String body) {
+        Objects.requireNonNull(threadId, "threadId");
+        Objects.requireNonNull(body, "body");
+
+        if (!threads.containsKey(threadId)) {
+            throw new IllegalArgumentException("Thread not found: " + threadId);
+        }
+        residentForWrite(threadId);
+
+        synchronized (stripe(threadId)) {
+            final ThreadDto existing = threads.get(threadId);
+            final Ids.Id next = Ids.next();
+            final String commentId = next.toString();
+            final long now = next.timestamp(); // keeps (createdAt, id) keys and lastActivityAt increasing
+
+            CommentDto newComment = new CommentDto(commentId, threadId, authorId, body, now, 0, null, false);
+            putComment(newComment);
+            indexActivity(authorId, commentId, false);
+
+            // Update thread lastActivityAt and postCount; adjust ordering map
+            ThreadDto updated = new ThreadDto(
+                    existing.id(),
+                    existing.title(),
+                    existing.authorId(),
+                    existing.createdAt(),
+                    now,
+                    existing.postCount() + 1
+            );
+            putThread(updated);
+            publish(ThreadChange.Type.COMMENT_ADDED, updated, newComment, now);
+
+            return newComment;
+        }
+    }
+
+    /**
+     * List comments chronologically (ASC) with since + cursor support; tombstones are skipped.
+     * @throws CursorCodec.InvalidCursorException if the cursor doesn't verify for this thread
+     */
+    public PageComment listComments(String threadId, Long since, String cursor, int limit) {
+        return listCommentsAfter(threadId, since, CursorCodec.decode(cursor, CursorCodec.Mode.COMMENTS_BY_TIME, threadId), limit);
+    }
+
+    /** As {@link #listComments(String, Long, String, int)}, after a cursor already decoded for this thread. */
+    public PageComment listCommentsAfter(String threadId, Long since, CursorCodec.Cursor after, int limit) {
+        if (limit <= 0) limit = 50;
+        final long readAt = version;
+
+        NavigableMap<String, CommentDto> view = comments(threadId);
+
+        if (since != null && since > 0) {
+            String sinceKey = compositeKey(since, ""); // minimal suffix
+            view = view.tailMap(sinceKey, true);
+        }
+
+        final String startKey = startKey(after, CursorCodec.Mode.COMMENTS_BY_TIME);
+        if (startKey != null) {
+            view = view.tailMap(startKey, false);
+        }
+
+        final List<CommentDto> items = new ArrayList<>(Math.min(limit, view.size()));
+        String lastEmittedKey = null;
+        boolean more = false;
+
+        // Tombstones don't count toward the page; stop at the first live entry past the page
+        for (Map.Entry<String, CommentDto> e : view.entrySet()) {
+            if (e.getValue().deleted()) continue;
+            if (items.size() >= limit) {
+                more = true;
+                break;
+            }
+            items.add(e.getValue());
+            lastEmittedKey = e.getKey();
+        }
+
+        String nextCursor = more ? cursorAfter(lastEmittedKey, CursorCodec.Mode.COMMENTS_BY_TIME, threadId, limit, readAt) : null;
+        return new PageComment(items, nextCursor);
+    }
+
+    /* --------------------------- Activity --------------------------- */
+
+    /**
+     * Threads and comments created by one author, newest first, with cursor pagination.
+     * Deleted (or compacted) comments are skipped.
+     * @throws CursorCodec.InvalidCursorException if the cursor doesn't verify for this author
+     */
+    public PageActivity listActivity(String authorId, String cursor, int limit) {
+        return listActivityAfter(authorId, CursorCodec.decode(cursor, CursorCodec.Mode.AUTHOR_ACTIVITY, authorId), limit);
+    }
+
+    /** As {@link #listActivity(String, String, int)}, after a cursor already decoded for this author. */
+    public PageActivity listActivityAfter(String authorId, CursorCodec.Cursor after, int limit) {
+        if (limit <= 0) limit = 25;
+        final long readAt = version;
+        final AuthorActivity.Refs refs = activity.refs(authorId);
+        if (refs == null) return new PageActivity(List.of(), null);
+
+        int i = refs.size();
+        if (after != null) {
+            checkMode(after, CursorCodec.Mode.AUTHOR_ACTIVITY);
+            final Ids.Id from = Ids.Id.parse(after.keyId());
+            i = refs.olderThan(from.hi(), from.lo(), i);
+        }
+        final List<ActivityItem> items = new ArrayList<>(Math.min(limit, i));
+        final Map<String, Map<String, CommentDto>> archivedBlocks = new HashMap<>();
+        String lastId = null;
+        long lastAt = 0;
+        while (i > 0 && items.size() < limit) {
+            i--;
+            final String id = new Ids.Id(refs.hi(i), refs.lo(i)).toString();
+            final ActivityItem item = refs.isThread(i) ? threadActivity(id) : commentActivity(id, archivedBlocks);
+            if (item == null) continue;
+            items.add(item);
+            lastId = id;
+            lastAt = item.at();
+        }
+
+        String nextCursor = i > 0 && lastId != null
+                ? CursorCodec.encode(CursorCodec.Mode.AUTHOR_ACTIVITY, authorId, limit, readAt, lastAt, lastId)
+                : null;
+        return new PageActivity(items, nextCursor);
+    }
+
+    private ActivityItem threadActivity(String threadId) {
+        final ThreadDto t = threads.get(threadId);
+        return t == null ? null : new ActivityItem("thread", t.createdAt(), t, null);
+    }
+
+    /** @param archivedBlocks archived threads decoded for this page so far, by thread then comment id */
+    private ActivityItem commentActivity(String commentId, Map<String, Map<String, CommentDto>> archivedBlocks) {
+        final CommentDto c = peekComment(commentId, archivedBlocks);
+        return c == null || c.deleted() ? null : new ActivityItem("comment", c.createdAt(), null, c);
+    }
+
+    /**
+     * Read a comment without reviving its thread: the resident copy, else the archived one
+     * decoded straight from its block outside the monitor. A block released mid-read means the
+     * thread was revived or re-archived meanwhile, so look again.
+     */
+    private CommentDto peekComment(String commentId, Map<String, Map<String, CommentDto>> archivedBlocks) {
+        for (int attempt = 0; attempt < 3; attempt++) {
+            final CommentLocator loc = commentIndex.get(commentId);
+            if (loc != null) {
+                final NavigableMap<String, CommentDto> m = commentsByThread.get(loc.threadId());
+                if (m != null) return m.get(loc.compositeKey());
+            }
+            final ThreadArchive a = archive;
+            final String threadId = a == null ? null : a.threadOfComment(commentId);
+            if (threadId == null) return null;
+            Map<String, CommentDto> block = archivedBlocks.get(threadId);
+            if (block == null) {
+                final List<CommentDto> cold;
+                try {
+                    cold = a.read(threadId);
+                } catch (UncheckedIOException e) {
+                    continue;
+                }
+                if (cold == null) continue;
+                block = new HashMap<>(cold.size() * 2);
+                for (CommentDto c : cold) block.put(c.id(), c);
+                archivedBlocks.put(threadId, block);
+            }
+            return block.get(commentId);
+        }
+        return null;
+    }
+
+    /**
+     * Named authors of a thread's live comments created before beforeCommentId, in order, read
+     * like {@link #peekComment}: the resident comments, else the archived block, without
+     * reviving the thread or taking the monitor.
+     */
+    public Set<String> commentAuthorsBefore(String threadId, String beforeCommentId) {
+        final Set<String> authors = new LinkedHashSet<>();
+        for (int attempt = 0; attempt < 3; attempt++) {
+            final NavigableMap<String, CommentDto> m = commentsByThread.get(threadId);
+            Iterable<CommentDto> comments = m == null ? null : m.values();
+            if (m == null || m.isEmpty()) {
+                final ThreadArchive a = archive;
+                if (a == null) return authors;
+                try {
+                    comments = a.read(threadId);
+                } catch (UncheckedIOException e) {
+                    continue;
+                }
+                if (comments == null) continue;                 // revived (or never archived) meanwhile
+            }
+            for (CommentDto c : comments) {
+                if (c.id().compareTo(beforeCommentId) >= 0) break; // ids sort by creation
+                if (!c.deleted() && c.authorId() != null) authors.add(c.authorId());
+            }
+            return authors;
+        }
+        return authors;
+    }
+
+    /** Increment like count on a comment; returns true if found (and not deleted). */
+    public synchronized boolean likeComment(String commentId) {
+        CommentLocator loc = locate(commentId);
+        if (loc == null) return false;
+        residentForWrite(loc.threadId());
+
+        synchronized (stripe(loc.threadId())) {
+            NavigableMap<String, CommentDto> map = commentsByThread.get(loc.threadId());
+            if (map == null) return false;
+
+            CommentDto current = map.get(loc.compositeKey());
+            if (current == null || current.deleted()) return false;
+
+            CommentDto updated = new CommentDto(
+                    current.id(),
+                    current.threadId(),
+                    current.authorId(),
+                    current.body(),
+                    current.createdAt(),
+                    current.likes() + 1,
+                    current.editedAt(),
+                    false
+            );
+            map.put(loc.compositeKey(), updated);
+            publish(ThreadChange.Type.COMMENT_LIKED, null, updated, Time.now());
+            return true;
+        }
+    }
+
+    /**
+     * Replace a comment's body. Takes only the owning thread's stripe lock, not the repo monitor
+     * (unless the thread has to be revived from the archive first).
+     * @return the new version of the comment, or null if not found / deleted
+     */
+    public CommentDto editComment(String commentId, String body) {
+        Objects.requireNonNull(body, "body");
+        return mutateComment(commentId, (thread, current, now) -> {
+            CommentDto edited = new CommentDto(current.id(), current.threadId(), current.authorId(), body,
+                    current.createdAt(), current.likes(), now, false);
+            putComment(edited);
+            publish(ThreadChange.Type.COMMENT_EDITED, null, edited, now);
+            return edited;
+        });
+    }
+
+    /**
+     * Soft-delete a comment: swap in a tombstone (body dropped), decrement the thread's postCount,
+     * and leave physical removal to {@link #compactTombstones}.
+     * @return true if a live comment was deleted
+     */
+    public boolean deleteComment(String commentId) {
+        return mutateComment(commentId, (thread, current, now) -> {
+            CommentDto tombstone = new CommentDto(current.id(), current.threadId(), current.authorId(), "",
+                    current.createdAt(), current.likes(), current.editedAt(), true);
+            putComment(tombstone);
+            ThreadDto updated = new ThreadDto(thread.id(), thread.title(), thread.authorId(),
+                    thread.createdAt(), thread.lastActivityAt(), Math.max(0, thread.postCount() - 1));
+            putThread(updated);
+            publish(ThreadChange.Type.COMMENT_DELETED, updated, tombstone, now);
+            return tombstone;
+        }) != null;
+    }
+
+    /**
+     * Physically remove up to maxEntries tombstones, holding each thread's stripe for at most
+     * COMPACTION_STEP removals at a time. Readers are never blocked (skip-list removal).
+     * @return number of tombstones removed
+     */
+    public int compactTombstones(int maxEntries) {
+        int removed = 0;
+        for (String threadId : tombstoned) {
+            if (removed >= maxEntries) break;
+            boolean done = false;
+            while (!done && removed < maxEntries) {
+                synchronized (stripe(threadId)) {
+                    // clear the flag first; a concurrent delete re-adds it after we release
+                    tombstoned.remove(threadId);
+                    NavigableMap<String, CommentDto> map = commentsByThread.get(threadId);
+                    if (map == null) break;
+                    int step = 0;
+                    done = true;
+                    for (Map.Entry<String, CommentDto> e : map.entrySet()) {
+                        if (!e.getValue().deleted()) continue;
+                        if (step >= COMPACTION_STEP || removed >= maxEntries) {
+                            tombstoned.add(threadId);
+                            done = false;
+                            break;
+                        }
+                        if (map.remove(e.getKey(), e.getValue())) {
+                            commentIndex.remove(e.getValue().id(), new CommentLocator(threadId, e.getKey()));
+                            step++;
+                            removed++;
+                        }
+                    }
+                }
+            }
+        }
+        compacted.addAndGet(removed);
+        return removed;
+    }
+
+    /* --------------------------- Replication --------------------------- */
+
+    /** Version of the last mutation applied to this repo (0 = none). */
+    public long version() {
+        return version;
+    }
+
+    public ThreadChangeLog changeLog() {
+        return changeLog;
+    }
+
+    /**
+     * Subscribe to leader-side changes in version order. The callback runs on the writing
+     * thread while it holds the repo/stripe locks, so it must be O(1) and non-blocking
+     * (e.g. an offer into a lock-free queue).
+     */
+    public void addListener(Consumer<ThreadChange> listener) {
+        listeners.add(Objects.requireNonNull(listener, "listener"));
+    }
+
+    /**
+     * Replay one leader change on a follower. Changes must arrive in version order;
+     * already-applied versions are ignored so redelivery is harmless.
+     * @return true if applied; false if it was a duplicate
+     */
+    public synchronized boolean apply(ThreadChange change) {
+        Objects.requireNonNull(change, "change");
+        if (change.version() <= version) return false;
+        if (change.version() != version + 1) {
+            throw new IllegalStateException("Replication gap: at " + version + ", got " + change.version());
+        }
+        switch (change.type()) {
+            case THREAD_CREATED, COMMENT_ADDED -> {
+                // a restored snapshot may already hold the change; index it only once
+                if (change.comment() != null) {
+                    final boolean known = commentIndex.containsKey(change.comment().id());
+                    putComment(change.comment());
+                    if (!known) indexActivity(change.comment().authorId(), change.comment().id(), false);
+                } else if (!threads.containsKey(change.thread().id())) {
+                    indexActivity(change.thread().authorId(), change.thread().id(), true);
+                }
+                putThread(change.thread());
+            }
+            case COMMENT_LIKED, COMMENT_EDITED -> putComment(change.comment());
+            case COMMENT_DELETED -> {
+                putComment(change.comment());
+                putThread(change.thread());
+            }
+        }
+        version = change.version();
+        changeLog.append(change);
+        return true;
+    }
+
+    /**
+     * Copy used to bootstrap (or re-bootstrap) a follower.
+     * Creates are excluded by the monitor, but edits and deletes only hold a stripe and may land
+     * while the copy runs. The version is therefore read first: the copy holds at least every
+     * change up to it, maybe some later ones, and replaying those later ones is harmless because
+     * each change carries the full post-change state.
+     */
+    public synchronized Snapshot snapshot() {
+        final long at;
+        synchronized (changeLog) {
+            at = version;
+        }
+        List<CommentDto> comments = new ArrayList<>(commentIndex.size());
+        for (NavigableMap<String, CommentDto> m : commentsByThread.values()) {
+            for (CommentDto c : m.values()) {
+                if (!c.deleted()) comments.add(c);
+            }
+        }
+        if (archive != null) {
+            for (String id : threads.keySet()) {
+                if (!commentsByThread.containsKey(id) && archive.contains(id)) comments.addAll(archive.read(id));
+            }
+        }
+        return new Snapshot(at, new ArrayList<>(threads.values()), comments);
+    }
+
+    /**
+     * Replace all state with a leader snapshot; the change log restarts after snapshot.version().
+     * Works in place, so readers see a partly filled repo meanwhile: restore into a fresh repo
+     * that nobody reads yet (as ThreadReplica does).
+     */
+    public synchronized void restore(Snapshot snapshot) {
+        threads.clear();
+        commentsByThread.clear();
+        commentIndex.clear();
+        threadOrder.clear();
+        tombstoned.clear();
+        activity.clear();
+        for (ThreadDto t : snapshot.threads()) {
+            putThread(t);
+            indexActivity(t.authorId(), t.id(), true);
+        }
+        for (CommentDto c : snapshot.comments()) {
+            putComment(c);
+            indexActivity(c.authorId(), c.id(), false);
+        }
+        activity.sortAll();
+        version = snapshot.version();
+        changeLog.resetTo(version);
+    }
+
+    public record Snapshot(long version, List<ThreadDto> threads, List<CommentDto> comments) {}
+
+    /* --------------------------- Archival --------------------------- */
+
+    /** Enable cold storage; revivedCacheSize bounds how many revived threads stay resident. */
+    public synchronized void attachArchive(ThreadArchive archive, int revivedCacheSize) {
+        this.archive = archive;
+        this.revivedCacheSize = Math.max(1, revivedCacheSize);
+    }
+
+    /** One batch from the oldest idle thread; see {@link #archiveIdle(long, int, String)}. */
+    public ThreadArchive.Segment archiveIdle(long cutoffMs, int maxThreads) {
+        return archiveIdle(cutoffMs, maxThreads, null).segment();
+    }
+
+    /**
+     * Move comments of up to maxThreads threads idle since before cutoffMs into one new segment
+     * and drop them from heap. Encoding happens in memory under the monitor; the caller writes
+     * the returned segment with {@link ThreadArchive#flush} after this returns.
+     * - The scan starts after the key {@code after} (null = oldest) and visits at most
+     *   maxThreads * {@value #ARCHIVE_SCAN_FACTOR} entries, so one batch never walks the whole
+     *   archived history under the monitor.
+     * - Pass the returned resumeAfter to the next call; null means the cutoff was reached.
+     */
+    public synchronized ArchiveBatch archiveIdle(long cutoffMs, int maxThreads, String after) {
+        if (archive == null) throw new IllegalStateException("No archive attached");
+
+        final ThreadArchive.SegmentBuilder seg = archive.newSegment();
+        final List<String> evict = new ArrayList<>();
+        final Map<String, List<CommentDto>> copied = new HashMap<>();
+        NavigableMap<String, String> idle = threadOrder.headMap(compositeKey(cutoffMs, ""), false);
+        if (after != null) idle = idle.tailMap(after, false);
+        final long maxScanned = (long) maxThreads * ARCHIVE_SCAN_FACTOR;
+        long scanned = 0;
+        String resumeAfter = null;
+        for (Map.Entry<String, String> e : idle.entrySet()) {
+            if (evict.size() >= maxThreads || scanned >= maxScanned) break;
+            scanned++;
+            resumeAfter = e.getKey();
+            final String threadId = e.getValue();
+            NavigableMap<String, CommentDto> m = commentsByThread.get(threadId);
+            if (m == null || m.isEmpty()) continue;            // already cold, or nothing to offload
+            if (revived.containsKey(threadId)) {               // unchanged since revive: block is still valid
+                evict.add(threadId);
+                continue;
+            }
+            List<CommentDto> all = new ArrayList<>(m.values());
+            List<CommentDto> live = new ArrayList<>(all.size());
+            for (CommentDto c : all) {
+                if (!c.deleted()) live.add(c);            // archiving doubles as compaction
+            }
+            seg.add(threadId, live);
+            copied.put(threadId, all);
+            evict.add(threadId);
+        }
+        if (resumeAfter != null && idle.higherKey(resumeAfter) == null) resumeAfter = null;
+
+        final ThreadArchive.Segment sealed = seg.threadCount() > 0 ? archive.seal(seg) : null;
+        for (String threadId : evict) {
+            List<CommentDto> all = copied.get(threadId);
+            synchronized (stripe(threadId)) {
+                // a stripe-only edit/delete may have landed after the copy: keep it hot instead
+                NavigableMap<String, CommentDto> m = commentsByThread.get(threadId);
+                if (all == null || (m != null && sameEntries(m, all))) {
+                    evictResident(threadId);
+                } else {
+                    archive.forget(threadId);
+                }
+            }
+        }
+        return new ArchiveBatch(sealed, evict.size(), resumeAfter);
+    }
+
+    /** segment is null when every evicted thread was already on disk (or nothing was idle). */
+    public record ArchiveBatch(ThreadArchive.Segment segment, int evicted, String resumeAfter) {}
+
+    public StorageStats storageStats() {
+        final ThreadArchive a = archive;
+        return new StorageStats(threads.size(), commentsByThread.size(), revived.size(), revives,
+                tombstoned.size(), compacted.get(), activity.authors(), activity.references(),
+                a == null ? null : a.stats());
+    }
+
+    /** Heap vs archive occupancy, tombstone compaction progress and the author activity index size. */
+    public record StorageStats(int threads, int residentThreads, int revivedCached, long revives,
+                               int threadsWithTombstones, long tombstonesCompacted,
+                               int activityAuthors, long activityReferences,
+                               ThreadArchive.Stats archive) {}
+
+    /* --------------------------- Helpers --------------------------- */
+
+    private record CommentLocator(String threadId, String compositeKey) {}
+
+    /** Insert or replace a thread, keeping threadOrder keyed by its current lastActivityAt. */
+    private void putThread(ThreadDto t) {
+        ThreadDto previous = threads.put(t.id(), t);
+        // add the new key before dropping the old one so listThreads never misses the thread
+        if (previous == null || previous.lastActivityAt() != t.lastActivityAt()) {
+            threadOrder.put(compositeKey(t.lastActivityAt(), t.id()), t.id());
+            if (previous != null) threadOrder.remove(compositeKey(previous.lastActivityAt(), previous.id()));
+        }
+        commentsByThread.putIfAbsent(t.id(), new ConcurrentSkipListMap<>());
+    }
+
+    /** Insert or replace a comment under its (createdAt, id) composite key. */
+    private void putComment(CommentDto c) {
+        final String compKey = compositeKey(c.createdAt(), c.id());
+        commentsByThread.computeIfAbsent(c.threadId(), k -> new ConcurrentSkipListMap<>()).put(compKey, c);
+        commentIndex.put(c.id(), new CommentLocator(c.threadId(), compKey));
+        if (c.deleted()) tombstoned.add(c.threadId());
+    }
+
+    private Object stripe(String threadId) {
+        return stripes[(threadId.hashCode() & 0x7fffffff) % STRIPES];
+    }
+
+    /** Find a comment, reviving its thread if it only lives in the archive. */
+    private CommentLocator locate(String commentId) {
+        CommentLocator loc = commentIndex.get(commentId);
+        final ThreadArchive a = archive;
+        if (loc == null && a != null) {
+            String archivedThread = a.threadOfComment(commentId);
+            if (archivedThread != null) {
+                revive(archivedThread);
+                loc = commentIndex.get(commentId);
+            }
+        }
+        return loc;
+    }
+
+    @FunctionalInterface
+    private interface CommentMutation {
+        /** Runs under the thread's stripe; must store and publish the change itself. */
+        CommentDto apply(ThreadDto thread, CommentDto current, long now);
+    }
+
+    /**
+     * Shared edit/delete path. Only cold (or archived-and-revived) threads touch the repo monitor,
+     * to invalidate their archived block; hot threads take just their stripe.
+     */
+    private CommentDto mutateComment(String commentId, CommentMutation mutation) {
+        for (int attempt = 0; attempt < 3; attempt++) {
+            final CommentLocator loc = locate(commentId);
+            if (loc == null) return null;
+            final String threadId = loc.threadId();
+            final ThreadArchive a = archive;
+            if (a != null && (a.contains(threadId) || !commentsByThread.containsKey(threadId))) {
+                synchronized (this) {
+                    residentForWrite(threadId);
+                }
+            }
+            synchronized (stripe(threadId)) {
+                NavigableMap<String, CommentDto> map = commentsByThread.get(threadId);
+                if (map == null || (a != null && a.contains(threadId))) continue; // re-archived meanwhile
+                CommentDto current = map.get(loc.compositeKey());
+                if (current == null || current.deleted()) return null;
+                return mutation.apply(threads.get(threadId), current, Time.now());
+            }
+        }
+        return null;
+    }
+
+    private static boolean sameEntries(NavigableMap<String, CommentDto> map, List<CommentDto> copy) {
+        if (map.size() != copy.size()) return false;
+        int i = 0;
+        for (CommentDto c : map.values()) {
+            if (c != copy.get(i++)) return false;
+        }
+        return true;
+    }
+
+    /** Comments of a thread, reviving it from the archive if it has gone cold. */
+    private NavigableMap<String, CommentDto> comments(String threadId) {
+        NavigableMap<String, CommentDto> m = commentsByThread.get(threadId);
+        if (m != null) {
+            if (!revived.isEmpty()) revived.replace(threadId, Time.now());
+            return m;
+        }
+        final ThreadArchive a = archive;
+        if (a != null && a.contains(threadId)) return revive(threadId);
+        return Collections.emptyNavigableMap();
+    }
+
+    /** Load an archived thread back into heap and track it in the revived LRU. */
+    private synchronized NavigableMap<String, CommentDto> revive(String threadId) {
+        NavigableMap<String, CommentDto> m = commentsByThread.get(threadId);
+        if (m != null) return m;
+        final List<CommentDto> cold = archive.read(threadId);
+        if (cold == null) return Collections.emptyNavigableMap();
+
+        m = new ConcurrentSkipListMap<>();
+        for (CommentDto c : cold) {
+            final String compKey = compositeKey(c.createdAt(), c.id());
+            m.put(compKey, c);
+            commentIndex.put(c.id(), new CommentLocator(threadId, compKey));
+        }
+        commentsByThread.put(threadId, m); // publish fully built
+        revives++;
+
+        revived.put(threadId, Time.now());
+        if (revived.size() > revivedCacheSize) {
+            String eldest = null;
+            long eldestAt = Long.MAX_VALUE;
+            for (Map.Entry<String, Long> e : revived.entrySet()) {
+                if (!e.getKey().equals(threadId) && e.getValue() < eldestAt) {
+                    eldest = e.getKey();
+                    eldestAt = e.getValue();
+                }
+            }
+            if (eldest != null) evictResident(eldest); // still archived and unchanged
+        }
+        return m;
+    }
+
+    /** About to mutate a thread: bring it into heap and invalidate its (now stale) archived block. */
+    private void residentForWrite(String threadId) {
+        final ThreadArchive a = archive;
+        if (a == null) return;
+        if (!commentsByThread.containsKey(threadId) && a.contains(threadId)) revive(threadId);
+        revived.remove(threadId);
+        a.forget(threadId);
+    }
+
+    /** Drop a thread's comments from heap; readers holding the old map keep a consistent view. */
+    private void evictResident(String threadId) {
+        synchronized (stripe(threadId)) {
+            NavigableMap<String, CommentDto> m = commentsByThread.remove(threadId);
+            if (m != null) {
+                for (CommentDto c : m.values()) commentIndex.remove(c.id());
+            }
+            revived.remove(threadId);
+            tombstoned.remove(threadId);
+        }
+    }
+
+    /**
+     * Assign the next version and append to the change log. Callers hold the monitor or the
+     * affected thread's stripe; the changeLog lock orders concurrent stripes.
+     */
+    private void publish(ThreadChange.Type type, ThreadDto thread, CommentDto comment, long at) {
+        synchronized (changeLog) {
+            final long next = version + 1;
+            final ThreadChange change = new ThreadChange(next, type, thread, comment, at);
+            changeLog.append(change);
+            version = next;
+            for (Consumer<ThreadChange> l : listeners) l.accept(change);
+        }
+    }
+
+    // Convenience seeders for tests/dev
+    public synchronized void clearAll() {
+        threads.clear();
+        commentsByThread.clear();
+        commentIndex.clear();
+        threadOrder.clear();
+        revived.clear();
+        tombstoned.clear();
+        activity.clear();
+        if (archive != null) archive.clear();
+    }
+
+    public List<ThreadDto> allThreadsUnsafe() {
+        return Collections.unmodifiableList(new ArrayList<>(threads.values()));
+    }
+}
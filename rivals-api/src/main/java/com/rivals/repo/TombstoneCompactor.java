@@ -0,0 +1,27 @@
+package com.rivals.repo;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically removes soft-deleted comments from ThreadRepo in bounded batches.
+ * Each pass removes at most rivals.compaction.batch tombstones; writers to a thread wait for
+ * at most one small step, readers never wait.
+ */
+@Component
+public class TombstoneCompactor {
+
+    private final ThreadRepo repo;
+    private final int batch;
+
+    public TombstoneCompactor(ThreadRepo repo, @Value("${rivals.compaction.batch:4096}") int batch) {
+        this.repo = repo;
+        this.batch = batch;
+    }
+
+    @Scheduled(fixedDelayString = "${rivals.compaction.interval-ms:30000}")
+    public void compact() {
+        repo.compactTombstones(batch);
+    }
+}
@@ -1,22 +1,49 @@
 package com.rivals.service;
 
-import com.rivals.model.NewsPayload;
 import com.rivals.repo.NewsRepo;
+import com.rivals.repo.NewsSnapshot;
+import com.rivals.util.CursorCodec;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
 /**
- * Simple wrapper for curated news list.
+ * Pages over the current news snapshot.
+ * The page is pinned to one snapshot, so its ETag and body always agree even if a refresh
+ * publishes in between; the body is only assembled when the client's copy is stale.
+ * Without an explicit limit, a follow-up page keeps the size of the page that issued the cursor.
  */
 @Service
 public class NewsService {
 
+    public static final int MAX_PAGE_SIZE = 100;
+
     private final NewsRepo repo;
 
     public NewsService(NewsRepo repo) {
         this.repo = repo;
     }
 
-    public NewsPayload listNews() {
-        return new NewsPayload(repo.list());
+    public NewsPage page(String cursor, Integer limit) {
+        final NewsSnapshot snap = repo.snapshot();
+        try {
+            final CursorCodec.Cursor after = CursorCodec.decode(cursor, CursorCodec.Mode.NEWS, "");
+            final int lim = limit != null ? limit
+                    : after != null ? Math.min(after.pageSize(), MAX_PAGE_SIZE) : NewsRepo.DEFAULT_PAGE_SIZE;
+            return new NewsPage(snap, snap.start(after), lim);
+        } catch (CursorCodec.InvalidCursorException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+
+    /** One page of a snapshot; the body is the pre-serialized NewsPayload JSON. */
+    public record NewsPage(NewsSnapshot snapshot, int from, int limit) {
+        public String etag() {
+            return snapshot.etag(from, limit);
+        }
+
+        public byte[] body() {
+            return snapshot.page(from, limit);
+        }
     }
 }
@@ -1,16 +1,29 @@
 package com.rivals.service;
 
+import com.rivals.model.CountryStats;
+import com.rivals.model.CountryStatsPayload;
+import com.rivals.model.LeaderboardPayload;
 import com.rivals.model.RankingsPayload;
+import com.rivals.model.RatingHistoryPayload;
+import com.rivals.repo.RankingsIndex;
 import com.rivals.repo.RankingsRepo;
+import com.rivals.repo.RatingHistory;
 import com.rivals.util.Time;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
 
 /**
  * Business logic around rankings. Fills the payload flags based on repo result.
+ * Leaderboard filters/sorts and country aggregates are lookups into the region's RankingsIndex.
  */
 @Service
 public class RankingsService {
 
+    private static final long DEFAULT_HISTORY_MS = Duration.ofDays(90).toMillis();
+
     private final RankingsRepo repo;
 
     public RankingsService(RankingsRepo repo) {
@@ -32,4 +45,83 @@ public class RankingsService {
                 note
         );
     }
+
+    /**
+     * Region ladder filtered to a country and/or sorted by a stat.
+     * @param sort  stat name (rating, winRate, kda, adr) or null for ladder order
+     * @param order "desc" (best first, default) or "asc"
+     */
+    public LeaderboardPayload getLeaderboard(String region, String country, String sort, String order,
+                                             int offset, int limit) {
+        final RankingsIndex.Stat stat = sort == null || sort.isBlank() ? null : stat(sort);
+        final boolean ascending = ascending(order);
+        final String cc = country == null || country.isBlank() ? null : country.trim().toUpperCase();
+        var res = repo.getRankings(region);
+        RankingsIndex.Page page = res.index().page(cc, stat, ascending, offset, limit);
+        return new LeaderboardPayload(
+                Time.isoNow(),
+                res.requestedRegion(),
+                res.effectiveRegion(),
+                res.isGlobalFallback(),
+                cc,
+                stat == null ? null : stat.param(),
+                ascending ? "asc" : "desc",
+                page.total(),
+                offset,
+                page.players()
+        );
+    }
+
+    /** Count / mean / percentiles of a stat, region-wide and per country. */
+    public CountryStatsPayload getCountryStats(String region, String statName) {
+        final RankingsIndex.Stat stat = stat(statName);
+        var res = repo.getRankings(region);
+        return new CountryStatsPayload(
+                Time.isoNow(),
+                res.requestedRegion(),
+                res.effectiveRegion(),
+                res.isGlobalFallback(),
+                stat.param(),
+                res.index().overall(stat),
+                res.index().byCountry(stat)
+        );
+    }
+
+    public CountryStats getCountryStats(String region, String countryCode, String statName) {
+        final RankingsIndex.Stat stat = stat(statName);
+        CountryStats stats = repo.getRankings(region).index().country(countryCode, stat);
+        if (stats == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No players for country " + countryCode);
+        }
+        return stats;
+    }
+
+    /** Rating history in [from, to] (defaults: the last 90 days), at most maxPoints points. */
+    public RatingHistoryPayload getHistory(String playerId, Long from, Long to, int maxPoints) {
+        final long end = to != null ? to : Time.now();
+        final long start = from != null ? from : end - DEFAULT_HISTORY_MS;
+        if (start > end) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from must not be after to");
+        }
+        RatingHistory.Range range = repo.history().range(playerId, start, end, maxPoints);
+        if (range == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No rating history for player");
+        }
+        return new RatingHistoryPayload(playerId, start, end, range.bucketMs(), range.points());
+    }
+
+    private static RankingsIndex.Stat stat(String name) {
+        RankingsIndex.Stat stat = RankingsIndex.Stat.parse(name);
+        if (stat == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Unknown stat '" + name + "' (expected rating, winRate, kda or adr)");
+        }
+        return stat;
+    }
+
+    private static boolean ascending(String order) {
+        if (order == null || order.isBlank() || order.equalsIgnoreCase("desc")) return false;
+        if (order.equalsIgnoreCase("asc")) return true;
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "order must be asc or desc");
+    }
 }
@@ -1,11 +1,17 @@
 package com.rivals.service;
 
 import com.rivals.model.CommentDto;
+import com.rivals.model.PageActivity;
 import com.rivals.model.PageComment;
 import com.rivals.model.PageThread;
 import com.rivals.model.ThreadDto;
 import com.rivals.rate.RateLimiter;
+import com.rivals.repo.ReadMarkers;
+import com.rivals.repo.ThreadReplica;
 import com.rivals.repo.ThreadRepo;
+import com.rivals.spam.SpamFilter;
+import com.rivals.spam.SpamVerdict;
+import com.rivals.util.CursorCodec;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
@@ -14,34 +20,65 @@ import org.springframework.web.server.ResponseStatusException;
 /**
  * Business logic for threads & comments.
  * - Wraps ThreadRepo.
- * - Enforces daily rate limits on creating threads and adding comments.
+ * - Screens new content with the SpamFilter, then enforces daily rate limits on creating
+ *   threads and adding comments (rejected spam doesn't burn the caller's allowance).
+ * - Serves reads from the follower replica when one is enabled, falling back to the leader
+ *   when the caller's read-your-writes version hasn't replicated yet.
+ * - Thread pages for an identified caller carry per-thread unread counts from ReadMarkers.
+ * - Cursors are verified once, before any repo is picked: a bad one is a 400, and a good one
+ *   carries the version its page was read at, so the next page never comes from an older
+ *   replica. The repo gets the decoded position, not the string.
  */
 @Service
 public class ThreadService {
 
     private final ThreadRepo repo;
     private final RateLimiter rateLimiter;
+    private final SpamFilter spamFilter;
+    private final ThreadReplica replica; // null unless rivals.replica.enabled=true
+    private final ReadMarkers readMarkers;
 
-    public ThreadService(ThreadRepo repo, RateLimiter rateLimiter) {
+    public ThreadService(ThreadRepo repo, RateLimiter rateLimiter, SpamFilter spamFilter,
+                         ThreadReplica replica, ReadMarkers readMarkers) {
         this.repo = repo;
         this.rateLimiter = rateLimiter;
+        this.spamFilter = spamFilter;
+        this.replica = replica.isEnabled() ? replica : null;
+        this.readMarkers = readMarkers;
     }
 
     /* -------------------- Threads -------------------- */
 
-    public PageThread listThreads(String cursor, Integer limit) {
-        int lim = (limit == null || limit <= 0) ? 25 : limit;
-        return repo.listThreads(cursor, lim);
+    /** @param userId caller, or null; when set the page includes unread counts */
+    public PageThread listThreads(String cursor, Integer limit, Long minVersion, String userId) {
+        final CursorCodec.Cursor after = verifyCursor(cursor, CursorCodec.Mode.THREADS_BY_ACTIVITY, "");
+        final int lim = pageSize(limit, after, 25);
+        final PageThread page = readRepo(floor(minVersion, after)).listThreadsAfter(after, lim);
+        if (userId == null || userId.isBlank()) return page;
+        return new PageThread(page.items(), page.cursor(), readMarkers.unread(userId, page.items()));
+    }
+
+    /** Everything currently in the thread becomes read for this user. */
+    public void markRead(String userId, String threadId) {
+        if (!readMarkers.markRead(userId, threadId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Thread not found: " + threadId);
+        }
+    }
+
+    /** Every thread becomes read for this user. */
+    public void markAllRead(String userId) {
+        readMarkers.markAllRead(userId);
     }
 
     /** Create a thread; counts against daily posting allowance. */
     public ThreadDto createThread(HttpServletRequest request, String title, String authorId, String body) {
+        enforceNotSpam(body == null ? title : title + "\n" + body);
         enforceAllowance(request);
         return repo.createThread(title, authorId, body);
     }
 
-    public ThreadDto getThread(String threadId) {
-        ThreadDto t = repo.getThread(threadId);
+    public ThreadDto getThread(String threadId, Long minVersion) {
+        ThreadDto t = readRepo(minVersion).getThread(threadId);
         if (t == null) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Thread not found: " + threadId);
         }
@@ -50,13 +87,22 @@ public class ThreadService {
 
     /* -------------------- Comments -------------------- */
 
-    public PageComment listComments(String threadId, Long since, String cursor, Integer limit) {
-        int lim = (limit == null || limit <= 0) ? 50 : limit;
-        return repo.listComments(threadId, since, cursor, lim);
+    public PageComment listComments(String threadId, Long since, String cursor, Integer limit, Long minVersion) {
+        final CursorCodec.Cursor after = verifyCursor(cursor, CursorCodec.Mode.COMMENTS_BY_TIME, threadId);
+        final int lim = pageSize(limit, after, 50);
+        return readRepo(floor(minVersion, after)).listCommentsAfter(threadId, since, after, lim);
+    }
+
+    /** Threads and comments posted by one author, newest first. */
+    public PageActivity listActivity(String authorId, String cursor, Integer limit, Long minVersion) {
+        final CursorCodec.Cursor after = verifyCursor(cursor, CursorCodec.Mode.AUTHOR_ACTIVITY, authorId);
+        final int lim = pageSize(limit, after, 25);
+        return readRepo(floor(minVersion, after)).listActivityAfter(authorId, after, lim);
     }
 
     /** Add a comment; counts against daily posting allowance. */
     public CommentDto addComment(HttpServletRequest request, String threadId, String authorId, String body) {
+        enforceNotSpam(body);
         enforceAllowance(request);
         return repo.addComment(threadId, authorId, body);
     }
@@ -68,8 +114,80 @@ public class ThreadService {
         }
     }
 
+    /** Moderation: replace a comment's body. */
+    public CommentDto editComment(String commentId, String body) {
+        CommentDto edited = repo.editComment(commentId, body);
+        if (edited == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Comment not found: " + commentId);
+        }
+        return edited;
+    }
+
+    /** Moderation: soft-delete a comment (physically removed later by the compactor). */
+    public void deleteComment(String commentId) {
+        if (!repo.deleteComment(commentId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Comment not found: " + commentId);
+        }
+    }
+
+    /* -------------------- Replication -------------------- */
+
+    /** Version token for read-your-writes: covers every write this caller has completed so far. */
+    public long currentVersion() {
+        return repo.version();
+    }
+
+    /** Follower lag, or null when no replica is configured. */
+    public ThreadReplica.Lag replicationLag() {
+        return replica == null ? null : replica.lag();
+    }
+
+    /* -------------------- Storage -------------------- */
+
+    public ThreadRepo.StorageStats storageStats() {
+        return repo.storageStats();
+    }
+
+    public ReadMarkers.UnreadStats unreadStats() {
+        return readMarkers.stats();
+    }
+
     /* -------------------- Helpers -------------------- */
 
+    /** Follower if it has (or quickly reaches) minVersion, else the leader. */
+    private ThreadRepo readRepo(Long minVersion) {
+        if (replica == null) return repo;
+        long min = minVersion == null ? 0 : minVersion;
+        return replica.awaitVersion(min) ? replica.repo() : repo;
+    }
+
+    private static CursorCodec.Cursor verifyCursor(String cursor, CursorCodec.Mode mode, String scope) {
+        try {
+            return CursorCodec.decode(cursor, mode, scope);
+        } catch (CursorCodec.InvalidCursorException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+
+    /** Explicit limit, else the size of the page that issued the cursor, else the default. */
+    private static int pageSize(Integer limit, CursorCodec.Cursor after, int defaultSize) {
+        if (limit != null && limit > 0) return limit;
+        return after != null ? after.pageSize() : defaultSize;
+    }
+
+    private static Long floor(Long minVersion, CursorCodec.Cursor after) {
+        if (after == null) return minVersion;
+        return Math.max(minVersion == null ? 0 : minVersion, after.version());
+    }
+
+    private void enforceNotSpam(String content) {
+        SpamVerdict verdict = spamFilter.check(content);
+        if (!verdict.allowed()) {
+            // same status as the daily limit: both mean "stop posting this for now"
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Rejected as spam: " + verdict.reason());
+        }
+    }
+
     private void enforceAllowance(HttpServletRequest request) {
         if (!rateLimiter.tryConsume(request, 1)) {
             // 429 Too Many Requests; controllers can let this bubble up
@@ -0,0 +1,64 @@
+package com.rivals.spam;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size Bloom filter over 64-bit keys (k probes via double hashing, lock-free bit sets).
+ */
+final class BloomFilter {
+
+    private final int probes;
+    private final long bitMask;
+    private final AtomicLongArray words;
+
+    /** @param bits rounded up to a power of two */
+    BloomFilter(long bits, int probes) {
+        long b = Long.highestOneBit(Math.max(64, bits - 1)) << 1;
+        this.bitMask = b - 1;
+        this.probes = probes;
+        this.words = new AtomicLongArray((int) (b >>> 6));
+    }
+
+    /** Record the key; returns true if it was (probably) present already. */
+    boolean putAndCheck(long key) {
+        final long h2 = (key >>> 32) | 1;
+        boolean present = true;
+        for (int i = 0; i < probes; i++) {
+            long bit = (key + i * h2) & bitMask;
+            int w = (int) (bit >>> 6);
+            long m = 1L << bit;
+            long prev;
+            do {
+                prev = words.get(w);
+                if ((prev & m) != 0) break;
+            } while (!words.compareAndSet(w, prev, prev | m));
+            if ((prev & m) == 0) present = false;
+        }
+        return present;
+    }
+
+    boolean mightContain(long key) {
+        final long h2 = (key >>> 32) | 1;
+        for (int i = 0; i < probes; i++) {
+            long bit = (key + i * h2) & bitMask;
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    /** Fraction of bits set (sampled); ~0.5 means the false-positive rate is getting high. */
+    double fillRatio() {
+        final int n = words.length();
+        final int step = Math.max(1, n / 1024);
+        long set = 0, seen = 0;
+        for (int i = 0; i < n; i += step) {
+            set += Long.bitCount(words.get(i));
+            seen += 64;
+        }
+        return seen == 0 ? 0 : (double) set / seen;
+    }
+
+    long bytes() {
+        return 8L * words.length();
+    }
+}
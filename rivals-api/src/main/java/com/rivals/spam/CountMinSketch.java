@@ -0,0 +1,48 @@
+package com.rivals.spam;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Fixed-size count-min sketch over 64-bit keys (never under-counts; over-counts on collisions).
+ * depth x width counters in one flat AtomicIntegerArray; rows use double hashing of the key.
+ */
+final class CountMinSketch {
+
+    private final int depth;
+    private final int mask;
+    private final AtomicIntegerArray counts;
+
+    /** @param width rounded up to a power of two */
+    CountMinSketch(int depth, int width) {
+        this.depth = depth;
+        int w = Integer.highestOneBit(Math.max(2, width - 1)) << 1;
+        this.mask = w - 1;
+        this.counts = new AtomicIntegerArray(depth * w);
+    }
+
+    /** Add one occurrence and return the new estimate. */
+    int addAndEstimate(long key) {
+        final int h1 = (int) key;
+        final int h2 = (int) (key >>> 32);
+        int min = Integer.MAX_VALUE;
+        for (int i = 0; i < depth; i++) {
+            int idx = i * (mask + 1) + ((h1 + i * h2) & mask);
+            min = Math.min(min, counts.incrementAndGet(idx));
+        }
+        return min;
+    }
+
+    int estimate(long key) {
+        final int h1 = (int) key;
+        final int h2 = (int) (key >>> 32);
+        int min = Integer.MAX_VALUE;
+        for (int i = 0; i < depth; i++) {
+            min = Math.min(min, counts.get(i * (mask + 1) + ((h1 + i * h2) & mask)));
+        }
+        return min;
+    }
+
+    long bytes() {
+        return 4L * counts.length();
+    }
+}
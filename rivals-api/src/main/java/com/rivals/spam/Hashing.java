@@ -0,0 +1,34 @@
+package com.rivals.spam;
+
+/**
+ * Small, allocation-free 64-bit string hashing shared by the spam sketches.
+ * FNV-1a over chars, finished with the MurmurHash3 fmix64 avalanche.
+ */
+final class Hashing {
+
+    static long hash64(CharSequence s) {
+        return hash64(s, 0, s.length());
+    }
+
+    static long hash64(CharSequence s, int from, int to) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = from; i < to; i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return fmix64(h);
+    }
+
+    static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+    private Hashing() {
+        // prevent instantiation
+    }
+}
@@ -0,0 +1,113 @@
+package com.rivals.spam;
+
+import java.util.Arrays;
+
+/**
+ * Bounded ring of recent 64-bit SimHash fingerprints with banded lookup for near-duplicates.
+ *
+ * Six 10-bit bands (the top 4 bits are unbanded); two fingerprints within Hamming distance 5
+ * always share at least one band, so candidates come from six bucket chains instead of a scan.
+ * Chains are singly linked through ring slots and never unlinked: a reused slot simply fails the
+ * band/age check, and traversal is capped, so everything stays in the preallocated primitive
+ * arrays.
+ */
+final class SimHashIndex {
+
+    private static final int BANDS = 6;
+    private static final int BAND_BITS = 10;
+    private static final int MAX_CHAIN = 32;
+    private static final int SHINGLE = 4;
+
+    /** slots already counted by the current lookup (a slot can sit in several chains) */
+    private static final ThreadLocal<int[]> COUNTED = ThreadLocal.withInitial(() -> new int[BANDS * MAX_CHAIN]);
+
+    private final long[] fingerprints;
+    private final long[] addedAt;
+    private final int[][] heads = new int[BANDS][1 << BAND_BITS];
+    private final int[][] next;
+    private int cursor;
+    private int size;
+
+    SimHashIndex(int capacity) {
+        this.fingerprints = new long[capacity];
+        this.addedAt = new long[capacity];
+        this.next = new int[BANDS][capacity];
+        for (int[] h : heads) Arrays.fill(h, -1);
+    }
+
+    /**
+     * Count fingerprints added since notBefore within maxDistance (at most BANDS - 1) of fp,
+     * then add fp. Stops counting at limit.
+     */
+    synchronized int countNearAndAdd(long fp, int maxDistance, long notBefore, long now, int limit) {
+        int matches = 0;
+        final int cap = fingerprints.length;
+        final int[] counted = COUNTED.get();
+        int countedN = 0;
+
+        outer:
+        for (int b = 0; b < BANDS && matches < limit; b++) {
+            final int band = band(fp, b);
+            int slot = heads[b][band];
+            for (int steps = 0; slot >= 0 && steps < MAX_CHAIN; steps++) {
+                if (addedAt[slot] < notBefore) break; // chain is newest-first
+                final long other = fingerprints[slot];
+                if (band(other, b) == band && Long.bitCount(other ^ fp) <= maxDistance) {
+                    boolean dup = false;
+                    for (int i = 0; i < countedN; i++) {
+                        if (counted[i] == slot) { dup = true; break; }
+                    }
+                    if (!dup) {
+                        counted[countedN++] = slot;
+                        if (++matches >= limit) break outer;
+                    }
+                }
+                slot = next[b][slot];
+            }
+        }
+
+        final int slot = cursor;
+        cursor = (cursor + 1) % cap;
+        size = Math.min(cap, size + 1);
+        fingerprints[slot] = fp;
+        addedAt[slot] = now;
+        for (int b = 0; b < BANDS; b++) {
+            final int band = band(fp, b);
+            next[b][slot] = heads[b][band];
+            heads[b][band] = slot;
+        }
+        return matches;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    long bytes() {
+        return 16L * fingerprints.length + 4L * BANDS * ((1 << BAND_BITS) + fingerprints.length);
+    }
+
+    private static int band(long fp, int b) {
+        return (int) (fp >>> (BAND_BITS * b)) & ((1 << BAND_BITS) - 1);
+    }
+
+    /**
+     * Charikar SimHash over overlapping 4-char shingles of an already-normalized text.
+     * Character shingles (rather than words) keep one edited word from moving many bits.
+     */
+    static long fingerprint(CharSequence text) {
+        final int[] v = new int[64];
+        final int n = text.length();
+        for (int i = 0; i + SHINGLE <= n; i++) {
+            long h = Hashing.hash64(text, i, i + SHINGLE);
+            for (int bit = 0; bit < 64; bit++) {
+                v[bit] += (int) ((h >>> bit) & 1) * 2 - 1;
+            }
+        }
+        long fp = 0;
+        for (int bit = 0; bit < 64; bit++) {
+            if (v[bit] > 0) fp |= 1L << bit;
+        }
+        return fp;
+    }
+}
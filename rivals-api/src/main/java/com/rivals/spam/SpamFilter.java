@@ -0,0 +1,213 @@
+package com.rivals.spam;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import com.rivals.util.Time;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pre-write spam / flood filter for threads and comments.
+ *
+ * Works on content, not on callers, so it catches the same text or link arriving from many
+ * IPs/users (which the per-subject RateLimiter can't see). Three bounded-memory structures:
+ *  - Bloom filter of normalized body hashes: cheap "seen before?" gate.
+ *  - Count-min sketches of body hashes and of link hashes: how often within the window.
+ *  - SimHash ring with banded lookup: near-duplicate bursts (small edits of the same text).
+ *
+ * Sketches are kept per window (rivals.spam.window-ms) as current + previous generations, so
+ * counts cover between one and two windows and memory never grows.
+ */
+@Component
+public class SpamFilter {
+
+    private static final int DUPLICATE_MIN_CHARS = 12; // "gg"/"lol" from many people isn't spam
+    private static final int SIMHASH_MIN_CHARS = 48; // fewer shingles make fingerprints too noisy
+    private static final int SIMHASH_DISTANCE = 5;
+
+    private final boolean enabled;
+    private final long windowMs;
+    private final int maxDuplicates;
+    private final int maxLinkRepeats;
+    private final int maxNearDuplicates;
+    private final int cmsWidth;
+    private final long bloomBits;
+
+    private final SimHashIndex nearDup;
+
+    private volatile Generation current;
+    private volatile Generation previous;
+
+    private final LongAdder checked = new LongAdder();
+    private final LongAdder rejectedDuplicate = new LongAdder();
+    private final LongAdder rejectedLink = new LongAdder();
+    private final LongAdder rejectedNearDuplicate = new LongAdder();
+    private final LongAdder checkNanos = new LongAdder();
+    private final AtomicLong maxCheckNanos = new AtomicLong();
+
+    public SpamFilter(
+            @Value("${rivals.spam.enabled:true}") boolean enabled,
+            @Value("${rivals.spam.window-ms:600000}") long windowMs,
+            @Value("${rivals.spam.max-duplicates:3}") int maxDuplicates,
+            @Value("${rivals.spam.max-link-repeats:2}") int maxLinkRepeats,
+            @Value("${rivals.spam.max-near-duplicates:4}") int maxNearDuplicates,
+            @Value("${rivals.spam.cms-width:16384}") int cmsWidth,
+            @Value("${rivals.spam.bloom-bits:1048576}") long bloomBits,
+            @Value("${rivals.spam.simhash-capacity:8192}") int simhashCapacity
+    ) {
+        this.enabled = enabled;
+        this.windowMs = windowMs;
+        this.maxDuplicates = maxDuplicates;
+        this.maxLinkRepeats = maxLinkRepeats;
+        this.maxNearDuplicates = maxNearDuplicates;
+        this.cmsWidth = cmsWidth;
+        this.bloomBits = bloomBits;
+        this.nearDup = new SimHashIndex(simhashCapacity);
+        final long now = Time.now();
+        this.current = newGeneration(now);
+        this.previous = newGeneration(now - windowMs);
+    }
+
+    /** Verdict for a piece of user content; also records it so repeats are caught. */
+    public SpamVerdict check(String text) {
+        if (!enabled || text == null) return SpamVerdict.ALLOW;
+        final long t0 = System.nanoTime();
+        try {
+            checked.increment();
+            final long now = Time.now();
+            final Generation cur = rotateIfNeeded(now);
+            final Generation prev = previous;
+
+            final String norm = normalize(text);
+            SpamVerdict verdict = SpamVerdict.ALLOW;
+
+            // 1) exact duplicates: Bloom gate first, sketch count only for bodies seen before
+            final long bodyHash = Hashing.hash64(norm);
+            final boolean seen = cur.bodies.putAndCheck(bodyHash) | prev.bodies.mightContain(bodyHash);
+            int dupCount = cur.bodyCounts.addAndEstimate(bodyHash);
+            if (seen) dupCount += prev.bodyCounts.estimate(bodyHash);
+            if (seen && dupCount > maxDuplicates && norm.length() >= DUPLICATE_MIN_CHARS) {
+                rejectedDuplicate.increment();
+                verdict = SpamVerdict.reject("duplicate");
+            }
+
+            // 2) repeated links, whoever posts them
+            if (verdict.allowed()) {
+                for (int i = norm.indexOf("http"); i >= 0; i = norm.indexOf("http", i + 1)) {
+                    if (!norm.startsWith("http://", i) && !norm.startsWith("https://", i)) continue;
+                    int start = norm.indexOf("//", i) + 2;
+                    int end = start;
+                    while (end < norm.length() && !Character.isWhitespace(norm.charAt(end))) end++;
+                    while (end > start && ".,;:!?)]".indexOf(norm.charAt(end - 1)) >= 0) end--;
+                    if (end == start) continue;
+                    long linkHash = Hashing.hash64(norm, start, end);
+                    int n = cur.linkCounts.addAndEstimate(linkHash) + prev.linkCounts.estimate(linkHash);
+                    if (n > maxLinkRepeats) {
+                        rejectedLink.increment();
+                        verdict = SpamVerdict.reject("link-flood");
+                        break;
+                    }
+                }
+            }
+
+            // 3) bursts of near-duplicates
+            if (norm.length() >= SIMHASH_MIN_CHARS) {
+                long fp = SimHashIndex.fingerprint(norm);
+                int near = nearDup.countNearAndAdd(fp, SIMHASH_DISTANCE, now - windowMs, now, maxNearDuplicates);
+                if (verdict.allowed() && near >= maxNearDuplicates) {
+                    rejectedNearDuplicate.increment();
+                    verdict = SpamVerdict.reject("near-duplicate");
+                }
+            }
+            return verdict;
+        } finally {
+            long took = System.nanoTime() - t0;
+            checkNanos.add(took);
+            maxCheckNanos.accumulateAndGet(took, Math::max);
+        }
+    }
+
+    public SpamStats stats() {
+        final long n = checked.sum();
+        final Generation cur = current;
+        final long bytes = 2 * (cur.bodyCounts.bytes() + cur.linkCounts.bytes() + cur.bodies.bytes()) + nearDup.bytes();
+        return new SpamStats(
+                n,
+                rejectedDuplicate.sum(),
+                rejectedLink.sum(),
+                rejectedNearDuplicate.sum(),
+                n == 0 ? 0 : checkNanos.sum() / n,
+                maxCheckNanos.get(),
+                cur.bodies.fillRatio(),
+                nearDup.size(),
+                bytes
+        );
+    }
+
+    /** Sketch occupancy and verdict counters. */
+    public record SpamStats(
+            long checked,
+            long rejectedDuplicate,
+            long rejectedLink,
+            long rejectedNearDuplicate,
+            long avgCheckNanos,
+            long maxCheckNanos,
+            double bloomFillRatio,
+            int simhashEntries,
+            long sketchBytes
+    ) {}
+
+    /* --------------------------- Internals --------------------------- */
+
+    /** One window's worth of sketches. */
+    private static final class Generation {
+        final long startedAt;
+        final BloomFilter bodies;
+        final CountMinSketch bodyCounts;
+        final CountMinSketch linkCounts;
+
+        Generation(long startedAt, long bloomBits, int cmsWidth) {
+            this.startedAt = startedAt;
+            this.bodies = new BloomFilter(bloomBits, 4);
+            this.bodyCounts = new CountMinSketch(4, cmsWidth);
+            this.linkCounts = new CountMinSketch(4, cmsWidth);
+        }
+    }
+
+    private Generation newGeneration(long startedAt) {
+        return new Generation(startedAt, bloomBits, cmsWidth);
+    }
+
+    private Generation rotateIfNeeded(long now) {
+        Generation cur = current;
+        if (now - cur.startedAt < windowMs) return cur;
+        synchronized (this) {
+            cur = current;
+            if (now - cur.startedAt >= windowMs) {
+                previous = now - cur.startedAt < 2 * windowMs ? cur : newGeneration(now - windowMs);
+                current = cur = newGeneration(now);
+            }
+            return cur;
+        }
+    }
+
+    /** Lowercase and collapse whitespace so trivial variations hash the same. */
+    static String normalize(String s) {
+        final StringBuilder sb = new StringBuilder(s.length());
+        boolean space = false;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (Character.isWhitespace(c)) {
+                space = sb.length() > 0;
+                continue;
+            }
+            if (space) {
+                sb.append(' ');
+                space = false;
+            }
+            sb.append(Character.toLowerCase(c));
+        }
+        return sb.toString();
+    }
+}
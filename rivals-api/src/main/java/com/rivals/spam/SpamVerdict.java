@@ -0,0 +1,14 @@
+package com.rivals.spam;
+
+/**
+ * Outcome of a spam check.
+ * reason: null when allowed; otherwise "duplicate", "link-flood" or "near-duplicate".
+ */
+public record SpamVerdict(boolean allowed, String reason) {
+
+    public static final SpamVerdict ALLOW = new SpamVerdict(true, null);
+
+    public static SpamVerdict reject(String reason) {
+        return new SpamVerdict(false, reason);
+    }
+}
@@ -0,0 +1,73 @@
+package com.rivals.util;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free multi-producer / single-consumer queue (Vyukov-style sequenced ring).
+ * offer() never blocks: it returns false when full so producers can count a drop and move on.
+ * Used by the notification outbox and the live-update hub.
+ */
+public final class BoundedMpscQueue<E> {
+
+    private final int mask;
+    private final AtomicReferenceArray<E> slots;
+    private final AtomicLongArray sequence;
+    private final AtomicLong tail = new AtomicLong(); // next producer position
+    private volatile long head;                       // written by the consumer only
+
+    /** @param capacity rounded up to a power of two */
+    public BoundedMpscQueue(int capacity) {
+        int cap = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mask = cap - 1;
+        this.slots = new AtomicReferenceArray<>(cap);
+        this.sequence = new AtomicLongArray(cap);
+        for (int i = 0; i < cap; i++) sequence.set(i, i);
+    }
+
+    public boolean offer(E e) {
+        long pos = tail.get();
+        while (true) {
+            final int idx = (int) (pos & mask);
+            final long seq = sequence.get(idx);
+            final long diff = seq - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    slots.lazySet(idx, e);
+                    sequence.set(idx, pos + 1); // publish to consumer
+                    return true;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                return false; // full
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+
+    /** Move up to max elements into out; returns how many. Single consumer only. */
+    public int drainTo(List<E> out, int max) {
+        int n = 0;
+        while (n < max) {
+            final int idx = (int) (head & mask);
+            if (sequence.get(idx) != head + 1) break; // empty (or producer mid-publish)
+            out.add(slots.get(idx));
+            slots.lazySet(idx, null);
+            sequence.set(idx, head + mask + 1);        // free slot for the next lap
+            head++;
+            n++;
+        }
+        return n;
+    }
+
+    public int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+}
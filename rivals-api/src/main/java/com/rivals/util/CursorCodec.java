@@ -1,28 +1,365 @@
 package com.rivals.util;
 
 import java.nio.charset.StandardCharsets;
-import java.util.Base64;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Arrays;
 
 /**
- * Encode/decode opaque cursors for pagination.
- * For now, we just wrap the last key in Base64.
+ * Signed, versioned, binary pagination cursors.
+ *
+ * Layout before base64url (no padding):
+ *   [format][mode][flags][page size: varint][repo version: varint][key time: varint]
+ *   [key id: 16 bytes when it is a ULID, else varint length + UTF-8][MAC: 8 bytes]
+ *
+ * - The MAC is SipHash-2-4 over the cursor bytes plus a scope the cursor is bound to (the
+ *   thread id for comments, "" otherwise), so forged, truncated or cross-listing cursors are
+ *   rejected before anything is parsed or seeked.
+ * - Secret: -Drivals.cursor-secret / RIVALS_CURSOR_SECRET (share it across nodes), else random
+ *   per process, in which case cursors stop verifying after a restart.
+ * - encode/decode work in per-thread scratch buffers: decode fills a per-thread {@link Cursor}
+ *   and allocates nothing until the caller asks for the key id as a String.
+ * - Anything that doesn't verify throws {@link InvalidCursorException}; services map it to 400.
  */
-public class CursorCodec {
+public final class CursorCodec {
+
+    public static final int FORMAT = 1;
+    /** Longest key id (UTF-8 bytes) a cursor can carry. */
+    public static final int MAX_KEY_BYTES = 2048;
+
+    /** What the cursor pages over; a cursor only decodes for the mode it was issued for. Append only. */
+    public enum Mode { THREADS_BY_ACTIVITY, COMMENTS_BY_TIME, NEWS, AUTHOR_ACTIVITY }
+
+    /** Malformed, forged or foreign cursor. */
+    public static final class InvalidCursorException extends IllegalArgumentException {
+        private static final long serialVersionUID = 1L;
+
+        public InvalidCursorException(String message) {
+            super(message);
+        }
+    }
+
+    private static final int MAC_BYTES = 8;
+    private static final int FLAG_ULID_KEY = 1;
+    private static final int MAX_BINARY = 3 + 5 + 10 + 10 + 5 + MAX_KEY_BYTES + MAC_BYTES;
+    private static final int MAX_TEXT = (MAX_BINARY * 4 + 2) / 3;
+
+    private static final byte[] B64 =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] B64_DECODE = new byte[128];
+    static {
+        Arrays.fill(B64_DECODE, (byte) -1);
+        for (int i = 0; i < B64.length; i++) B64_DECODE[B64[i]] = (byte) i;
+    }
+
+    private static final long K0, K1;
+    static {
+        final byte[] k = resolveSecret();
+        K0 = le64(k, 0);
+        K1 = le64(k, 8);
+    }
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
 
     /**
-     * Encode a key (e.g. last seen item) into a Base64 cursor.
+     * Cursor positioned after (keyTime, keyId).
+     * @param scope what the cursor is bound to, e.g. the thread id; must match on decode
+     * @throws IllegalArgumentException if the key id is longer than {@link #MAX_KEY_BYTES}
      */
-    public static String encode(String lastKey) {
-        if (lastKey == null) return null;
-        return Base64.getUrlEncoder().encodeToString(lastKey.getBytes(StandardCharsets.UTF_8));
+    public static String encode(Mode mode, String scope, int pageSize, long version, long keyTime, String keyId) {
+        final Scratch s = SCRATCH.get();
+        final byte[] b = s.bin;
+        b[0] = FORMAT;
+        b[1] = (byte) (mode.ordinal() + 1);
+        final boolean ulid = Ids.decode(keyId, s.id, true);
+        b[2] = (byte) (ulid ? FLAG_ULID_KEY : 0);
+        int p = putVarint(b, 3, pageSize & 0xFFFF_FFFFL);
+        p = putVarint(b, p, version);
+        p = putVarint(b, p, keyTime);
+        if (ulid) {
+            p = putLong(b, p, s.id[0]);
+            p = putLong(b, p, s.id[1]);
+        } else {
+            final int len = utf8Length(keyId);
+            if (len > MAX_KEY_BYTES) throw new IllegalArgumentException("Cursor key too long: " + len + " bytes");
+            p = putVarint(b, p, len);
+            p = putUtf8(b, p, keyId);
+        }
+        p = putLong(b, p, sipHash(K0, K1, b, p, scope, s.sip));
+        final int n = base64(b, p, s.text);
+        return new String(s.text, 0, n, StandardCharsets.ISO_8859_1);
     }
 
     /**
-     * Decode a Base64 cursor back into its original key.
+     * Verify and parse a cursor issued for this mode and scope.
+     * @return null for no cursor; otherwise this thread's reusable holder, valid until the
+     *         next decode on the same thread
+     * @throws InvalidCursorException if the cursor is malformed, forged or was issued elsewhere
      */
-    public static String decode(String cursor) {
-        if (cursor == null) return null;
-        return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+    public static Cursor decode(String cursor, Mode mode, String scope) {
+        if (cursor == null || cursor.isEmpty()) return null;
+        if (cursor.length() > MAX_TEXT) throw new InvalidCursorException("Cursor too long");
+        final Scratch s = SCRATCH.get();
+        final byte[] b = s.bin;
+        final int n = unbase64(cursor, b);
+        if (n < 0) throw new InvalidCursorException("Cursor is not base64url");
+        if (n < 7 + MAC_BYTES) throw new InvalidCursorException("Cursor too short");
+
+        final int body = n - MAC_BYTES;
+        if (getLong(b, body) != sipHash(K0, K1, b, body, scope, s.sip)) {
+            throw new InvalidCursorException("Cursor signature mismatch");
+        }
+        // Signed by us from here on; the checks below catch format changes, not tampering
+        if (b[0] != FORMAT) throw new InvalidCursorException("Unsupported cursor format " + b[0]);
+        if (b[1] != mode.ordinal() + 1) throw new InvalidCursorException("Cursor is for another listing");
+
+        final Cursor c = s.cursor;
+        c.mode = mode;
+        c.ulidKey = (b[2] & FLAG_ULID_KEY) != 0;
+        s.pos = 3;
+        c.pageSize = (int) getVarint(s, body);
+        c.version = getVarint(s, body);
+        c.keyTime = getVarint(s, body);
+        int p = s.pos;
+        if (c.ulidKey) {
+            if (p + 16 != body) throw new InvalidCursorException("Malformed cursor key");
+            c.idHi = getLong(b, p);
+            c.idLo = getLong(b, p + 8);
+            c.idLen = 0;
+        } else {
+            final long len = getVarint(s, body);
+            p = s.pos;
+            if (len > MAX_KEY_BYTES || p + len != body) throw new InvalidCursorException("Malformed cursor key");
+            System.arraycopy(b, p, c.idBytes, 0, (int) len);
+            c.idLen = (int) len;
+        }
+        if (c.pageSize <= 0) throw new InvalidCursorException("Malformed cursor page size");
+        return c;
+    }
+
+    /** A decoded cursor. Mutable and per-thread: read it, don't keep it. */
+    public static final class Cursor {
+        private Mode mode;
+        private int pageSize;
+        private long version;
+        private long keyTime;
+        private boolean ulidKey;
+        private long idHi, idLo;
+        private final byte[] idBytes = new byte[MAX_KEY_BYTES];
+        private int idLen;
+
+        public Mode mode() {
+            return mode;
+        }
+
+        /** Page size of the listing that issued the cursor. */
+        public int pageSize() {
+            return pageSize;
+        }
+
+        /** Repo version the previous page was served at. */
+        public long version() {
+            return version;
+        }
+
+        public long keyTime() {
+            return keyTime;
+        }
+
+        /** Id half of the key (allocates). */
+        public String keyId() {
+            return ulidKey ? Ids.encode(idHi, idLo) : new String(idBytes, 0, idLen, StandardCharsets.UTF_8);
+        }
+    }
+
+    /* --------------------------- Internals --------------------------- */
+
+    private static final class Scratch {
+        final byte[] bin = new byte[MAX_BINARY];
+        final byte[] text = new byte[MAX_TEXT];
+        final long[] id = new long[2];
+        final long[] sip = new long[4];
+        final Cursor cursor = new Cursor();
+        int pos;
+    }
+
+    /**
+     * SipHash-2-4 of b[0, len) followed by the UTF-16BE bytes of scope.
+     * @param v four longs of working state
+     */
+    static long sipHash(long k0, long k1, byte[] b, int len, String scope, long[] v) {
+        v[0] = k0 ^ 0x736f6d6570736575L;
+        v[1] = k1 ^ 0x646f72616e646f6dL;
+        v[2] = k0 ^ 0x6c7967656e657261L;
+        v[3] = k1 ^ 0x7465646279746573L;
+        final int total = len + 2 * scope.length();
+        long m = 0;
+        for (int i = 0; i < total; i++) {
+            final int x;
+            if (i < len) {
+                x = b[i] & 0xff;
+            } else {
+                final char c = scope.charAt((i - len) >> 1);
+                x = ((i - len) & 1) == 0 ? c >>> 8 : c & 0xff;
+            }
+            m |= (long) x << ((i & 7) << 3);
+            if ((i & 7) == 7) {
+                compress(v, m);
+                m = 0;
+            }
+        }
+        compress(v, m | ((long) total << 56));
+        v[2] ^= 0xff;
+        for (int i = 0; i < 4; i++) round(v);
+        return v[0] ^ v[1] ^ v[2] ^ v[3];
+    }
+
+    private static void compress(long[] v, long m) {
+        v[3] ^= m;
+        round(v);
+        round(v);
+        v[0] ^= m;
+    }
+
+    private static void round(long[] v) {
+        v[0] += v[1]; v[1] = Long.rotateLeft(v[1], 13); v[1] ^= v[0]; v[0] = Long.rotateLeft(v[0], 32);
+        v[2] += v[3]; v[3] = Long.rotateLeft(v[3], 16); v[3] ^= v[2];
+        v[0] += v[3]; v[3] = Long.rotateLeft(v[3], 21); v[3] ^= v[0];
+        v[2] += v[1]; v[1] = Long.rotateLeft(v[1], 17); v[1] ^= v[2]; v[2] = Long.rotateLeft(v[2], 32);
+    }
+
+    private static int putVarint(byte[] b, int p, long v) {
+        while ((v & ~0x7FL) != 0) {
+            b[p++] = (byte) ((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        b[p++] = (byte) v;
+        return p;
+    }
+
+    private static long getVarint(Scratch s, int end) {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (s.pos >= end) throw new InvalidCursorException("Truncated cursor");
+            final byte x = s.bin[s.pos++];
+            v |= (long) (x & 0x7F) << shift;
+            if (x >= 0) return v;
+        }
+        throw new InvalidCursorException("Malformed cursor varint");
+    }
+
+    private static int putLong(byte[] b, int p, long v) {
+        for (int i = 56; i >= 0; i -= 8) b[p++] = (byte) (v >>> i);
+        return p;
+    }
+
+    private static long getLong(byte[] b, int p) {
+        long v = 0;
+        for (int i = 0; i < 8; i++) v = (v << 8) | (b[p + i] & 0xff);
+        return v;
+    }
+
+    /** Little-endian, as SipHash reads its key. */
+    private static long le64(byte[] b, int p) {
+        long v = 0;
+        for (int i = 7; i >= 0; i--) v = (v << 8) | (b[p + i] & 0xff);
+        return v;
+    }
+
+    private static int utf8Length(String s) {
+        int n = 0;
+        for (int i = 0; i < s.length(); i++) {
+            final char c = s.charAt(i);
+            if (c < 0x80) n++;
+            else if (c < 0x800) n += 2;
+            else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                n += 4;
+                i++;
+            } else n += 3;
+        }
+        return n;
+    }
+
+    private static int putUtf8(byte[] b, int p, String s) {
+        for (int i = 0; i < s.length(); i++) {
+            final char c = s.charAt(i);
+            if (c < 0x80) {
+                b[p++] = (byte) c;
+            } else if (c < 0x800) {
+                b[p++] = (byte) (0xC0 | (c >> 6));
+                b[p++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                final int cp = Character.toCodePoint(c, s.charAt(++i));
+                b[p++] = (byte) (0xF0 | (cp >> 18));
+                b[p++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                b[p++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                b[p++] = (byte) (0x80 | (cp & 0x3F));
+            } else {
+                b[p++] = (byte) (0xE0 | (c >> 12));
+                b[p++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                b[p++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return p;
+    }
+
+    private static int base64(byte[] in, int len, byte[] out) {
+        int o = 0, i = 0;
+        for (; i + 3 <= len; i += 3) {
+            final int x = (in[i] & 0xff) << 16 | (in[i + 1] & 0xff) << 8 | (in[i + 2] & 0xff);
+            out[o++] = B64[x >>> 18];
+            out[o++] = B64[(x >>> 12) & 63];
+            out[o++] = B64[(x >>> 6) & 63];
+            out[o++] = B64[x & 63];
+        }
+        if (len - i == 1) {
+            final int x = (in[i] & 0xff) << 16;
+            out[o++] = B64[x >>> 18];
+            out[o++] = B64[(x >>> 12) & 63];
+        } else if (len - i == 2) {
+            final int x = (in[i] & 0xff) << 16 | (in[i + 1] & 0xff) << 8;
+            out[o++] = B64[x >>> 18];
+            out[o++] = B64[(x >>> 12) & 63];
+            out[o++] = B64[(x >>> 6) & 63];
+        }
+        return o;
+    }
+
+    /** @return decoded length, or -1 if s is not unpadded base64url */
+    private static int unbase64(String s, byte[] out) {
+        final int len = s.length();
+        if ((len & 3) == 1) return -1;
+        int o = 0, acc = 0, bits = 0;
+        for (int i = 0; i < len; i++) {
+            final char c = s.charAt(i);
+            final int v = c < 128 ? B64_DECODE[c] : -1;
+            if (v < 0) return -1;
+            acc = (acc << 6) | v;
+            bits += 6;
+            if (bits >= 8) {
+                bits -= 8;
+                out[o++] = (byte) (acc >>> bits);
+            }
+        }
+        // leftover bits must be zero, or two strings would decode to the same cursor
+        if ((acc & ((1 << bits) - 1)) != 0) return -1;
+        return o;
+    }
+
+    private static byte[] resolveSecret() {
+        String v = System.getProperty("rivals.cursor-secret");
+        if (v == null) v = System.getenv("RIVALS_CURSOR_SECRET");
+        if (v == null || v.isBlank()) {
+            final byte[] k = new byte[16];
+            new SecureRandom().nextBytes(k);
+            return k;
+        }
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(v.trim().getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
     private CursorCodec() {
@@ -1,20 +1,157 @@
 package com.rivals.util;
 
-import com.github.f4b6a3.ulid.UlidCreator;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
 
 /**
- * Utility for generating ULIDs (Universally Unique Lexicographically Sortable Identifiers).
+ * Per-node monotonic, ULID-compatible identifiers.
+ *
+ * Layout (128 bits, compared as two unsigned longs):
+ *   hi = 48-bit epoch millis | 16-bit sequence within that millisecond
+ *   lo = 16-bit node id      | 48 random bits
+ *
+ * - hi comes from one AtomicLong CAS: a new millisecond resets the sequence, the same (or an
+ *   earlier, if the clock stepped back) millisecond increments it, and sequence overflow
+ *   carries into the millisecond. Every id from one node is strictly greater than the last.
+ * - The string form is the usual 26-char Crockford base32 ULID, so ids stay lexicographically
+ *   sortable and look the same as before.
+ * - Node id: -Drivals.node-id / RIVALS_NODE_ID (0..65535), else random per process.
  */
-public class Ids {
+public final class Ids {
+
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final byte[] DECODE = new byte[128];
+    static {
+        Arrays.fill(DECODE, (byte) -1);
+        for (int i = 0; i < ALPHABET.length; i++) {
+            DECODE[ALPHABET[i]] = (byte) i;
+            DECODE[Character.toLowerCase(ALPHABET[i])] = (byte) i;
+        }
+    }
+
+    private static final Ids DEFAULT = new Ids(resolveNodeId(), Time::now);
+
+    private final long nodeBits;
+    private final LongSupplier clock;
+    /** epoch millis << 16 | sequence of the last id handed out */
+    private final AtomicLong last = new AtomicLong();
+
+    Ids(int nodeId, LongSupplier clockMillis) {
+        if (nodeId < 0 || nodeId > 0xFFFF) throw new IllegalArgumentException("node id must be 0..65535");
+        this.nodeBits = (long) nodeId << 48;
+        this.clock = clockMillis;
+    }
+
+    /** Next id in string form (26-char ULID). */
+    public static String ulid() {
+        return DEFAULT.nextString();
+    }
+
+    /** Next id in binary form. */
+    public static Id next() {
+        return DEFAULT.nextId();
+    }
+
+    Id nextId() {
+        return new Id(nextHi(), nodeBits | (ThreadLocalRandom.current().nextLong() & 0xFFFF_FFFF_FFFFL));
+    }
+
+    String nextString() {
+        return encode(nextHi(), nodeBits | (ThreadLocalRandom.current().nextLong() & 0xFFFF_FFFF_FFFFL));
+    }
+
+    private long nextHi() {
+        final long now = clock.getAsLong() << 16;
+        while (true) {
+            final long cur = last.get();
+            final long next = now > cur ? now : cur + 1;
+            if (last.compareAndSet(cur, next)) return next;
+        }
+    }
+
+    /** 128-bit id. Natural order = generation order on one node. */
+    public record Id(long hi, long lo) implements Comparable<Id> {
+
+        public long timestamp() {
+            return hi >>> 16;
+        }
+
+        public int nodeId() {
+            return (int) (lo >>> 48);
+        }
+
+        public byte[] toBytes() {
+            return ByteBuffer.allocate(16).putLong(hi).putLong(lo).array();
+        }
+
+        public static Id fromBytes(byte[] b) {
+            if (b.length != 16) throw new IllegalArgumentException("id must be 16 bytes");
+            ByteBuffer buf = ByteBuffer.wrap(b);
+            return new Id(buf.getLong(), buf.getLong());
+        }
+
+        public static Id parse(String s) {
+            if (s == null || s.length() != 26) throw new IllegalArgumentException("id must be 26 chars");
+            final long[] out = new long[2];
+            if (!decode(s, out, false)) throw new IllegalArgumentException("Invalid id: " + s);
+            return new Id(out[0], out[1]);
+        }
+
+        @Override
+        public int compareTo(Id o) {
+            final int c = Long.compareUnsigned(hi, o.hi);
+            return c != 0 ? c : Long.compareUnsigned(lo, o.lo);
+        }
+
+        @Override
+        public String toString() {
+            return encode(hi, lo);
+        }
+    }
+
+    /* --------------------------- Internals --------------------------- */
 
     /**
-     * Generate a new ULID string.
+     * Parse a 26-char id into out[0] = hi, out[1] = lo without allocating.
+     * @param canonicalOnly also reject lower case, so that encode(hi, lo) gives back s exactly
+     * @return false if s is not an id
      */
-    public static String ulid() {
-        return UlidCreator.getUlid().toString();
+    static boolean decode(CharSequence s, long[] out, boolean canonicalOnly) {
+        if (s == null || s.length() != 26) return false;
+        long hi = 0, lo = 0;
+        for (int i = 0; i < 26; i++) {
+            final char c = s.charAt(i);
+            final int v = c < 128 ? DECODE[c] : -1;
+            if (v < 0 || (i == 0 && v > 7) || (canonicalOnly && c >= 'a')) return false;
+            hi = (hi << 5) | (lo >>> 59);
+            lo = (lo << 5) | v;
+        }
+        out[0] = hi;
+        out[1] = lo;
+        return true;
+    }
+
+    /** 130-bit Crockford base32, most significant first (the top 2 bits are always zero). */
+    static String encode(long hi, long lo) {
+        final byte[] out = new byte[26];
+        for (int i = 25, shift = 0; i >= 0; i--, shift += 5) {
+            final long v;
+            if (shift < 60) v = lo >>> shift;
+            else if (shift == 60) v = (lo >>> 60) | (hi << 4);
+            else v = hi >>> (shift - 64);
+            out[i] = (byte) ALPHABET[(int) (v & 31)];
+        }
+        return new String(out, StandardCharsets.ISO_8859_1);
     }
 
-    private Ids() {
-        // prevent instantiation
+    private static int resolveNodeId() {
+        String v = System.getProperty("rivals.node-id");
+        if (v == null) v = System.getenv("RIVALS_NODE_ID");
+        if (v != null && !v.isBlank()) return Integer.parseInt(v.trim());
+        return ThreadLocalRandom.current().nextInt(0x10000);
     }
 }
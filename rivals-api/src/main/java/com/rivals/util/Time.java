@@ -3,27 +3,86 @@ package com.rivals.util;
 import java.time.Instant;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Time utilities for consistent timestamps.
+ *
+ * now() is a coarse clock: a daemon thread refreshes a volatile field about every 0.5ms, so a
+ * read is a plain field load with no allocation. Like System.currentTimeMillis() it follows
+ * wall-clock steps in both directions; anything that needs ordering takes its time from an
+ * {@link Ids} id, which never goes backwards (ThreadRepo does for createdAt and lastActivityAt).
+ * isoNow() re-renders only when the millisecond changes, and reuses the
+ * "yyyy-MM-ddTHH:mm:ss" prefix for the whole second.
  */
 public class Time {
 
     private static final DateTimeFormatter ISO_FORMATTER =
             DateTimeFormatter.ISO_INSTANT.withZone(ZoneOffset.UTC);
 
+    private static final long TICK_NANOS = 500_000L;
+
+    private record Rendered(long key, String text) {}
+
+    private static volatile Rendered lastIso = new Rendered(Long.MIN_VALUE, "");
+    private static volatile Rendered lastSecond = new Rendered(Long.MIN_VALUE, "");
+
+    /** Holder so the ticker starts on first use (at run time, also in native images). */
+    private static final class Clock {
+        static volatile long nowMs = System.currentTimeMillis();
+
+        static {
+            Thread t = new Thread(Clock::tick, "coarse-clock");
+            t.setDaemon(true);
+            t.start();
+        }
+
+        private static void tick() {
+            while (true) {
+                nowMs = System.currentTimeMillis();
+                LockSupport.parkNanos(TICK_NANOS);
+            }
+        }
+    }
+
     /**
-     * Current epoch millis (UTC).
+     * Current epoch millis (UTC), coarse (within ~1ms).
      */
     public static long now() {
-        return Instant.now().toEpochMilli();
+        return Clock.nowMs;
     }
 
     /**
      * Current time as ISO-8601 string (UTC).
      */
     public static String isoNow() {
-        return ISO_FORMATTER.format(Instant.now());
+        return iso(now());
+    }
+
+    /**
+     * Epoch millis as ISO-8601 (same output as DateTimeFormatter.ISO_INSTANT), cached per millisecond.
+     */
+    public static String iso(long epochMs) {
+        final Rendered cached = lastIso;
+        if (cached.key == epochMs) return cached.text;
+
+        final long second = Math.floorDiv(epochMs, 1000L);
+        Rendered prefix = lastSecond;
+        if (prefix.key != second) {
+            String full = ISO_FORMATTER.format(Instant.ofEpochSecond(second));
+            prefix = new Rendered(second, full.substring(0, full.length() - 1)); // drop 'Z'
+            lastSecond = prefix;
+        }
+        final int millis = (int) Math.floorMod(epochMs, 1000L);
+        final String text;
+        if (millis == 0) {
+            text = prefix.text + 'Z';
+        } else {
+            final char[] frac = {'.', (char) ('0' + millis / 100), (char) ('0' + millis / 10 % 10), (char) ('0' + millis % 10), 'Z'};
+            text = prefix.text.concat(new String(frac));
+        }
+        lastIso = new Rendered(epochMs, text);
+        return text;
     }
 
     private Time() {
@@ -0,0 +1,73 @@
+package com.rivals.admission;
+
+import com.rivals.admission.AdaptiveLimiter.Priority;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveLimiterTest {
+
+    private static final long MS = 1_000_000L;
+
+    private final AtomicLong clock = new AtomicLong();
+
+    /** One 100ms window in which `concurrency` requests are held at once, each taking rttMs. */
+    private void window(AdaptiveLimiter l, int concurrency, double rttMs) {
+        int admitted = 0;
+        for (int i = 0; i < concurrency; i++) if (l.tryAcquire(Priority.PREFERRED_READ)) admitted++;
+        clock.addAndGet(100 * MS);
+        for (int i = 0; i < admitted; i++) l.release((long) (rttMs * MS));
+        for (int i = admitted; i < 10; i++) { // top up so the window has enough samples
+            l.tryAcquire(Priority.PREFERRED_READ);
+            l.release((long) (rttMs * MS));
+        }
+    }
+
+    @Test
+    void growsWhileLatencyHoldsAndBacksOffWhenItRises() {
+        AdaptiveLimiter l = new AdaptiveLimiter(20, 4, 200, 2.0, 0.2, clock::get);
+        for (int i = 0; i < 30; i++) window(l, l.limit(), 2);
+        int grown = l.limit();
+        assertTrue(grown > 40, "limit should grow under steady latency, was " + grown);
+
+        for (int i = 0; i < 20; i++) window(l, l.limit(), 20); // 10x slower: overloaded
+        assertTrue(l.limit() < grown / 2, "limit should shrink, was " + l.limit());
+        assertTrue(l.limit() >= 4);
+    }
+
+    @Test
+    void idleServerDoesNotInflateItsLimit() {
+        AdaptiveLimiter l = new AdaptiveLimiter(20, 4, 200, 2.0, 0.2, clock::get);
+        for (int i = 0; i < 50; i++) window(l, 2, 1);
+        assertEquals(20, l.limit());
+    }
+
+    @Test
+    void lowerPrioritiesAreShedFirst() {
+        AdaptiveLimiter l = new AdaptiveLimiter(20, 4, 200, 2.0, 0.2, clock::get);
+        for (int i = 0; i < 10; i++) assertTrue(l.tryAcquire(Priority.READ));
+        assertFalse(l.tryAcquire(Priority.SHEDDABLE), "likes get half the limit");
+        for (int i = 0; i < 5; i++) assertTrue(l.tryAcquire(Priority.WRITE));
+        assertFalse(l.tryAcquire(Priority.WRITE), "writes get three quarters");
+        for (int i = 0; i < 3; i++) assertTrue(l.tryAcquire(Priority.READ));
+        assertFalse(l.tryAcquire(Priority.READ));
+        for (int i = 0; i < 2; i++) assertTrue(l.tryAcquire(Priority.PREFERRED_READ));
+        assertFalse(l.tryAcquire(Priority.PREFERRED_READ));
+        assertEquals(20, l.inflight());
+
+        AdaptiveLimiter.LimiterStats s = l.stats();
+        assertEquals(1L, s.rejected().get(Priority.SHEDDABLE));
+        assertEquals(13L, s.admitted().get(Priority.READ));
+    }
+
+    @Test
+    void classifiesByMethodAndPath() {
+        assertEquals(Priority.PREFERRED_READ, AdmissionFilter.classify("GET", "/rankings"));
+        assertEquals(Priority.PREFERRED_READ, AdmissionFilter.classify("GET", "/threads/t1/comments"));
+        assertEquals(Priority.READ, AdmissionFilter.classify("GET", "/news"));
+        assertEquals(Priority.WRITE, AdmissionFilter.classify("POST", "/threads/t1/comments"));
+        assertEquals(Priority.SHEDDABLE, AdmissionFilter.classify("POST", "/comments/c1/like"));
+    }
+}
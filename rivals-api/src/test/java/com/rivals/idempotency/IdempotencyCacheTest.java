@@ -0,0 +1,149 @@
+package com.rivals.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyCacheTest {
+
+    private final IdempotencyCache cache = new IdempotencyCache(new ObjectMapper(), Duration.ofMinutes(5), 2, 5000);
+
+    private static MockHttpServletRequest post(String user) {
+        MockHttpServletRequest r = new MockHttpServletRequest("POST", "/threads/t1/comments");
+        r.addHeader("X-User-Id", user);
+        return r;
+    }
+
+    @Test
+    void concurrentDuplicatesCoalesceOntoOneExecution() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<ResponseEntity<byte[]>>> calls = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                calls.add(pool.submit(() -> cache.execute(post("u1"), "k1", "hello", () -> {
+                    int n = runs.incrementAndGet();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return ResponseEntity.status(HttpStatus.CREATED).header("X-Repo-Version", "7").body(Map.of("run", n));
+                })));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            int replayed = 0;
+            for (Future<ResponseEntity<byte[]>> f : calls) {
+                ResponseEntity<byte[]> r = f.get(5, TimeUnit.SECONDS);
+                assertEquals(HttpStatus.CREATED, r.getStatusCode());
+                assertEquals("{\"run\":1}", new String(r.getBody()));
+                assertEquals("7", r.getHeaders().getFirst("X-Repo-Version"));
+                if ("true".equals(r.getHeaders().getFirst(IdempotencyCache.REPLAYED_HEADER))) replayed++;
+            }
+            assertEquals(1, runs.get());
+            assertEquals(7, replayed);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // a later retry is a replay; the same key from another user is a separate request
+        cache.execute(post("u1"), "k1", "hello", () -> fail("must not run"));
+        cache.execute(post("u2"), "k1", "hello", () -> ResponseEntity.ok(Map.of()));
+        IdempotencyCache.IdempotencyStats stats = cache.stats();
+        assertEquals(2, stats.executions());
+        assertEquals(8, stats.replays() + stats.coalesced());
+    }
+
+    @Test
+    void mismatchedBodyIsRejectedAndFailuresAreNotCached() {
+        cache.execute(post("u1"), "k", "a", () -> ResponseEntity.ok("first"));
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> cache.execute(post("u1"), "k", "b", () -> ResponseEntity.ok("second")));
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, e.getStatusCode());
+
+        AtomicInteger runs = new AtomicInteger();
+        for (int i = 0; i < 2; i++) {
+            assertThrows(ResponseStatusException.class, () -> cache.execute(post("u1"), "f", "x", () -> {
+                runs.incrementAndGet();
+                throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS);
+            }));
+        }
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    void bodiesWithEqualHashCodesAreStillDifferentRequests() {
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        cache.execute(post("u1"), "k", "Aa", () -> ResponseEntity.ok("first"));
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> cache.execute(post("u1"), "k", "BB", () -> ResponseEntity.ok("second")));
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, e.getStatusCode());
+    }
+
+    @Test
+    void inFlightEntriesSurviveCapacityEviction() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<ResponseEntity<byte[]>> first = pool.submit(() -> cache.execute(post("u1"), "slow", "s", () -> {
+                runs.incrementAndGet();
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return ResponseEntity.ok("slow");
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            for (String k : List.of("a", "b", "c", "d")) cache.execute(post("u1"), k, k, () -> ResponseEntity.ok(k));
+
+            Future<ResponseEntity<byte[]>> duplicate = pool.submit(() -> cache.execute(post("u1"), "slow", "s", () -> {
+                runs.incrementAndGet();
+                return ResponseEntity.ok("again");
+            }));
+            while (cache.stats().coalesced() == 0) Thread.sleep(1);
+            release.countDown();
+            assertEquals("\"slow\"", new String(first.get(5, TimeUnit.SECONDS).getBody()));
+            assertEquals("\"slow\"", new String(duplicate.get(5, TimeUnit.SECONDS).getBody()));
+            assertEquals(1, runs.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void oldestEntriesAreEvictedPastCapacity() {
+        for (String k : List.of("a", "b", "c")) cache.execute(post("u1"), k, k, () -> ResponseEntity.ok(k));
+        cache.execute(post("u1"), "d", "d", () -> ResponseEntity.ok("d"));
+        assertTrue(cache.stats().entries() <= 3);
+        assertTrue(cache.stats().evictions() >= 1);
+
+        AtomicInteger reran = new AtomicInteger();
+        cache.execute(post("u1"), "a", "a", () -> {
+            reran.incrementAndGet();
+            return ResponseEntity.ok("a");
+        });
+        assertEquals(1, reran.get(), "evicted key runs again");
+    }
+}
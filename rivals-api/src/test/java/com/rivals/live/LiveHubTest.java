@@ -0,0 +1,258 @@
+package com.rivals.live;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rivals.model.CommentDto;
+import com.rivals.model.RankingRow;
+import com.rivals.model.ThreadDto;
+import com.rivals.repo.RankingsRepo;
+import com.rivals.repo.RatingHistory;
+import com.rivals.repo.ThreadRepo;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LiveHubTest {
+
+    private static final ObjectMapper MAPPER = Jackson2ObjectMapperBuilder.json().build();
+
+    private final ThreadRepo repo = new ThreadRepo();
+    private final RankingsRepo rankings = new RankingsRepo(new RatingHistory());
+
+    /** Records frames; completes sends immediately unless stuck. Closes arrive on the hub's executor. */
+    private static final class Client implements LiveConnection.Transport {
+        final List<String> frames = new ArrayList<>();
+        final boolean stuck;
+        final CountDownLatch closed = new CountDownLatch(1);
+        CountDownLatch closeBlocksUntil; // like a container close waiting out the in-flight send
+        volatile String closedFor;
+
+        Client(boolean stuck) {
+            this.stuck = stuck;
+        }
+
+        @Override
+        public void send(String frame, Consumer<Throwable> done) {
+            frames.add(frame);
+            if (!stuck) done.accept(null);
+        }
+
+        @Override
+        public void close(String reason) {
+            closedFor = reason;
+            closed.countDown();
+            if (closeBlocksUntil != null) {
+                try {
+                    closeBlocksUntil.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        String awaitClose() throws InterruptedException {
+            assertTrue(closed.await(5, TimeUnit.SECONDS), "closed");
+            return closedFor;
+        }
+
+        List<JsonNode> take() throws Exception {
+            List<JsonNode> out = new ArrayList<>();
+            for (String f : frames) out.add(MAPPER.readTree(f));
+            frames.clear();
+            return out;
+        }
+    }
+
+    private LiveHub hub(int queueCapacity, int maxTopics, int maxPending) {
+        LiveHub hub = new LiveHub(repo, rankings, MAPPER, 100, queueCapacity, 25, maxTopics, maxPending, 8);
+        hub.listen();
+        return hub;
+    }
+
+    @Test
+    void snapshotThenOneCoalescedDiffPerTopicPerTick() throws Exception {
+        ThreadDto t = repo.createThread("live", "alice", "first");
+        LiveHub hub = hub(1024, 8, 8);
+        Client a = new Client(false), b = new Client(false);
+        LiveConnection ca = hub.connect(a), cb = hub.connect(b);
+        for (LiveConnection c : List.of(ca, cb)) {
+            hub.subscribe(c, "threads");
+            hub.subscribe(c, "thread:" + t.id());
+        }
+        hub.tick();
+
+        List<JsonNode> snapshots = a.take();
+        assertEquals(2, snapshots.size());
+        for (JsonNode s : snapshots) assertEquals("snapshot", s.get("type").asText());
+        assertEquals(t.id(), snapshots.get(0).get("threads").get(0).get("id").asText());
+        assertEquals(1, snapshots.get(1).get("comments").size());
+        assertFalse(snapshots.get(1).has("players"), "null fields are left out");
+        b.take();
+
+        CommentDto liked = repo.addComment(t.id(), "bob", "c1");
+        for (int i = 2; i <= 5; i++) repo.addComment(t.id(), "bob", "c" + i);
+        repo.likeComment(liked.id());
+        hub.tick();
+
+        assertEquals(a.frames, b.frames);
+        assertSame(a.frames.get(0), b.frames.get(0), "serialized once per topic, not per client");
+        List<JsonNode> diffs = a.take();
+        assertEquals(2, diffs.size(), "six writes, one frame per topic");
+        JsonNode head = diffs.get(0), thread = diffs.get(1);
+        assertEquals("threads", head.get("topic").asText());
+        assertEquals(1, head.get("seq").asLong());
+        assertEquals(6, head.get("threads").get(0).get("postCount").asInt());
+        assertEquals("thread:" + t.id(), thread.get("topic").asText());
+        assertEquals(5, thread.get("comments").size());
+        assertEquals(1, thread.get("comments").get(0).get("likes").asInt(), "latest state wins");
+        assertEquals(repo.version(), thread.get("version").asLong());
+
+        hub.tick();
+        assertTrue(a.frames.isEmpty(), "nothing changed, nothing sent");
+
+        hub.unsubscribe(ca, "threads");
+        repo.addComment(t.id(), null, "after");
+        hub.tick();
+        List<JsonNode> after = a.take();
+        assertEquals(1, after.size());
+        assertEquals(2, after.get(0).get("seq").asLong());
+        assertEquals(2, hub.stats().connections());
+        assertEquals(3, hub.stats().subscriptions());
+    }
+
+    @Test
+    void rankingsSubscribersGetRowDiffsWhenARegionIsReplaced() throws Exception {
+        LiveHub hub = hub(1024, 8, 8);
+        Client a = new Client(false);
+        hub.subscribe(hub.connect(a), "rankings:eu");
+        hub.tick();
+        JsonNode snapshot = a.take().get(0);
+        assertEquals("rankings:EU", snapshot.get("topic").asText());
+        assertTrue(snapshot.get("globalFallback").asBoolean());
+        assertEquals(10, snapshot.get("players").size());
+
+        List<RankingRow> eu = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) eu.add(new RankingRow("e" + i, "E" + i, i, 2500 - i, "DE", "", 0.5, 2, 140, "2025-01-01T00:00:00Z"));
+        rankings.putRegion("EU", eu);
+        hub.tick();
+        JsonNode first = a.take().get(0);
+        assertEquals("diff", first.get("type").asText());
+        assertEquals("EU", first.get("effectiveRegion").asText());
+        assertEquals(3, first.get("players").size());
+        assertEquals(10, first.get("removed").size(), "the GLOBAL fallback rows are gone");
+
+        eu.set(1, new RankingRow("e2", "E2", 2, 2600, "DE", "", 0.5, 2, 140, "2025-01-02T00:00:00Z"));
+        eu.remove(2);
+        rankings.putRegion("eu", eu);
+        rankings.putRegion("NA", eu); // another region: no frame
+        hub.tick();
+        List<JsonNode> frames = a.take();
+        assertEquals(1, frames.size());
+        assertEquals(2, frames.get(0).get("seq").asLong());
+        assertEquals("e2", frames.get(0).get("players").get(0).get("playerId").asText());
+        assertEquals(1, frames.get(0).get("players").size());
+        assertEquals("e3", frames.get(0).get("removed").get(0).asText());
+    }
+
+    @Test
+    void badTopicsAndSlowClientsAreTurnedAway() throws Exception {
+        ThreadDto t = repo.createThread("live", null, null);
+        LiveHub hub = hub(1024, 2, 2);
+        Client a = new Client(false);
+        LiveConnection ca = hub.connect(a);
+        hub.subscribe(ca, "nope");
+        hub.subscribe(ca, "thread:missing");
+        hub.subscribe(ca, "threads");
+        hub.tick();
+        hub.subscribe(ca, "rankings:GLOBAL"); // the missing thread's slot was given back
+        hub.subscribe(ca, "thread:" + t.id());
+        hub.tick();
+        List<String> types = a.take().stream().map(f -> f.get("type").asText() + " " + f.path("error").asText()).toList();
+        assertEquals(List.of("error unknown topic", "error thread not found", "snapshot ",
+                "error too many topics (max 2)", "snapshot "), types);
+        hub.unsubscribe(ca, "rankings:GLOBAL");
+
+        Client slow = new Client(true);
+        hub.subscribe(hub.connect(slow), "thread:" + t.id());
+        hub.tick(); // snapshot is in flight and never completes
+        for (int i = 0; i < 4; i++) {
+            repo.addComment(t.id(), null, "c" + i);
+            hub.tick();
+        }
+        assertEquals("slow consumer", slow.awaitClose());
+        assertEquals(1, hub.stats().connectionsDropped());
+        assertEquals(1, hub.stats().connections());
+        assertNull(a.closedFor);
+
+        Client flood = new Client(false);
+        LiveConnection cf = hub.connect(flood);
+        for (int i = 0; i < 8; i++) hub.unsubscribe(cf, "threads"); // 8 waiting is the limit
+        assertNull(flood.closedFor);
+        hub.subscribe(cf, "threads");
+        assertEquals("too many pending commands", flood.awaitClose());
+        assertEquals(2, hub.stats().connectionsDropped());
+        hub.disconnect(cf);
+        hub.tick();
+        assertEquals(1, hub.stats().connections());
+        assertTrue(flood.frames.isEmpty());
+    }
+
+    @Test
+    void blockingCloseDoesNotStallTheFlusher() throws Exception {
+        ThreadDto t = repo.createThread("live", null, null);
+        LiveHub hub = hub(1024, 8, 2);
+        Client a = new Client(false), slow = new Client(true);
+        slow.closeBlocksUntil = new CountDownLatch(1);
+        LiveConnection ca = hub.connect(a);
+        hub.subscribe(ca, "thread:" + t.id());
+        hub.subscribe(hub.connect(slow), "thread:" + t.id());
+        hub.tick();
+        a.take();
+        try {
+            for (int i = 0; i < 4; i++) {
+                repo.addComment(t.id(), null, "c" + i);
+                long start = System.nanoTime();
+                hub.tick();
+                assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2), "tick waited on the close");
+            }
+            assertEquals("slow consumer", slow.awaitClose());
+            assertEquals(4, a.take().size(), "the other client kept getting diffs");
+        } finally {
+            slow.closeBlocksUntil.countDown();
+        }
+    }
+
+    @Test
+    void droppedChangesTriggerFreshSnapshots() throws Exception {
+        ThreadDto t = repo.createThread("live", null, null);
+        LiveHub hub = hub(4, 8, 64);
+        Client a = new Client(false), b = new Client(false);
+        LiveConnection ca = hub.connect(a), cb = hub.connect(b);
+        hub.subscribe(ca, "thread:" + t.id());
+        hub.tick();
+        a.take();
+
+        for (int i = 0; i < 10; i++) repo.addComment(t.id(), null, "c" + i);
+        hub.subscribe(cb, "thread:" + t.id());   // joining when the resync happens
+        hub.subscribe(ca, "thread:" + t.id());   // re-subscribing in the same tick
+        hub.tick();
+        for (Client c : List.of(a, b)) {
+            List<JsonNode> frames = c.take();
+            assertEquals(1, frames.size(), "one snapshot each");
+            assertEquals("snapshot", frames.get(0).get("type").asText());
+            assertEquals(10, frames.get(0).get("comments").size());
+        }
+        assertTrue(hub.stats().changesDropped() > 0);
+
+        repo.addComment(t.id(), null, "back to diffs");
+        hub.tick();
+        assertEquals("diff", a.take().get(0).get("type").asText());
+    }
+}
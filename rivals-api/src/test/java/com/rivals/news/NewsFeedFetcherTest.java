@@ -0,0 +1,128 @@
+package com.rivals.news;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rivals.model.NewsItem;
+import com.rivals.model.NewsPayload;
+import com.rivals.repo.NewsRepo;
+import com.rivals.repo.NewsSnapshot;
+import com.rivals.util.CursorCodec;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NewsFeedFetcherTest {
+
+    private static final String RSS = """
+            <?xml version="1.0"?>
+            <rss version="2.0"><channel><title>Rivals</title>
+              <item><guid>a</guid><title>Patch notes</title><link>https://x/a</link>
+                <pubDate>Tue, 02 Sep 2025 10:00:00 GMT</pubDate>
+                <description><![CDATA[<p>Big <b>balance</b> pass</p>]]></description></item>
+              <item><guid>b</guid><title>Roster move</title><link>https://x/b</link>
+                <pubDate>Mon, 01 Sep 2025 10:00:00 GMT</pubDate>
+                <enclosure url="https://x/b.png" type="image/png"/></item>
+            </channel></rss>
+            """;
+
+    private static final String ATOM = """
+            <feed xmlns="http://www.w3.org/2005/Atom">
+              <entry><id>b</id><title>Roster move (mirror)</title><updated>2025-09-01T10:00:00Z</updated></entry>
+              <entry><id>c</id><title>Qualifier bracket</title><link href="https://y/c"/>
+                <published>2025-09-03T08:00:00Z</published><summary>Seeds are out</summary></entry>
+            </feed>
+            """;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger notModified = new AtomicInteger();
+    private HttpServer server;
+
+    @BeforeEach
+    void startServer() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/feed.xml", ex -> {
+            requests.incrementAndGet();
+            if ("\"v1\"".equals(ex.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModified.incrementAndGet();
+                ex.sendResponseHeaders(304, -1);
+                ex.close();
+                return;
+            }
+            byte[] body = RSS.getBytes(StandardCharsets.UTF_8);
+            ex.getResponseHeaders().add("ETag", "\"v1\"");
+            ex.sendResponseHeaders(200, body.length);
+            try (OutputStream out = ex.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void mergesFeedsNewestFirstAndRevalidates(@TempDir Path dir) throws Exception {
+        Path atom = Files.writeString(dir.resolve("feed.atom"), ATOM);
+        NewsRepo repo = new NewsRepo(mapper);
+        NewsFeedFetcher fetcher = new NewsFeedFetcher(repo, mapper, new String[]{
+                "http://127.0.0.1:" + server.getAddress().getPort() + "/feed.xml",
+                atom.toUri().toString()
+        }, 100, 2000);
+
+        fetcher.refresh();
+        List<NewsItem> items = repo.list();
+        assertEquals(List.of("c", "a", "b"), items.stream().map(NewsItem::id).toList());
+        assertEquals("Roster move", items.get(2).title(), "duplicate id keeps the first feed's entry");
+        assertEquals("https://x/b.png", items.get(2).imageUrl());
+        assertEquals("Big balance pass", items.get(1).summary());
+        assertEquals("Sep 3", items.get(0).date());
+        final long version = repo.snapshot().version();
+
+        fetcher.refresh(); // server sees If-None-Match, file is unchanged
+        assertEquals(2, requests.get());
+        assertEquals(1, notModified.get());
+        assertEquals(version, repo.snapshot().version());
+        assertEquals(2, fetcher.stats().notModified());
+    }
+
+    @Test
+    void pagesAreSplicedFromPreSerializedItems() throws Exception {
+        NewsRepo repo = new NewsRepo(mapper);
+        List<NewsItem> items = new ArrayList<>();
+        for (int i = 0; i < 45; i++) items.add(new NewsItem("n" + i, "Story " + i, "Sep 1", "s", "/i.png", null));
+        assertTrue(repo.replaceAll(items));
+        assertFalse(repo.replaceAll(new ArrayList<>(items)), "identical content keeps the snapshot");
+
+        NewsSnapshot snap = repo.snapshot();
+        List<String> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            int from = snap.start(CursorCodec.decode(cursor, CursorCodec.Mode.NEWS, ""));
+            NewsPayload page = mapper.readValue(snap.page(from, NewsRepo.DEFAULT_PAGE_SIZE), NewsPayload.class);
+            page.items().forEach(n -> seen.add(n.id()));
+            cursor = page.cursor();
+        } while (cursor != null);
+        assertEquals(items.stream().map(NewsItem::id).toList(), seen);
+
+        NewsPayload empty = mapper.readValue(snap.page(45, 10), NewsPayload.class);
+        assertTrue(empty.items().isEmpty());
+        assertNull(empty.cursor());
+        assertNotEquals(snap.etag(0, 20), snap.etag(20, 20));
+    }
+}
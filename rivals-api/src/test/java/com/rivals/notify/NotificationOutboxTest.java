@@ -0,0 +1,60 @@
+package com.rivals.notify;
+
+import com.rivals.model.ThreadDto;
+import com.rivals.repo.ThreadRepo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NotificationOutboxTest {
+
+    private NotificationOutbox outbox;
+
+    @AfterEach
+    void tearDown() {
+        if (outbox != null) outbox.stop();
+    }
+
+    @Test
+    void participantsExceptTheActorAreNotified() throws Exception {
+        ThreadRepo repo = new ThreadRepo();
+        List<Notification> got = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(3);
+        outbox = new NotificationOutbox(repo, batch -> { got.addAll(batch); batch.forEach(n -> done.countDown()); }, 64, 16, 1, 100);
+        outbox.start();
+
+        ThreadDto t = repo.createThread("t", "alice", "hi");   // alice: no one else yet
+        repo.addComment(t.id(), "bob", "hey");                 // -> alice
+        repo.addComment(t.id(), null, "anon");                 // -> alice, bob
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+
+        assertEquals(List.of("alice", "alice", "bob"), got.stream().map(Notification::recipientId).sorted().toList());
+        assertEquals(0, outbox.stats().dropped());
+    }
+
+    @Test
+    void evictedThreadRebuildsParticipantsFromTheRepo() throws Exception {
+        ThreadRepo repo = new ThreadRepo();
+        ThreadDto first = repo.createThread("t1", "alice", "hi");
+        repo.addComment(first.id(), "bob", "hey");             // before the outbox: only in the repo
+        List<Notification> got = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(4);
+        outbox = new NotificationOutbox(repo, batch -> { got.addAll(batch); batch.forEach(n -> done.countDown()); }, 64, 16, 1, 1);
+        outbox.start();
+
+        repo.createThread("t2", "dave", "other");              // the only tracked thread
+        repo.addComment(first.id(), "carol", "late");          // -> alice, bob (rebuilt)
+        repo.addComment(first.id(), "alice", "again");         // -> bob, carol
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+
+        assertEquals(List.of("alice", "bob", "bob", "carol"), got.stream().map(Notification::recipientId).sorted().toList());
+        assertEquals(1, outbox.stats().participantRebuilds());
+        assertEquals(1, outbox.stats().trackedThreads());
+    }
+}
@@ -0,0 +1,155 @@
+package com.rivals.perf;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rivals.model.PageComment;
+import com.rivals.model.PageThread;
+import com.rivals.model.RankingsPayload;
+import com.rivals.model.ThreadDto;
+import com.rivals.rate.Allowance;
+import com.rivals.rate.RateLimiter;
+import com.rivals.repo.NewsRepo;
+import com.rivals.repo.NewsSnapshot;
+import com.rivals.repo.RankingsRepo;
+import com.rivals.repo.RatingHistory;
+import com.rivals.repo.ThreadRepo;
+import com.rivals.service.RankingsService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Bytes allocated per operation on the hot paths, checked against alloc-budgets.properties.
+ * - Measured with the HotSpot per-thread allocation counter after a warm-up, so JIT and GC
+ *   threads don't count and results are stable run to run.
+ * - A change that allocates more than the budget fails the build; if it is worth it, raise the
+ *   budget in the same commit and say why. Run alone with: mvn test -Dgroups=alloc
+ * - Quiet unless a budget is missed; -Dalloc.record=true prints every measurement without
+ *   failing, for re-baselining.
+ */
+@Tag("alloc")
+class AllocationBudgetTest {
+
+    private static final int WARMUP = 20_000;
+    private static final int OPS = 20_000;
+    private static final boolean RECORD = Boolean.getBoolean("alloc.record");
+
+    private static final Properties BUDGETS = new Properties();
+    private static final ObjectMapper MAPPER = Jackson2ObjectMapperBuilder.json().build();
+    private static com.sun.management.ThreadMXBean mx;
+
+    @BeforeAll
+    static void setUp() throws IOException {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean,
+                "needs HotSpot thread allocation counters");
+        mx = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(mx.isThreadAllocatedMemorySupported() && mx.isThreadAllocatedMemoryEnabled());
+        try (InputStream in = AllocationBudgetTest.class.getResourceAsStream("/alloc-budgets.properties")) {
+            assertNotNull(in, "alloc-budgets.properties missing");
+            BUDGETS.load(in);
+        }
+    }
+
+    interface Op {
+        Object run() throws Exception;
+    }
+
+    /* --------------------------- ThreadRepo --------------------------- */
+
+    @Test
+    void threadRepo() {
+        ThreadRepo repo = new ThreadRepo();
+        ThreadDto t = repo.createThread("budget", "author", null);
+        for (int i = 0; i < 200; i++) repo.addComment(t.id(), "author", "comment " + i);
+        for (int i = 0; i < 100; i++) repo.createThread("other " + i, null, "body");
+        String commentId = repo.listComments(t.id(), null, null, 1).items().get(0).id();
+        String cursor = repo.listComments(t.id(), null, null, 50).cursor();
+
+        check("threadRepo.listComments.first50", () -> repo.listComments(t.id(), null, null, 50));
+        check("threadRepo.listComments.cursor50", () -> repo.listComments(t.id(), null, cursor, 50));
+        check("threadRepo.listThreads.first25", () -> repo.listThreads(null, 25));
+        check("threadRepo.likeComment", () -> repo.likeComment(commentId));
+        ThreadDto sink = repo.createThread("sink", null, null);
+        check("threadRepo.addComment", () -> repo.addComment(sink.id(), "author", "steady state comment"));
+    }
+
+    /* --------------------------- RateLimiter --------------------------- */
+
+    @Test
+    void rateLimiter() {
+        RateLimiter limiter = new RateLimiter();
+        MockHttpServletRequest user = new MockHttpServletRequest("POST", "/threads");
+        user.addHeader("X-User-Id", "budget-user");
+        MockHttpServletRequest anon = new MockHttpServletRequest("POST", "/threads");
+        anon.setRemoteAddr("203.0.113.7");
+
+        check("rateLimiter.tryConsume.user", () -> limiter.tryConsume(user, 1));
+        check("rateLimiter.tryConsume.anon", () -> limiter.tryConsume(anon, 1));
+        check("rateLimiter.getAllowance", () -> limiter.getAllowance(user));
+    }
+
+    /* --------------------------- Rankings --------------------------- */
+
+    @Test
+    void rankingsService() {
+        RankingsService service = new RankingsService(new RankingsRepo(new RatingHistory()));
+        check("rankingsService.getRankings.global", () -> service.getRankings("GLOBAL"));
+        check("rankingsService.getRankings.fallback", () -> service.getRankings("EU"));
+    }
+
+    /* --------------------------- JSON responses --------------------------- */
+
+    @Test
+    void jsonSerialization() {
+        ThreadRepo repo = new ThreadRepo();
+        ThreadDto t = repo.createThread("budget", "author", null);
+        for (int i = 0; i < 60; i++) repo.addComment(t.id(), "author", "comment body number " + i);
+        for (int i = 0; i < 30; i++) repo.createThread("thread title " + i, "author", null);
+        PageComment comments = repo.listComments(t.id(), null, null, 50);
+        PageThread threads = repo.listThreads(null, 25);
+        RankingsPayload rankings = new RankingsService(new RankingsRepo(new RatingHistory())).getRankings("GLOBAL");
+        Allowance allowance = new RateLimiter().getAllowance(new MockHttpServletRequest());
+        NewsSnapshot news = new NewsRepo(MAPPER).snapshot();
+
+        check("json.pageComment50", () -> MAPPER.writeValueAsBytes(comments));
+        check("json.pageThread25", () -> MAPPER.writeValueAsBytes(threads));
+        check("json.rankings", () -> MAPPER.writeValueAsBytes(rankings));
+        check("json.allowance", () -> MAPPER.writeValueAsBytes(allowance));
+        check("json.newsFirstPage", () -> news.page(0, NewsRepo.DEFAULT_PAGE_SIZE));
+    }
+
+    /* --------------------------- Internals --------------------------- */
+
+    private static void check(String name, Op op) {
+        final String budget = BUDGETS.getProperty(name);
+        final double perOp = measure(op);
+        final boolean within = budget != null && perOp <= Long.parseLong(budget.trim());
+        if (RECORD || !within) System.out.printf("alloc %-40s %10.1f B/op (budget %s)%n", name, perOp, budget);
+        if (RECORD) return;
+        assertNotNull(budget, "no budget checked in for " + name + "; measured " + Math.round(perOp) + " B/op");
+        assertTrue(within, name + " allocates " + Math.round(perOp) + " B/op, budget is " + budget.trim());
+    }
+
+    private static double measure(Op op) {
+        try {
+            long sink = 0;
+            for (int i = 0; i < WARMUP; i++) sink += op.run() == null ? 0 : 1;
+            final long before = mx.getCurrentThreadAllocatedBytes();
+            for (int i = 0; i < OPS; i++) sink += op.run() == null ? 0 : 1;
+            final long after = mx.getCurrentThreadAllocatedBytes();
+            assertTrue(sink >= 0);
+            return (after - before) / (double) OPS;
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+    }
+}
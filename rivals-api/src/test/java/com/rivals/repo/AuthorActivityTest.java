@@ -0,0 +1,93 @@
+package com.rivals.repo;
+
+import com.rivals.model.ActivityItem;
+import com.rivals.model.PageActivity;
+import com.rivals.model.ThreadDto;
+import com.rivals.util.CursorCodec;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuthorActivityTest {
+
+    private static List<String> ids(List<ActivityItem> items) {
+        return items.stream().map(i -> i.thread() != null ? i.thread().id() : i.comment().id()).toList();
+    }
+
+    private static List<String> all(ThreadRepo repo, String authorId, int limit) {
+        List<String> out = new ArrayList<>();
+        String cursor = null;
+        do {
+            PageActivity page = repo.listActivity(authorId, cursor, limit);
+            assertTrue(page.items().size() <= limit);
+            out.addAll(ids(page.items()));
+            cursor = page.cursor();
+        } while (cursor != null);
+        return out;
+    }
+
+    @Test
+    void pagesAnAuthorsThreadsAndCommentsNewestFirst() {
+        ThreadRepo repo = new ThreadRepo();
+        List<String> expected = new ArrayList<>();
+        ThreadDto own = repo.createThread("mine", "alice", "opening post");
+        expected.add(own.id());
+        expected.add(repo.listComments(own.id(), null, null, 1).items().get(0).id());
+        ThreadDto other = repo.createThread("theirs", "bob", "hello");
+        for (int i = 0; i < 40; i++) {
+            expected.add(repo.addComment(i % 2 == 0 ? own.id() : other.id(), "alice", "c" + i).id());
+            repo.addComment(other.id(), "bob", "reply " + i);
+        }
+        String deleted = expected.remove(10);
+        assertTrue(repo.deleteComment(deleted));
+        List<String> newestFirst = new ArrayList<>(expected);
+        Collections.reverse(newestFirst);
+
+        assertEquals(newestFirst, all(repo, "alice", 7));
+        assertEquals(newestFirst, all(repo, "alice", 100));
+
+        PageActivity first = repo.listActivity("alice", null, 3);
+        assertEquals("comment", first.items().get(0).type());
+        ActivityItem oldest = repo.listActivity("alice", null, 100).items().get(40);
+        assertEquals("thread", oldest.type());
+        assertEquals(repo.getThread(own.id()), oldest.thread(), "resolved to the current DTO");
+
+        assertEquals(42, all(repo, "bob", 10).size());
+        assertTrue(repo.listActivity("nobody", null, 10).items().isEmpty());
+        assertNull(repo.listActivity("nobody", null, 10).cursor());
+    }
+
+    @Test
+    void cursorIsScopedToTheAuthor() {
+        ThreadRepo repo = new ThreadRepo();
+        ThreadDto t = repo.createThread("t", "alice", null);
+        for (int i = 0; i < 5; i++) repo.addComment(t.id(), i % 2 == 0 ? "alice" : "bob", "c" + i);
+        String cursor = repo.listActivity("alice", null, 1).cursor();
+        assertNotNull(cursor);
+        assertThrows(CursorCodec.InvalidCursorException.class, () -> repo.listActivity("bob", cursor, 1));
+        assertThrows(CursorCodec.InvalidCursorException.class, () -> repo.listComments(t.id(), null, cursor, 1));
+    }
+
+    @Test
+    void followersAndRestoredReposIndexTheSameActivity() {
+        ThreadRepo leader = new ThreadRepo();
+        ThreadDto t = leader.createThread("t", "alice", "first");
+        for (int i = 0; i < 10; i++) leader.addComment(t.id(), i % 3 == 0 ? "bob" : "alice", "c" + i);
+
+        ThreadRepo follower = new ThreadRepo();
+        for (ThreadChange change : leader.changeLog().readAfter(0, 100)) follower.apply(change);
+        ThreadRepo restored = new ThreadRepo();
+        restored.restore(leader.snapshot());
+
+        List<String> expected = all(leader, "alice", 4);
+        assertEquals(8, expected.size());
+        assertEquals(expected, all(follower, "alice", 4));
+        assertEquals(expected, all(restored, "alice", 4));
+        assertEquals(2, restored.storageStats().activityAuthors());
+        assertEquals(12, restored.storageStats().activityReferences());
+    }
+}
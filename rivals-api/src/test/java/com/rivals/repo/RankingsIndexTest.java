@@ -0,0 +1,82 @@
+package com.rivals.repo;
+
+import com.rivals.model.CountryStats;
+import com.rivals.model.RankingRow;
+import com.rivals.repo.RankingsIndex.Stat;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RankingsIndexTest {
+
+    private static final String[] COUNTRIES = {"US", "SE", "JP", "KR", "BR", "de", null};
+
+    private static List<RankingRow> ladder(int n) {
+        Random rnd = new Random(7);
+        List<RankingRow> rows = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            rows.add(new RankingRow("p" + i, "P" + i, i + 1, 3000 - i, COUNTRIES[rnd.nextInt(COUNTRIES.length)], "",
+                    Math.round(rnd.nextDouble() * 100) / 100.0, Math.round(rnd.nextDouble() * 50) / 10.0,
+                    100 + rnd.nextInt(80), "2025-01-01T00:00:00Z"));
+        }
+        return rows;
+    }
+
+    @Test
+    void filteredSortedPagesMatchABruteForceScan() {
+        List<RankingRow> rows = ladder(2_000);
+        RankingsIndex index = RankingsIndex.of(rows);
+
+        for (String country : new String[]{null, "US", "de", "DE"}) {
+            for (Stat stat : new Stat[]{null, Stat.WIN_RATE, Stat.KDA, Stat.ADR, Stat.RATING}) {
+                List<RankingRow> expected = new ArrayList<>(rows.stream()
+                        .filter(r -> country == null || country.equalsIgnoreCase(r.countryCode()))
+                        .toList());
+                if (stat != null) {
+                    // best first, ties in ladder order
+                    expected.sort(Comparator.comparingDouble((RankingRow r) -> -stat.of(r)).thenComparingInt(RankingRow::rank));
+                }
+                RankingsIndex.Page page = index.page(country, stat, false, 37, 50);
+                assertEquals(expected.size(), page.total());
+                assertEquals(expected.subList(37, 87), page.players(), country + "/" + stat);
+
+                RankingsIndex.Page last = index.page(country, stat, true, 0, 3);
+                assertEquals(expected.get(expected.size() - 1), last.players().get(0), "asc starts from the worst");
+            }
+        }
+        assertEquals(0, index.page("XX", Stat.KDA, false, 0, 10).total());
+        assertTrue(index.page(null, null, false, 5_000, 10).players().isEmpty());
+    }
+
+    @Test
+    void countryAggregatesMatchABruteForceScan() {
+        List<RankingRow> rows = ladder(1_000);
+        RankingsIndex index = RankingsIndex.of(rows);
+
+        List<CountryStats> countries = index.byCountry(Stat.ADR);
+        assertEquals(6, countries.size(), "rows without a country are left out");
+        for (int i = 1; i < countries.size(); i++) assertTrue(countries.get(i - 1).players() >= countries.get(i).players());
+
+        for (CountryStats c : countries) {
+            double[] v = rows.stream().filter(r -> c.countryCode().equalsIgnoreCase(r.countryCode()))
+                    .mapToDouble(RankingRow::adr).sorted().toArray();
+            assertEquals(v.length, c.players());
+            assertEquals(java.util.Arrays.stream(v).average().orElseThrow(), c.mean(), 1e-9);
+            assertEquals(v[0], c.min());
+            assertEquals(v[v.length - 1], c.max());
+            assertEquals(v[(int) Math.ceil(0.5 * v.length) - 1], c.p50());
+            assertEquals(v[(int) Math.ceil(0.9 * v.length) - 1], c.p90());
+            assertSame(c, index.country(c.countryCode().toLowerCase(), Stat.ADR));
+        }
+        assertEquals(1_000, index.overall(Stat.RATING).players());
+        assertEquals(3000, index.overall(Stat.RATING).max());
+        assertNull(index.country("XX", Stat.ADR));
+        assertEquals(Stat.WIN_RATE, Stat.parse("winrate"));
+        assertNull(Stat.parse("elo"));
+    }
+}
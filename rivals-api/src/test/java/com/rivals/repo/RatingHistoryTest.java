@@ -0,0 +1,89 @@
+package com.rivals.repo;
+
+import com.rivals.model.RankingRow;
+import com.rivals.model.RatingPoint;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RatingHistoryTest {
+
+    private static final long DAY = 86_400_000L;
+
+    @Test
+    void roundTripsIrregularSamplesAcrossChunks() {
+        RatingHistory h = new RatingHistory();
+        Random rnd = new Random(42);
+        List<long[]> expected = new ArrayList<>();
+        long t = 1_700_000_000_000L;
+        int rating = 2500;
+        for (int i = 0; i < 3 * RatingHistory.CHUNK_SAMPLES + 17; i++) {
+            // mix of exact cadence, jitter, long gaps; small, large and huge rating moves
+            t += switch (i % 5) {
+                case 0, 1 -> DAY;
+                case 2 -> DAY + rnd.nextInt(120_000) - 60_000;
+                case 3 -> 1000L * (1 + rnd.nextInt(5000));
+                default -> 40 * DAY;
+            };
+            rating += switch (i % 4) {
+                case 0 -> 0;
+                case 1 -> rnd.nextInt(61) - 30;
+                case 2 -> rnd.nextInt(401) - 200;
+                default -> rnd.nextInt(2_000_001) - 1_000_000;
+            };
+            h.record("p", t, rating);
+            expected.add(new long[]{t / 1000 * 1000, rating});
+        }
+
+        List<RatingPoint> raw = h.range("p", 0, Long.MAX_VALUE, Integer.MAX_VALUE).points();
+        assertEquals(expected.size(), raw.size());
+        for (int i = 0; i < raw.size(); i++) {
+            assertEquals(expected.get(i)[0], raw.get(i).at(), "at #" + i);
+            assertEquals(expected.get(i)[1], raw.get(i).rating(), "rating #" + i);
+        }
+
+        // a sub-range only returns samples inside it
+        long from = expected.get(100)[0], to = expected.get(250)[0];
+        assertEquals(151, h.range("p", from, to, Integer.MAX_VALUE).points().size());
+        assertEquals(4, h.stats().chunks());
+    }
+
+    @Test
+    void downsamplesIntoBucketsWithMinMax() {
+        RatingHistory h = new RatingHistory();
+        long t0 = 1_700_000_000_000L;
+        for (int d = 0; d < 90; d++) h.record("p", t0 + d * DAY, 2000 + (d % 2 == 0 ? d : -d));
+
+        RatingHistory.Range r = h.range("p", t0, t0 + 89 * DAY, 10);
+        assertTrue(r.points().size() <= 10);
+        assertEquals((89 * DAY / 1000 + 10) / 10 * 1000, r.bucketMs()); // ceil(span / 10) seconds
+        RatingPoint first = r.points().get(0);
+        assertEquals(2000 - 7, first.min());
+        assertEquals(2000 + 8, first.max());
+        assertEquals(2000 + 8, first.rating(), "last sample of the bucket");
+        assertEquals(t0 + 8 * DAY, first.at());
+    }
+
+    @Test
+    void fedByPutRegionAndDropsStaleOrRepeatedSamples() {
+        RatingHistory h = new RatingHistory();
+        RankingsRepo repo = new RankingsRepo(h);
+        assertTrue(h.contains("p1"));
+
+        RankingRow row = new RankingRow("p1", "Crimson", 1, 3001, "US", "", 0.66, 3.1, 164, "2030-01-01T00:00:00Z");
+        repo.putRegion("us", List.of(row));
+        repo.putRegion("global", List.of(row));                       // same second, same rating
+        repo.putRegion("us", List.of(new RankingRow("p1", "Crimson", 1, 2900, "US", "", 0.66, 3.1, 164,
+                "2020-01-01T00:00:00Z")));                               // older than newest
+
+        List<RatingPoint> pts = h.range("p1", 0, Long.MAX_VALUE, 1000).points();
+        assertEquals(2, pts.size());
+        assertEquals(3001, pts.get(1).rating());
+        assertEquals(2, h.stats().dropped());
+        assertNull(h.range("nobody", 0, 1, 1));
+    }
+}
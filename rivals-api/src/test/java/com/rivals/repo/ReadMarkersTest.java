@@ -0,0 +1,55 @@
+package com.rivals.repo;
+
+import com.rivals.model.ThreadDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadMarkersTest {
+
+    @Test
+    void countsCommentsNewerThanTheUsersMarks() {
+        ThreadRepo repo = new ThreadRepo();
+        ThreadDto old = repo.createThread("before markers", null, "first");
+        repo.addComment(old.id(), null, "second");
+        ReadMarkers markers = new ReadMarkers(repo, 100);
+
+        ThreadDto a = repo.createThread("a", null, "hello");
+        ThreadDto b = repo.createThread("b", null, null);
+        List<ThreadDto> page = List.of(old, a, b);
+        assertEquals(Map.of(old.id(), 2, a.id(), 1, b.id(), 0), markers.unread("u1", page));
+
+        assertTrue(markers.markRead("u1", a.id()));
+        assertFalse(markers.markRead("u1", "missing"));
+        repo.addComment(a.id(), null, "new 1");
+        repo.addComment(a.id(), null, "new 2");
+        repo.addComment(b.id(), null, "new 3");
+        assertEquals(Map.of(old.id(), 2, a.id(), 2, b.id(), 1), markers.unread("u1", page));
+        assertEquals(Map.of(old.id(), 2, a.id(), 3, b.id(), 1), markers.unread("u2", page), "other users unaffected");
+
+        markers.markAllRead("u1");
+        assertEquals(Map.of(old.id(), 0, a.id(), 0, b.id(), 0), markers.unread("u1", page));
+        assertEquals(0, markers.stats().marks(), "marks under the watermark are dropped");
+
+        repo.addComment(old.id(), null, "after visit");
+        assertEquals(Map.of(old.id(), 1, a.id(), 0, b.id(), 0), markers.unread("u1", page));
+    }
+
+    @Test
+    void evictsTheOldestMarkPastTheCap() {
+        ThreadRepo repo = new ThreadRepo();
+        ReadMarkers markers = new ReadMarkers(repo, 2);
+        ThreadDto a = repo.createThread("a", null, "x");
+        ThreadDto b = repo.createThread("b", null, "x");
+        ThreadDto c = repo.createThread("c", null, "x");
+
+        markers.markRead("u", a.id());
+        markers.markRead("u", b.id());
+        markers.markRead("u", c.id());
+        assertEquals(Map.of(a.id(), 1, b.id(), 0, c.id(), 0), markers.unread("u", List.of(a, b, c)));
+        assertEquals(2, markers.stats().marks());
+    }
+}
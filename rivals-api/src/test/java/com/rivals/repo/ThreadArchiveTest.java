@@ -0,0 +1,136 @@
+package com.rivals.repo;
+
+import com.rivals.model.ActivityItem;
+import com.rivals.model.CommentDto;
+import com.rivals.model.ThreadDto;
+import com.rivals.util.Time;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThreadArchiveTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void idleThreadsMoveToDiskAndReviveTransparently() {
+        ThreadRepo repo = new ThreadRepo();
+        ThreadArchive archive = new ThreadArchive(dir);
+        repo.attachArchive(archive, 1);
+
+        ThreadDto a = repo.createThread("a", "u1", "first");
+        CommentDto second = repo.addComment(a.id(), null, "second ✓");
+        ThreadDto b = repo.createThread("b", "u2", "other");
+        List<CommentDto> before = repo.listComments(a.id(), null, null, 50).items();
+
+        ThreadArchive.Segment seg = repo.archiveIdle(Time.now() + 1, 100);
+        assertNotNull(seg);
+        archive.flush(seg);
+        assertEquals(0, repo.storageStats().residentThreads());
+        assertEquals(2, archive.stats().archivedThreads());
+        assertTrue(archive.stats().bytesOnDisk() > 0);
+
+        // read revives; a second revive pushes the first out of the size-1 LRU
+        assertEquals(before, repo.listComments(a.id(), null, null, 50).items());
+        assertEquals(1, repo.listComments(b.id(), null, null, 50).items().size());
+        assertEquals(1, repo.storageStats().residentThreads());
+
+        // like on a cold comment finds it via the hash column and invalidates the block
+        assertTrue(repo.likeComment(second.id()));
+        assertFalse(archive.contains(a.id()));
+        assertEquals(1, repo.listComments(a.id(), null, null, 50).items().stream()
+                .filter(c -> c.id().equals(second.id())).findFirst().orElseThrow().likes());
+
+        // writes to a cold thread see the full history
+        repo.addComment(b.id(), null, "more");
+        assertEquals(2, repo.listComments(b.id(), null, null, 50).items().size());
+        assertEquals(2, repo.getThread(b.id()).postCount());
+    }
+
+    @Test
+    void sweepResumesPastBatchesOfRevivedThreads() throws Exception {
+        ThreadRepo repo = new ThreadRepo();
+        ThreadArchiver archiver = new ThreadArchiver(repo, true, dir, Duration.ZERO, 4, 1);
+        archiver.attach();
+        ThreadDto a = repo.createThread("a", null, "first");
+        repo.createThread("b", null, "second");
+        Thread.sleep(2);
+        archiver.sweep();
+        assertEquals(0, repo.storageStats().residentThreads());
+
+        // a is revived and unchanged, so its batch writes nothing; the sweep must still reach c
+        repo.listComments(a.id(), null, null, 50);
+        ThreadDto c = repo.createThread("c", null, "third");
+        Thread.sleep(2);
+        ThreadRepo.ArchiveBatch first = repo.archiveIdle(Time.now(), 1, null);
+        assertNull(first.segment());
+        assertEquals(1, first.evicted());
+        assertNotNull(first.resumeAfter());
+
+        repo.listComments(a.id(), null, null, 50);
+        archiver.sweep();
+        assertEquals(0, repo.storageStats().residentThreads());
+        assertEquals(3, repo.storageStats().archive().archivedThreads());
+        assertEquals(1, repo.listComments(c.id(), null, null, 50).items().size());
+    }
+
+    @Test
+    void commentAuthorsAreReadWithoutReviving() {
+        ThreadRepo repo = new ThreadRepo();
+        ThreadArchive archive = new ThreadArchive(dir);
+        repo.attachArchive(archive, 4);
+        ThreadDto t = repo.createThread("t", "u1", "first");
+        repo.addComment(t.id(), "u2", "second");
+        CommentDto gone = repo.addComment(t.id(), "u3", "deleted");
+        assertTrue(repo.deleteComment(gone.id()));
+        CommentDto last = repo.addComment(t.id(), "u4", "last");
+        assertEquals(Set.of("u1", "u2"), repo.commentAuthorsBefore(t.id(), last.id()));
+
+        archive.flush(repo.archiveIdle(Time.now() + 1, 100));
+        assertEquals(List.of("u1", "u2"), List.copyOf(repo.commentAuthorsBefore(t.id(), last.id())));
+        assertEquals(0, repo.storageStats().revives());
+        assertEquals(0, repo.storageStats().residentThreads());
+    }
+
+    @Test
+    void snapshotIncludesArchivedComments() {
+        ThreadRepo repo = new ThreadRepo();
+        ThreadArchive archive = new ThreadArchive(dir);
+        repo.attachArchive(archive, 4);
+        ThreadDto t = repo.createThread("t", null, "body");
+        archive.flush(repo.archiveIdle(Time.now() + 1, 100));
+
+        ThreadRepo follower = new ThreadRepo();
+        follower.restore(repo.snapshot());
+        assertEquals(1, follower.listComments(t.id(), null, null, 50).items().size());
+    }
+
+    @Test
+    void activityFeedReadsArchivedCommentsWithoutReviving() {
+        ThreadRepo repo = new ThreadRepo();
+        ThreadArchive archive = new ThreadArchive(dir);
+        repo.attachArchive(archive, 1);
+        ThreadDto a = repo.createThread("a", "u1", "first");
+        ThreadDto b = repo.createThread("b", "u2", "other");
+        repo.addComment(a.id(), "u1", "second");
+        repo.addComment(b.id(), "u1", "reply");
+        CommentDto gone = repo.addComment(b.id(), "u1", "deleted");
+        assertTrue(repo.deleteComment(gone.id()));
+        List<ActivityItem> before = repo.listActivity("u1", null, 10).items();
+        assertEquals(4, before.size());
+
+        archive.flush(repo.archiveIdle(Time.now() + 1, 100));
+        assertEquals(0, repo.storageStats().residentThreads());
+        List<ActivityItem> after = repo.listActivity("u1", null, 10).items();
+        assertEquals(before, after);
+        assertEquals(0, repo.storageStats().revives());
+        assertEquals(0, repo.storageStats().residentThreads());
+    }
+}
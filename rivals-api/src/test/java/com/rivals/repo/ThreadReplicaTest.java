@@ -0,0 +1,129 @@
+package com.rivals.repo;
+
+import com.rivals.model.CommentDto;
+import com.rivals.model.ThreadDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThreadReplicaTest {
+
+    private ThreadReplica replica;
+
+    @AfterEach
+    void tearDown() {
+        if (replica != null) replica.stop();
+    }
+
+    @Test
+    void followerCatchesUpWithLeaderWrites() {
+        ThreadRepo leader = new ThreadRepo();
+        ThreadDto seeded = leader.createThread("before start", "u1", "first");
+
+        replica = new ThreadReplica(leader, true, 2_000);
+        replica.start();
+
+        CommentDto c = leader.addComment(seeded.id(), "u2", "second");
+        leader.likeComment(c.id());
+
+        assertTrue(replica.awaitVersion(leader.version()));
+        ThreadRepo follower = replica.repo();
+        assertEquals(leader.getThread(seeded.id()), follower.getThread(seeded.id()));
+        assertEquals(leader.listComments(seeded.id(), null, null, 50),
+                follower.listComments(seeded.id(), null, null, 50));
+        assertEquals(1, follower.listComments(seeded.id(), null, null, 50).items().get(1).likes());
+        assertEquals(0, replica.lag().behindVersions());
+    }
+
+    @Test
+    void restartedFollowerBootstrapsPastWrappedLog() {
+        ThreadRepo leader = new ThreadRepo(4);
+        replica = new ThreadReplica(leader, true, 2_000);
+        ThreadDto early = leader.createThread("early", null, null);
+        replica.start();
+        replica.stop();
+        ThreadRepo before = replica.repo();
+
+        ThreadDto t = leader.createThread("wrap", null, null);
+        for (int i = 0; i < 20; i++) leader.addComment(t.id(), null, "c" + i);
+
+        replica.start();
+        assertTrue(replica.awaitVersion(leader.version()));
+        assertEquals(20, replica.repo().getThread(t.id()).postCount());
+        // the resync filled a new copy; readers of the old one never saw it emptied
+        assertNotSame(before, replica.repo());
+        assertEquals(early, before.getThread(early.id()));
+    }
+
+    @Test
+    void applyIgnoresDuplicatesAndRejectsGaps() {
+        ThreadRepo leader = new ThreadRepo();
+        ThreadDto t = leader.createThread("t", null, "hi");
+        var changes = leader.changeLog().readAfter(0, 10);
+        assertEquals(2, changes.size());
+
+        ThreadRepo follower = new ThreadRepo();
+        assertThrows(IllegalStateException.class, () -> follower.apply(changes.get(1)));
+        assertTrue(follower.apply(changes.get(0)));
+        assertFalse(follower.apply(changes.get(0)));
+        assertTrue(follower.apply(changes.get(1)));
+        assertEquals(leader.getThread(t.id()), follower.getThread(t.id()));
+    }
+
+    @Test
+    void snapshotsTakenDuringEditsAndDeletesConvergeAfterReplay() throws Exception {
+        ThreadRepo leader = new ThreadRepo();
+        List<ThreadDto> threads = new ArrayList<>();
+        List<String> commentIds = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            ThreadDto thread = leader.createThread("t" + t, "u" + t, null);
+            threads.add(thread);
+            for (int c = 0; c < 200; c++) commentIds.add(leader.addComment(thread.id(), "u" + c % 5, "c" + c).id());
+        }
+
+        AtomicBoolean stop = new AtomicBoolean();
+        List<Thread> writers = new ArrayList<>();
+        for (int w = 0; w < 3; w++) {
+            Thread writer = new Thread(() -> {
+                ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                while (!stop.get()) {
+                    String id = commentIds.get(rnd.nextInt(commentIds.size()));
+                    switch (rnd.nextInt(3)) {
+                        case 0 -> leader.editComment(id, "edited " + rnd.nextInt());
+                        case 1 -> leader.deleteComment(id);
+                        default -> leader.likeComment(id);
+                    }
+                }
+            });
+            writer.start();
+            writers.add(writer);
+        }
+
+        List<ThreadRepo> followers = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            ThreadRepo follower = new ThreadRepo();
+            follower.restore(leader.snapshot());
+            followers.add(follower);
+        }
+        stop.set(true);
+        for (Thread writer : writers) writer.join();
+
+        for (ThreadRepo follower : followers) {
+            for (ThreadChange c : leader.changeLog().readAfter(follower.version(), Integer.MAX_VALUE)) follower.apply(c);
+            assertEquals(leader.version(), follower.version());
+            for (ThreadDto t : threads) {
+                assertEquals(leader.getThread(t.id()), follower.getThread(t.id()));
+                assertEquals(leader.listComments(t.id(), null, null, 500), follower.listComments(t.id(), null, null, 500));
+            }
+            for (int u = 0; u < 5; u++) {
+                assertEquals(leader.listActivity("u" + u, null, 100).items(), follower.listActivity("u" + u, null, 100).items());
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.rivals.repo;
+
+import com.rivals.model.CommentDto;
+import com.rivals.model.PageComment;
+import com.rivals.model.ThreadDto;
+import com.rivals.util.CursorCodec;
+import com.rivals.util.Ids;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThreadRepoTest {
+
+    @Test
+    void deletedCommentsAreSkippedAcrossPages() {
+        ThreadRepo repo = new ThreadRepo();
+        ThreadDto t = repo.createThread("t", null, null);
+        for (int i = 0; i < 10; i++) repo.addComment(t.id(), null, "c" + i);
+        List<CommentDto> ordered = repo.listComments(t.id(), null, null, 50).items();
+        for (int i = 2; i < 8; i++) assertTrue(repo.deleteComment(ordered.get(i).id()));
+
+        assertEquals(4, repo.getThread(t.id()).postCount());
+
+        PageComment p1 = repo.listComments(t.id(), null, null, 2);
+        assertEquals(ordered.subList(0, 2), p1.items());
+        assertNotNull(p1.cursor());
+        PageComment p2 = repo.listComments(t.id(), null, p1.cursor(), 2);
+        assertEquals(ordered.subList(8, 10), p2.items());
+        assertNull(p2.cursor());
+    }
+
+    @Test
+    void timestampsComeFromTheMonotonicIds() {
+        ThreadRepo repo = new ThreadRepo();
+        ThreadDto t = repo.createThread("t", null, null);
+        assertEquals(Ids.Id.parse(t.id()).timestamp(), t.createdAt());
+        long previous = t.createdAt();
+        for (int i = 0; i < 1000; i++) {
+            CommentDto c = repo.addComment(t.id(), null, "c" + i);
+            assertEquals(Ids.Id.parse(c.id()).timestamp(), c.createdAt());
+            assertTrue(c.createdAt() >= previous);
+            previous = c.createdAt();
+        }
+        assertEquals(previous, repo.getThread(t.id()).lastActivityAt());
+    }
+
+    @Test
+    void decodedCursorsPageLikeTheirStrings() {
+        ThreadRepo repo = new ThreadRepo();
+        ThreadDto t = repo.createThread("t", null, null);
+        for (int i = 0; i < 5; i++) repo.addComment(t.id(), null, "c" + i);
+        PageComment p1 = repo.listComments(t.id(), null, null, 2);
+
+        CursorCodec.Cursor after = CursorCodec.decode(p1.cursor(), CursorCodec.Mode.COMMENTS_BY_TIME, t.id());
+        assertEquals(repo.listComments(t.id(), null, p1.cursor(), 2), repo.listCommentsAfter(t.id(), null, after, 2));
+
+        CursorCodec.Cursor same = CursorCodec.decode(p1.cursor(), CursorCodec.Mode.COMMENTS_BY_TIME, t.id());
+        assertThrows(CursorCodec.InvalidCursorException.class, () -> repo.listThreadsAfter(same, 2));
+    }
+
+    @Test
+    void editAndDeleteRejectMissingOrDeletedComments() {
+        ThreadRepo repo = new ThreadRepo();
+        ThreadDto t = repo.createThread("t", null, "hello");
+        CommentDto c = repo.listComments(t.id(), null, null, 10).items().get(0);
+
+        CommentDto edited = repo.editComment(c.id(), "hello, edited");
+        assertEquals("hello, edited", edited.body());
+        assertNotNull(edited.editedAt());
+
+        assertTrue(repo.deleteComment(c.id()));
+        assertFalse(repo.deleteComment(c.id()));
+        assertNull(repo.editComment(c.id(), "again"));
+        assertFalse(repo.likeComment(c.id()));
+        assertNull(repo.editComment("nope", "x"));
+    }
+
+    @Test
+    void compactionRemovesTombstonesInBatches() {
+        ThreadRepo repo = new ThreadRepo();
+        ThreadDto t = repo.createThread("t", null, null);
+        for (int i = 0; i < 600; i++) {
+            CommentDto c = repo.addComment(t.id(), null, "c" + i);
+            if (i % 2 == 0) repo.deleteComment(c.id());
+        }
+
+        assertEquals(100, repo.compactTombstones(100));
+        assertEquals(1, repo.storageStats().threadsWithTombstones());
+        assertEquals(200, repo.compactTombstones(10_000));
+        assertEquals(0, repo.storageStats().threadsWithTombstones());
+        assertEquals(300, repo.listComments(t.id(), null, null, 1_000).items().size());
+        assertEquals(300, repo.getThread(t.id()).postCount());
+    }
+}
@@ -0,0 +1,41 @@
+package com.rivals.spam;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpamFilterTest {
+
+    private static SpamFilter filter() {
+        return new SpamFilter(true, 60_000, 3, 2, 4, 4096, 1 << 16, 1024);
+    }
+
+    @Test
+    void repeatedLinkIsRejectedOnThirdPost() {
+        SpamFilter f = filter();
+        assertTrue(f.check("check this out https://spam.example/x").allowed());
+        assertTrue(f.check("different words, same link: https://spam.example/x.").allowed());
+        SpamVerdict v = f.check("HTTPS://spam.example/x again");
+        assertFalse(v.allowed());
+        assertEquals("link-flood", v.reason());
+    }
+
+    @Test
+    void exactDuplicatesAreRejectedPastLimitButShortRepliesAreNot() {
+        SpamFilter f = filter();
+        for (int i = 0; i < 3; i++) assertTrue(f.check("Buy cheap coins now!!").allowed());
+        assertEquals("duplicate", f.check("buy  cheap coins NOW!!").reason());
+        for (int i = 0; i < 10; i++) assertTrue(f.check("gg").allowed());
+    }
+
+    @Test
+    void nearDuplicateBurstIsRejected() {
+        SpamFilter f = filter();
+        String base = "join my clan today, we are recruiting players for the ranked season, dm me on discord for an invite, free coaching ";
+        for (int i = 0; i < 4; i++) assertTrue(f.check(base + "ping " + i).allowed());
+        SpamVerdict v = f.check(base + "ping 9");
+        assertEquals("near-duplicate", v.reason());
+        assertTrue(f.check("completely unrelated discussion about patch notes and balance").allowed());
+        assertEquals(1, f.stats().rejectedNearDuplicate());
+    }
+}
@@ -0,0 +1,23 @@
+package com.rivals.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedMpscQueueTest {
+
+    @Test
+    void fullQueueDropsInsteadOfBlockingWriters() {
+        BoundedMpscQueue<Integer> q = new BoundedMpscQueue<>(4);
+        for (int i = 0; i < 4; i++) assertTrue(q.offer(i));
+        assertFalse(q.offer(99));
+        List<Integer> out = new ArrayList<>();
+        assertEquals(4, q.drainTo(out, 10));
+        assertEquals(List.of(0, 1, 2, 3), out);
+        assertTrue(q.offer(5));
+        assertEquals(1, q.size());
+    }
+}
@@ -0,0 +1,115 @@
+package com.rivals.util;
+
+import com.rivals.model.PageComment;
+import com.rivals.model.PageThread;
+import com.rivals.model.ThreadDto;
+import com.rivals.repo.ThreadRepo;
+import com.rivals.util.CursorCodec.InvalidCursorException;
+import com.rivals.util.CursorCodec.Mode;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CursorCodecTest {
+
+    @Test
+    void sipHashMatchesReferenceVectors() {
+        // key 00..0f, message 00..(n-1), from the SipHash paper's vectors
+        final long k0 = 0x0706050403020100L, k1 = 0x0f0e0d0c0b0a0908L;
+        final byte[] msg = new byte[15];
+        for (int i = 0; i < msg.length; i++) msg[i] = (byte) i;
+        final long[] v = new long[4];
+        assertEquals(0x726fdb47dd0e0e31L, CursorCodec.sipHash(k0, k1, msg, 0, "", v));
+        assertEquals(0x74f839c593dc67fdL, CursorCodec.sipHash(k0, k1, msg, 1, "", v));
+        assertEquals(0x93f5f5799a932462L, CursorCodec.sipHash(k0, k1, msg, 8, "", v));
+        assertEquals(0xa129ca6149be45e5L, CursorCodec.sipHash(k0, k1, msg, 15, "", v));
+    }
+
+    @Test
+    void roundTripsUlidAndTextKeys() {
+        final String ulid = Ids.ulid();
+        final String c1 = CursorCodec.encode(Mode.COMMENTS_BY_TIME, "thread-1", 50, 1234, 1_700_000_000_000L, ulid);
+        CursorCodec.Cursor d = CursorCodec.decode(c1, Mode.COMMENTS_BY_TIME, "thread-1");
+        assertEquals(Mode.COMMENTS_BY_TIME, d.mode());
+        assertEquals(50, d.pageSize());
+        assertEquals(1234, d.version());
+        assertEquals(1_700_000_000_000L, d.keyTime());
+        assertEquals(ulid, d.keyId());
+        assertTrue(c1.length() <= 50, "ULID keys pack into 16 bytes: " + c1);
+
+        for (String key : new String[]{"", "s1", ulid.toLowerCase(), "https://example.com/post?id=1", "ünïcødé 🎮"}) {
+            final String c = CursorCodec.encode(Mode.NEWS, "", 20, 7, 0, key);
+            assertEquals(key, CursorCodec.decode(c, Mode.NEWS, "").keyId());
+        }
+        assertNull(CursorCodec.decode(null, Mode.NEWS, ""));
+        assertNull(CursorCodec.decode("", Mode.NEWS, ""));
+    }
+
+    @Test
+    void rejectsForgedTruncatedAndForeignCursors() {
+        final String c = CursorCodec.encode(Mode.COMMENTS_BY_TIME, "thread-1", 50, 99, 1_700_000_000_000L, Ids.ulid());
+        final String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        for (int i = 0; i < c.length(); i++) {
+            final char[] chars = c.toCharArray();
+            chars[i] = alphabet.charAt((alphabet.indexOf(chars[i]) + 1) % 64);
+            final String forged = new String(chars);
+            assertThrows(InvalidCursorException.class, () -> CursorCodec.decode(forged, Mode.COMMENTS_BY_TIME, "thread-1"), forged);
+        }
+        for (int n = 0; n < c.length(); n++) {
+            final String cut = c.substring(0, n);
+            if (cut.isEmpty()) continue;
+            assertThrows(InvalidCursorException.class, () -> CursorCodec.decode(cut, Mode.COMMENTS_BY_TIME, "thread-1"));
+        }
+        assertThrows(InvalidCursorException.class, () -> CursorCodec.decode(c, Mode.COMMENTS_BY_TIME, "thread-2"));
+        assertThrows(InvalidCursorException.class, () -> CursorCodec.decode(c, Mode.THREADS_BY_ACTIVITY, "thread-1"));
+        assertThrows(InvalidCursorException.class, () -> CursorCodec.decode("not a cursor!", Mode.NEWS, ""));
+        assertThrows(InvalidCursorException.class, () -> CursorCodec.decode("A".repeat(100_000), Mode.NEWS, ""));
+        // the old format: plain base64 of the composite key
+        assertThrows(InvalidCursorException.class, () -> CursorCodec.decode(
+                "MTcwMDAwMDAwMDAwMCMwMUhaWlpaWlpaWlpaWlpaWlpaWlpaWlpa", Mode.THREADS_BY_ACTIVITY, ""));
+    }
+
+    @Test
+    void decodeDoesNotAllocate() {
+        final com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final String c = CursorCodec.encode(Mode.THREADS_BY_ACTIVITY, "", 25, 1 << 20, 1_700_000_000_000L, Ids.ulid());
+        long sink = 0;
+        for (int i = 0; i < 20_000; i++) sink += CursorCodec.decode(c, Mode.THREADS_BY_ACTIVITY, "").keyTime();
+        final long before = mx.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 10_000; i++) sink += CursorCodec.decode(c, Mode.THREADS_BY_ACTIVITY, "").keyTime();
+        final long allocated = mx.getCurrentThreadAllocatedBytes() - before;
+        assertTrue(sink > 0);
+        assertTrue(allocated < 10_000, "decode allocated " + allocated + " bytes over 10k calls");
+    }
+
+    @Test
+    void repoPagesWithSignedCursorsAndRejectsOthers() {
+        ThreadRepo repo = new ThreadRepo();
+        List<ThreadDto> created = new ArrayList<>();
+        for (int i = 0; i < 7; i++) created.add(repo.createThread("t" + i, null, "body " + i));
+
+        List<String> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            PageThread page = repo.listThreads(cursor, 3);
+            page.items().forEach(t -> seen.add(t.id()));
+            cursor = page.cursor();
+        } while (cursor != null);
+        assertEquals(7, seen.size());
+        assertEquals(created.get(6).id(), seen.get(0));
+
+        final String threadCursor = repo.listThreads(null, 3).cursor();
+        assertThrows(InvalidCursorException.class, () -> repo.listComments(created.get(0).id(), null, threadCursor, 3));
+
+        ThreadDto a = created.get(0), b = created.get(1);
+        for (int i = 0; i < 3; i++) repo.addComment(a.id(), null, "more " + i);
+        PageComment first = repo.listComments(a.id(), null, null, 2);
+        assertNotNull(first.cursor());
+        assertEquals(2, repo.listComments(a.id(), null, first.cursor(), 2).items().size());
+        assertThrows(InvalidCursorException.class, () -> repo.listComments(b.id(), null, first.cursor(), 2));
+    }
+}
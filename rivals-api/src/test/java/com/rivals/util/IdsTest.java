@@ -0,0 +1,93 @@
+package com.rivals.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdsTest {
+
+    @Test
+    void idsAreStrictlyIncreasingAcrossThreadsAndClockSteps() throws Exception {
+        AtomicLong clock = new AtomicLong(1_700_000_000_000L);
+        Ids ids = new Ids(42, clock::get);
+        List<String> out = new ArrayList<>();
+
+        // same millisecond, then clock stepped back: still increasing
+        for (int i = 0; i < 5; i++) out.add(ids.nextString());
+        clock.addAndGet(-10);
+        for (int i = 0; i < 5; i++) out.add(ids.nextString());
+        for (int i = 1; i < out.size(); i++) assertTrue(out.get(i - 1).compareTo(out.get(i)) < 0, "at " + i);
+
+        // sequence overflow carries into the millisecond
+        clock.addAndGet(10_000);
+        Ids.Id first = ids.nextId();
+        Ids.Id prev = first;
+        for (int i = 0; i < 70_000; i++) {
+            Ids.Id id = ids.nextId();
+            assertTrue(prev.compareTo(id) < 0);
+            prev = id;
+        }
+        assertEquals(first.timestamp() + 1, prev.timestamp());
+
+        // many threads: per-thread order increasing, no duplicates overall
+        Set<String> all = ConcurrentHashMap.newKeySet();
+        AtomicBoolean ordered = new AtomicBoolean(true);
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                String last = "";
+                for (int i = 0; i < 20_000; i++) {
+                    String s = Ids.ulid();
+                    if (last.compareTo(s) >= 0) ordered.set(false);
+                    all.add(s);
+                    last = s;
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread t : threads) t.join();
+        assertTrue(ordered.get(), "each thread sees increasing ids");
+        assertEquals(8 * 20_000, all.size());
+    }
+
+    @Test
+    void binaryAndStringFormsRoundTrip() {
+        Ids ids = new Ids(7, () -> 1_700_000_000_123L);
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            Ids.Id id = ids.nextId();
+            String s = id.toString();
+            assertEquals(26, s.length());
+            assertTrue(seen.add(s));
+            assertEquals(id, Ids.Id.parse(s));
+            assertEquals(id, Ids.Id.parse(s.toLowerCase()));
+            assertEquals(id, Ids.Id.fromBytes(id.toBytes()));
+            assertEquals(1_700_000_000_123L, id.timestamp());
+            assertEquals(7, id.nodeId());
+        }
+        assertThrows(IllegalArgumentException.class, () -> Ids.Id.parse("8ZZZZZZZZZZZZZZZZZZZZZZZZZ"));
+        assertThrows(IllegalArgumentException.class, () -> Ids.Id.parse("short"));
+    }
+
+    @Test
+    void cachedIsoRenderingMatchesIsoInstant() {
+        for (long ms : new long[]{0, 1, 999, 1000, 1_700_000_000_000L, 1_700_000_000_007L, 1_700_000_000_070L,
+                1_700_000_000_700L, 1_700_000_001_000L, -1}) {
+            assertEquals(DateTimeFormatter.ISO_INSTANT.format(Instant.ofEpochMilli(ms)), Time.iso(ms), "ms=" + ms);
+            assertSame(Time.iso(ms), Time.iso(ms), "same millisecond is served from cache");
+        }
+        long a = Time.now();
+        assertTrue(Math.abs(a - System.currentTimeMillis()) < 1000);
+        assertTrue(Time.now() >= a);
+    }
+}